@@ -0,0 +1,83 @@
+package com.example.ApacheKafka.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.messaging.NotificationEnvelopeCodec;
+
+/**
+ * Binary envelope versus the legacy {@code recipient|body} string payload.
+ * Encoded sizes for each case are printed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvelopeCodecBenchmark {
+
+    @Param({"64", "2048"})
+    int bodyLength;
+
+    private NotificationEnvelope envelope;
+    private NotificationEnvelope templated;
+    private byte[] binary;
+    private byte[] templatedBinary;
+    private String legacy;
+    private byte[] legacyBytes;
+
+    @Setup
+    public void setUp() {
+        String body = "x".repeat(bodyLength);
+        envelope = NotificationEnvelope.of(Channel.EMAIL, body);
+        templated = NotificationEnvelope.ofTemplate(Channel.EMAIL, "welcome", Map.of("name", "Ada", "email", "ada@example.com"));
+        binary = NotificationEnvelopeCodec.encode(envelope);
+        templatedBinary = NotificationEnvelopeCodec.encode(templated);
+        legacy = "student@example.com|" + body;
+        legacyBytes = legacy.getBytes(StandardCharsets.UTF_8);
+        System.out.printf("%nbytes on the wire (body %d): binary=%d legacy=%d templated=%d%n",
+                bodyLength, binary.length, legacyBytes.length, templatedBinary.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return NotificationEnvelopeCodec.encode(envelope);
+    }
+
+    @Benchmark
+    public NotificationEnvelope decodeBinary() {
+        return NotificationEnvelopeCodec.decode(binary);
+    }
+
+    @Benchmark
+    public NotificationEnvelope decodeTemplated() {
+        return NotificationEnvelopeCodec.decode(templatedBinary);
+    }
+
+    @Benchmark
+    public byte[] encodeLegacy() {
+        return legacy.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** What the consumers did before the envelope: decode the string and split it. */
+    @Benchmark
+    public String[] decodeLegacy() {
+        return new String(legacyBytes, StandardCharsets.UTF_8).split("\\|", 2);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ApacheKafka.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.ApacheKafka.messaging.DedupKey;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.messaging.NotificationEnvelopeCodec;
+import com.example.ApacheKafka.template.CompiledTemplate;
+
+/**
+ * Per-record work in {@code NotificationConsumer.listen} before the hand-off:
+ * decode the value, resolve the recipient, render and compute the dedup key.
+ * The dedup key is measured with and without the producer-supplied header, at
+ * short and long bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenParseBenchmark {
+
+    private static final String RECIPIENT = "student@example.com";
+
+    @Param({"64", "16384"})
+    int bodyLength;
+
+    private byte[] rawValue;
+    private byte[] templatedValue;
+    private CompiledTemplate template;
+    private ConsumerRecord<String, NotificationEnvelope> withHeader;
+    private ConsumerRecord<String, NotificationEnvelope> withoutHeader;
+
+    @Setup
+    public void setUp() {
+        String body = "b".repeat(bodyLength);
+        rawValue = NotificationEnvelopeCodec.encode(NotificationEnvelope.of(Channel.EMAIL, body));
+        templatedValue = NotificationEnvelopeCodec.encode(
+                NotificationEnvelope.ofTemplate(Channel.EMAIL, "welcome", Map.of("name", "Ada")));
+        template = CompiledTemplate.compile("Hi {{name|there}}, welcome aboard. " + body);
+
+        NotificationEnvelope envelope = NotificationEnvelope.of(Channel.EMAIL, body);
+        withoutHeader = new ConsumerRecord<>("email_notifications", 0, 0L, RECIPIENT, envelope);
+        withHeader = new ConsumerRecord<>("email_notifications", 0, 0L, RECIPIENT, envelope);
+        DedupKey.set(withHeader.headers(), DedupKey.of(RECIPIENT, body));
+    }
+
+    @Benchmark
+    public String rawBody() {
+        NotificationEnvelope envelope = NotificationEnvelopeCodec.decode(rawValue);
+        ConsumerRecord<String, NotificationEnvelope> record =
+                new ConsumerRecord<>("email_notifications", 0, 0L, RECIPIENT, envelope);
+        String to = NotificationEnvelope.recipientOf(record);
+        return DedupKey.of(record, to, envelope.body());
+    }
+
+    @Benchmark
+    public String templatedBody() {
+        NotificationEnvelope envelope = NotificationEnvelopeCodec.decode(templatedValue);
+        return template.render(envelope.variables());
+    }
+
+    @Benchmark
+    public String dedupKeyFromHeader() {
+        return DedupKey.of(withHeader, RECIPIENT, withHeader.value().body());
+    }
+
+    @Benchmark
+    public String dedupKeyHashed() {
+        return DedupKey.of(withoutHeader, RECIPIENT, withoutHeader.value().body());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ApacheKafka.benchmark;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.ApacheKafka.util.ExcelReader;
+import com.example.ApacheKafka.util.RecipientFileReader;
+
+/**
+ * {@link ExcelReader} (whole workbook in memory) against the streaming
+ * {@link RecipientFileReader}, for full reads and for time to the first row,
+ * which is when the first send could start. Run with {@code -prof gc} to compare
+ * allocation; the fork heap is capped so the in-memory reader's peak shows up as
+ * GC time rather than being hidden by a large default heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class RecipientFileBenchmark {
+
+    @Param({"10000", "200000"})
+    int rows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void writeWorkbook() throws IOException {
+        file = Files.createTempFile("recipients-bench-", ".xlsx");
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(500);
+             OutputStream out = new FileOutputStream(file.toFile())) {
+            Sheet sheet = workbook.createSheet("recipients");
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("user" + i + "@example.com");
+                row.createCell(1).setCellValue("User " + i);
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkbook() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<String> excelReaderFull() {
+        return ExcelReader.readEmails(file.toString());
+    }
+
+    @Benchmark
+    public long streamingFull(Blackhole sink) throws IOException {
+        return RecipientFileReader.stream(file.toString(), sink::consume);
+    }
+
+    @Benchmark
+    public String excelReaderFirstRow() {
+        return ExcelReader.readEmails(file.toString()).get(0);
+    }
+
+    @Benchmark
+    public List<String> streamingFirstRow() throws IOException {
+        FirstRow first = new FirstRow();
+        try {
+            RecipientFileReader.stream(file.toString(), row -> {
+                first.row = row;
+                throw first;
+            });
+        } catch (FirstRow stop) {
+            // stop reading as soon as a send could begin
+        } catch (IOException e) {
+            // the xlsx path wraps handler exceptions
+            if (!(e.getCause() instanceof FirstRow)) throw e;
+        }
+        return first.row;
+    }
+
+    private static final class FirstRow extends RuntimeException {
+        List<String> row;
+
+        FirstRow() {
+            super(null, null, false, false);
+        }
+    }
+}
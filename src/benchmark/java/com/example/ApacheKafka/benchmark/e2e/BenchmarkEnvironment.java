@@ -0,0 +1,78 @@
+package com.example.ApacheKafka.benchmark.e2e;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.ApacheKafka.mail.LocalSmtpServer;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * The whole application against in-process stand-ins: an embedded Kafka broker,
+ * a real PostgreSQL started from Maven-provided binaries (no Docker) and the
+ * {@link LocalSmtpServer} stub. Subclasses share one Spring context.
+ * <p>
+ * Knobs, all system properties: {@code bench.listener-mode} (record|batch),
+ * {@code bench.executor-mode} (platform|virtual) and {@code bench.smtp-delay-ms},
+ * the stub's per-message processing time.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EmbeddedKafka(partitions = BenchmarkEnvironment.PARTITIONS, bootstrapServersProperty = "spring.kafka.bootstrap-servers",
+        topics = {"notifications", "email_notifications", "inapp_notifications", "ack_notifications", "inbox_cache_invalidation"})
+abstract class BenchmarkEnvironment {
+
+    static final int PARTITIONS = 3;
+
+    static final LocalSmtpServer SMTP;
+    static final EmbeddedPostgres POSTGRES;
+
+    static {
+        try {
+            SMTP = new LocalSmtpServer(Long.getLong("bench.smtp-delay-ms", 0));
+            POSTGRES = EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start benchmark stand-ins", e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void standIns(DynamicPropertyRegistry registry) {
+        registry.add("spring.kafka.consumer.auto-offset-reset", () -> "earliest");
+        registry.add("notification.kafka.email.partitions", () -> PARTITIONS);
+        registry.add("notification.kafka.inapp.partitions", () -> PARTITIONS);
+        registry.add("notification.kafka.ack.partitions", () -> PARTITIONS);
+
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", SMTP::getPort);
+        registry.add("spring.mail.username", () -> "");
+        registry.add("spring.mail.password", () -> "");
+        registry.add("spring.mail.properties.mail.smtp.auth", () -> "false");
+        registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+        registry.add("spring.mail.properties.mail.smtp.starttls.required", () -> "false");
+
+        // Measure the pipeline, not the provider-protection limits.
+        registry.add("notification.mail.rate.account-per-second", () -> "1000000");
+        registry.add("notification.mail.rate.account-burst", () -> "1000000");
+        registry.add("notification.mail.rate.domain-per-second", () -> "1000000");
+        registry.add("notification.mail.rate.domain-burst", () -> "1000000");
+
+        registry.add("notification.email.listener-mode", () -> System.getProperty("bench.listener-mode", "record"));
+        registry.add("notification.executor.mode", () -> System.getProperty("bench.executor-mode", "platform"));
+        registry.add("notification.inapp.write-behind.batch-size", () -> "500");
+    }
+
+    @AfterAll
+    static void report() {
+        System.out.println("SMTP stub accepted " + SMTP.getMessageCount() + " messages on "
+                + SMTP.getConnectionCount() + " connections");
+    }
+}
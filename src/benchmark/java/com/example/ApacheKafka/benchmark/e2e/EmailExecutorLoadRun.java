@@ -0,0 +1,90 @@
+package com.example.ApacheKafka.benchmark.e2e;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.example.ApacheKafka.mail.LocalSmtpServer;
+import com.example.ApacheKafka.mail.PooledJavaMailSender;
+
+/**
+ * Drains {@code bench.emails} (10k) queued sends through the pooled SMTP sender
+ * on the platform pool and on virtual threads, the two
+ * {@code notification.executor.mode} settings. No Spring context or broker: only
+ * the executor and the SMTP path differ between runs.
+ */
+class EmailExecutorLoadRun {
+
+    private static final int EMAILS = Integer.getInteger("bench.emails", 10_000);
+    private static final int SMTP_POOL = Integer.getInteger("bench.smtp-pool", 16);
+    private static final long SMTP_DELAY_MS = Long.getLong("bench.smtp-delay-ms", 2);
+
+    @Test
+    void platformThreads() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(10);
+        executor.setMaxPoolSize(10);
+        executor.setQueueCapacity(EMAILS);
+        executor.setThreadNamePrefix("BenchPlatform-");
+        executor.initialize();
+        try {
+            drain("executor-platform", executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void virtualThreads() throws Exception {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("BenchVirtual-");
+        executor.setVirtualThreads(true);
+        drain("executor-virtual", executor);
+    }
+
+    private void drain(String name, Executor executor) throws Exception {
+        try (LocalSmtpServer smtp = new LocalSmtpServer(SMTP_DELAY_MS)) {
+            PooledJavaMailSender sender = new PooledJavaMailSender(SMTP_POOL, 1000, 30_000, 60_000);
+            sender.setHost("localhost");
+            sender.setPort(smtp.getPort());
+            try {
+                CountDownLatch done = new CountDownLatch(EMAILS);
+                AtomicInteger failures = new AtomicInteger();
+                long start = System.nanoTime();
+                for (int i = 0; i < EMAILS; i++) {
+                    SimpleMailMessage mail = new SimpleMailMessage();
+                    mail.setFrom("noreply@example.com");
+                    mail.setTo("user" + i + "@example.com");
+                    mail.setSubject("Executor benchmark");
+                    mail.setText("Message " + i);
+                    executor.execute(() -> {
+                        try {
+                            sender.send(mail);
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                done.await(10, TimeUnit.MINUTES);
+                long elapsed = System.nanoTime() - start;
+                assertEquals(0, failures.get(), "failed sends");
+                LatencyReport.writeRate(name, String.format("smtp-pool=%d smtp-delay=%dms", SMTP_POOL, SMTP_DELAY_MS),
+                        EMAILS, elapsed);
+            } finally {
+                sender.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ApacheKafka.benchmark.e2e;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ApacheKafka.entity.NotificationMessage;
+import com.example.ApacheKafka.repository.NotificationRepository;
+
+/**
+ * Inserts/sec for {@code notification_message} when rows are written in
+ * transactions of 1, 50 and 500, as the write-behind buffer does with its
+ * batch size. Hibernate's JDBC batch size is raised to 500 for the run.
+ */
+class InAppInsertLoadRun extends BenchmarkEnvironment {
+
+    @Autowired
+    private NotificationRepository repo;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50, 500})
+    void insertsPerSecond(int batchSize) {
+        int rows = Integer.getInteger("bench.inapp.rows", 20_000);
+        insert(Math.min(rows, 2_000), batchSize); // warm-up
+
+        long start = System.nanoTime();
+        insert(rows, batchSize);
+        LatencyReport.writeRate("inapp-insert-batch-" + batchSize, "rows=" + rows, rows, System.nanoTime() - start);
+    }
+
+    private void insert(int rows, int batchSize) {
+        for (int from = 0; from < rows; from += batchSize) {
+            List<NotificationMessage> batch = new ArrayList<>(batchSize);
+            for (int i = from; i < Math.min(rows, from + batchSize); i++) {
+                NotificationMessage row = new NotificationMessage();
+                row.setStudentId("student-" + (i % 500));
+                row.setMessage("Benchmark notification " + i);
+                row.setSent(true);
+                row.setCreatedAt(LocalDateTime.now());
+                batch.add(row);
+            }
+            tx.executeWithoutResult(status -> repo.saveAll(batch));
+        }
+    }
+}
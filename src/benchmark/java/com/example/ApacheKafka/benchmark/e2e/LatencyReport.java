@@ -0,0 +1,60 @@
+package com.example.ApacheKafka.benchmark.e2e;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Summarises one run as throughput and latency percentiles, prints it and writes
+ * it to {@code target/benchmark/<name>.txt} so runs can be diffed.
+ */
+final class LatencyReport {
+
+    private LatencyReport() {
+    }
+
+    /**
+     * @param latencyNanos one entry per message
+     * @param elapsedNanos from the first scheduled send to the last delivery
+     */
+    static String write(String name, String settings, long[] latencyNanos, long elapsedNanos) {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        String summary = String.format(Locale.ROOT,
+                "%s [%s]%n  messages=%d  throughput=%.1f msg/s%n  latency ms: p50=%.2f p90=%.2f p99=%.2f max=%.2f%n",
+                name, settings, sorted.length, sorted.length / (elapsedNanos / 1e9),
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)),
+                millis(percentile(sorted, 0.99)), millis(sorted[sorted.length - 1]));
+        return emit(name, summary);
+    }
+
+    static String writeRate(String name, String settings, long items, long elapsedNanos) {
+        String summary = String.format(Locale.ROOT, "%s [%s]%n  items=%d  elapsed=%.0f ms  rate=%.1f/s%n",
+                name, settings, items, millis(elapsedNanos), items / (elapsedNanos / 1e9));
+        return emit(name, summary);
+    }
+
+    private static String emit(String name, String summary) {
+        System.out.print(summary);
+        try {
+            Path dir = Path.of("target", "benchmark");
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve(name + ".txt"), summary);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.ApacheKafka.benchmark.e2e;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import com.example.ApacheKafka.service.NotificationProducer;
+
+/**
+ * Publishes {@code bench.messages} emails at {@code bench.rate} per second and
+ * times each one from its scheduled send until the SMTP stub accepts it. Latency
+ * is measured from the schedule, not the actual send, so a stalled producer shows
+ * up as latency instead of hiding it.
+ * <pre>
+ * mvn -Pbenchmark test -Dtest=PipelineLoadRun -Dbench.rate=2000 -Dbench.messages=20000 -Dbench.listener-mode=batch
+ * </pre>
+ */
+class PipelineLoadRun extends BenchmarkEnvironment {
+
+    private static final Pattern SEQUENCE = Pattern.compile("bench-seq=(\\d+)");
+
+    @Autowired
+    private NotificationProducer producer;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Test
+    void emailPipeline() throws Exception {
+        int messages = Integer.getInteger("bench.messages", 5000);
+        int rate = Integer.getInteger("bench.rate", 1000);
+        int bodyPadding = Integer.getInteger("bench.body-bytes", 256);
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.getLong("bench.timeout-seconds", 300));
+
+        waitForEmailListeners();
+
+        long[] scheduledAt = new long[messages];
+        AtomicLongArray deliveredAt = new AtomicLongArray(messages);
+        AtomicInteger delivered = new AtomicInteger();
+        SMTP.onMessage(data -> {
+            Matcher m = SEQUENCE.matcher(data);
+            if (m.find()) {
+                int seq = Integer.parseInt(m.group(1));
+                if (seq < messages && deliveredAt.compareAndSet(seq, 0, System.nanoTime())) {
+                    delivered.incrementAndGet();
+                }
+            }
+        });
+
+        String padding = "x".repeat(bodyPadding);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            long due = start + i * intervalNanos;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            scheduledAt[i] = due;
+            producer.sendNotification("bench" + (i % 1000) + "@example.com", "bench-seq=" + i + " " + padding);
+        }
+
+        while (delivered.get() < messages && System.nanoTime() - start < timeoutNanos) {
+            Thread.sleep(50);
+        }
+        SMTP.onMessage(null);
+        assertEquals(messages, delivered.get(), "emails accepted by the SMTP stub");
+
+        long[] latencies = new long[messages];
+        long lastDelivery = 0;
+        for (int i = 0; i < messages; i++) {
+            long at = deliveredAt.get(i);
+            latencies[i] = at - scheduledAt[i];
+            lastDelivery = Math.max(lastDelivery, at);
+        }
+        LatencyReport.write("pipeline-" + System.getProperty("bench.listener-mode", "record"),
+                String.format("rate=%d/s listener=%s executor=%s smtp-delay=%dms", rate,
+                        System.getProperty("bench.listener-mode", "record"),
+                        System.getProperty("bench.executor-mode", "platform"),
+                        Long.getLong("bench.smtp-delay-ms", 0)),
+                latencies, lastDelivery - start);
+    }
+
+    private void waitForEmailListeners() throws Exception {
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            List<String> topics = Arrays.asList(container.getContainerProperties().getTopics());
+            if (topics.contains("email_notifications")) {
+                ContainerTestUtils.waitForAssignment(container, PARTITIONS);
+            }
+        }
+    }
+}
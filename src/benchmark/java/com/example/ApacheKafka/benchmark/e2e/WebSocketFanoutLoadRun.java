@@ -0,0 +1,178 @@
+package com.example.ApacheKafka.benchmark.e2e;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.example.ApacheKafka.service.WebSocketFanoutService;
+
+/**
+ * Holds {@code bench.ws.sessions} (default 100,000) concurrent STOMP sessions,
+ * each subscribed to its own student topic, then pushes {@code bench.ws.rounds}
+ * notifications to every student through {@link WebSocketFanoutService} and
+ * times each one from {@code publish} until the client receives it. Reports the
+ * connect rate and the push latency; fails unless every session stays connected
+ * and receives every round.
+ * <p>
+ * Clients connect to the raw WebSocket transport of the SockJS endpoint. One
+ * loopback address only has ~28k ephemeral ports towards a server port, so
+ * clients spread over 127.0.0.1, 127.0.0.2, ... ({@code bench.ws.sessions-per-address}
+ * each; Linux routes all of 127/8 to loopback). Client and server share the JVM,
+ * so the full run needs about two file descriptors per session and a large heap:
+ * <pre>
+ * ulimit -n 250000
+ * mvn -Pbenchmark test -Dtest=WebSocketFanoutLoadRun -DargLine=-Xmx6g
+ * mvn -Pbenchmark test -Dtest=WebSocketFanoutLoadRun -Dbench.ws.sessions=5000   # smoke run
+ * </pre>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WebSocketFanoutLoadRun extends BenchmarkEnvironment {
+
+    private static final int SESSIONS = Integer.getInteger("bench.ws.sessions", 100_000);
+
+    @DynamicPropertySource
+    static void webSocketLimits(DynamicPropertyRegistry registry) {
+        registry.add("server.tomcat.max-connections", () -> SESSIONS + 1_000);
+        registry.add("server.tomcat.accept-count", () -> 10_000);
+        // One flush hands a frame per student to the outbound channel at once.
+        registry.add("notification.websocket.outbound.queue-capacity", () -> SESSIONS * 2);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebSocketFanoutService fanout;
+
+    private final List<StompSession> sessions = new ArrayList<>();
+    private WebSocketStompClient client;
+
+    @Test
+    void fanoutToConcurrentSessions() throws Exception {
+        int rounds = Integer.getInteger("bench.ws.rounds", 3);
+        int perAddress = Integer.getInteger("bench.ws.sessions-per-address", 25_000);
+        int connectConcurrency = Integer.getInteger("bench.ws.connect-concurrency", 200);
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.getLong("bench.timeout-seconds", 600));
+
+        client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+
+        AtomicLongArray latencies = new AtomicLongArray(SESSIONS * rounds);
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger ready = new AtomicInteger();
+        boolean[] sawReady = new boolean[SESSIONS];
+
+        Semaphore connecting = new Semaphore(connectConcurrency);
+        List<CompletableFuture<StompSession>> connects = new ArrayList<>(SESSIONS);
+        long connectStart = System.nanoTime();
+        for (int i = 0; i < SESSIONS; i++) {
+            int student = i;
+            connecting.acquire();
+            String url = "ws://127.0.0." + (1 + i / perAddress) + ":" + port + "/ws/websocket";
+            CompletableFuture<StompSession> connect = client.connectAsync(url, new StompSessionHandlerAdapter() {
+                @Override
+                public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+                    session.subscribe("/topic/notifications/" + studentId(student), new StompFrameHandler() {
+                        @Override
+                        public Type getPayloadType(StompHeaders headers) {
+                            return List.class;
+                        }
+
+                        @Override
+                        public void handleFrame(StompHeaders headers, Object payload) {
+                            long now = System.nanoTime();
+                            for (Object item : (List<?>) payload) {
+                                Map<?, ?> push = (Map<?, ?>) item;
+                                int round = ((Number) push.get("round")).intValue();
+                                if (round < 0) {
+                                    synchronized (sawReady) {
+                                        if (!sawReady[student]) {
+                                            sawReady[student] = true;
+                                            ready.incrementAndGet();
+                                        }
+                                    }
+                                } else if (latencies.compareAndSet(round * SESSIONS + student, 0,
+                                        now - ((Number) push.get("sentAt")).longValue())) {
+                                    received.incrementAndGet();
+                                }
+                            }
+                        }
+                    });
+                }
+            });
+            connect.whenComplete((session, error) -> connecting.release());
+            connects.add(connect);
+        }
+        for (CompletableFuture<StompSession> connect : connects) {
+            sessions.add(connect.get(timeoutNanos, TimeUnit.NANOSECONDS));
+        }
+        LatencyReport.writeRate("websocket-connect", "sessions=" + SESSIONS + " concurrency=" + connectConcurrency,
+                SESSIONS, System.nanoTime() - connectStart);
+
+        // SUBSCRIBE frames are handled asynchronously; push until every session has seen one.
+        while (ready.get() < SESSIONS && System.nanoTime() - connectStart < timeoutNanos) {
+            for (int i = 0; i < SESSIONS; i++) fanout.publish(studentId(i), Map.of("round", -1, "sentAt", 0L));
+            Thread.sleep(1_000);
+        }
+        assertEquals(SESSIONS, ready.get(), "sessions subscribed");
+
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < SESSIONS; i++) {
+                fanout.publish(studentId(i), Map.of("round", round, "sentAt", System.nanoTime()));
+            }
+            int expected = (round + 1) * SESSIONS;
+            while (received.get() < expected && System.nanoTime() - start < timeoutNanos) {
+                Thread.sleep(20);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long connected = sessions.stream().filter(StompSession::isConnected).count();
+        long[] samples = new long[received.get()];
+        for (int i = 0, n = 0; i < latencies.length() && n < samples.length; i++) {
+            if (latencies.get(i) != 0) samples[n++] = latencies.get(i);
+        }
+        LatencyReport.write("websocket-fanout", "sessions=" + SESSIONS + " rounds=" + rounds
+                + " connected=" + connected + " framesSent=" + fanout.getFramesSent()
+                + " dropped=" + fanout.getDroppedCount(), samples, elapsed);
+
+        assertEquals(SESSIONS, connected, "sessions still connected");
+        assertEquals(SESSIONS * rounds, received.get(), "notifications received");
+    }
+
+    @AfterEach
+    void disconnect() {
+        sessions.forEach(session -> {
+            if (session.isConnected()) session.disconnect();
+        });
+        if (client != null) client.stop();
+    }
+
+    private static String studentId(int i) {
+        return "ws-bench-" + i;
+    }
+}
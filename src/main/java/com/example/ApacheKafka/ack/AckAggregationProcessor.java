@@ -0,0 +1,88 @@
+package com.example.ApacheKafka.ack;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+/**
+ * Applies deliveries and acks to the stores. Events are idempotent per recipient,
+ * so redelivered records and acks that overtake their delivery leave the same
+ * totals. Expired notifications are removed on a wall-clock punctuation.
+ */
+class AckAggregationProcessor implements Processor<String, AckEvent, Void, Void> {
+
+    private static final Duration EXPIRY_INTERVAL = Duration.ofMinutes(10);
+
+    private final Consumer<AckSummary> summaries;
+    private final Duration retention;
+    private KeyValueStore<String, Long> recipients;
+    private KeyValueStore<String, AckCounts> counts;
+
+    AckAggregationProcessor(Consumer<AckSummary> summaries, Duration retention) {
+        this.summaries = summaries;
+        this.retention = retention;
+    }
+
+    @Override
+    public void init(ProcessorContext<Void, Void> context) {
+        this.recipients = context.getStateStore(AckAggregationTopology.RECIPIENTS_STORE);
+        this.counts = context.getStateStore(AckAggregationTopology.COUNTS_STORE);
+        context.schedule(EXPIRY_INTERVAL, PunctuationType.WALL_CLOCK_TIME, this::expire);
+    }
+
+    @Override
+    public void process(Record<String, AckEvent> record) {
+        String notificationId = record.key();
+        AckEvent event = record.value();
+        if (notificationId == null || event == null || event.studentId() == null) return;
+
+        AckCounts current = counts.get(notificationId);
+        AckCounts updated = current != null ? current : new AckCounts(0, 0, record.timestamp(), null);
+        String key = AckAggregationTopology.recipientKey(notificationId, event.studentId());
+        Long state = recipients.get(key);
+        if (state == null) {
+            recipients.put(key, event.acked() ? record.timestamp() : AckAggregationTopology.PENDING);
+            updated = updated.addRecipient(event.acked());
+        } else if (state == AckAggregationTopology.PENDING && event.acked()) {
+            recipients.put(key, record.timestamp());
+            updated = updated.addAck();
+        }
+        if (updated.preview() == null && event.preview() != null) {
+            updated = updated.withPreview(event.preview());
+        }
+        if (updated.equals(current)) return;
+
+        counts.put(notificationId, updated);
+        summaries.accept(updated.summary(notificationId));
+    }
+
+    private void expire(long now) {
+        long cutoff = now - retention.toMillis();
+        List<String> expired = new ArrayList<>();
+        try (KeyValueIterator<String, AckCounts> all = counts.all()) {
+            while (all.hasNext()) {
+                KeyValue<String, AckCounts> entry = all.next();
+                if (entry.value.firstSeenMs() < cutoff) expired.add(entry.key);
+            }
+        }
+        for (String notificationId : expired) {
+            List<String> keys = new ArrayList<>();
+            try (KeyValueIterator<String, Long> range = recipients.range(
+                    AckAggregationTopology.firstRecipientKey(notificationId),
+                    AckAggregationTopology.lastRecipientKey(notificationId))) {
+                range.forEachRemaining(entry -> keys.add(entry.key));
+            }
+            keys.forEach(recipients::delete);
+            counts.delete(notificationId);
+        }
+    }
+}
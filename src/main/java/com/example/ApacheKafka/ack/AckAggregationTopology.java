@@ -0,0 +1,110 @@
+package com.example.ApacheKafka.ack;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.messaging.NotificationEnvelopeDeserializer;
+import com.example.ApacheKafka.messaging.NotificationEnvelopeSerializer;
+import com.example.ApacheKafka.routing.NotificationRouter;
+import com.example.ApacheKafka.service.InAppNotificationProducer;
+
+/**
+ * Kafka Streams topology that tracks, per in-app notification, which recipients
+ * it was delivered to and which of them acknowledged it.
+ * <p>
+ * In-app deliveries ({@code inapp_notifications} and routed ones on
+ * {@code notifications}) and acks carrying a notification id
+ * ({@code ack_notifications}) are re-keyed by that id and repartitioned, so every
+ * event of one notification reaches the same task. Two changelogged stores hold
+ * the state:
+ * <ul>
+ *   <li>{@value #RECIPIENTS_STORE}: {@code notificationId|studentId} to the ack
+ *       timestamp, or {@code 0} while pending. Keys of one notification are
+ *       contiguous, so "who hasn't acked" is a range scan.</li>
+ *   <li>{@value #COUNTS_STORE}: {@code notificationId} to {@link AckCounts}.</li>
+ * </ul>
+ */
+public final class AckAggregationTopology {
+
+    public static final String RECIPIENTS_STORE = "ack-recipients";
+    public static final String COUNTS_STORE = "ack-counts";
+
+    static final long PENDING = 0L;
+
+    private static final char KEY_SEPARATOR = '|';
+    // Sorts right after KEY_SEPARATOR, so [id|, id}] covers exactly one notification.
+    private static final char KEY_RANGE_END = '}';
+
+    private AckAggregationTopology() {
+    }
+
+    /**
+     * @param summaries receives the new totals of a notification whenever they change
+     * @param retention how long a notification's state is kept after its first event
+     * @return the merged event stream, keyed by notification id
+     */
+    public static KStream<String, AckEvent> build(StreamsBuilder builder, Consumer<AckSummary> summaries, Duration retention) {
+        Serde<NotificationEnvelope> envelopes =
+                Serdes.serdeFrom(new NotificationEnvelopeSerializer(), new NotificationEnvelopeDeserializer());
+
+        KStream<String, AckEvent> deliveries = builder
+                .stream(List.of("inapp_notifications", NotificationRouter.TOPIC), Consumed.with(Serdes.String(), envelopes))
+                .filter((studentId, envelope) -> studentId != null && envelope != null && envelope.channel() == Channel.IN_APP)
+                .map((studentId, envelope) -> KeyValue.pair(envelope.messageId().toString(),
+                        AckEvent.delivered(studentId, envelope.body() != null ? envelope.body() : envelope.templateId())));
+
+        KStream<String, AckEvent> acks = builder
+                .stream("ack_notifications", Consumed.with(Serdes.String(), envelopes))
+                .filter((studentId, envelope) -> studentId != null && envelope != null
+                        && envelope.variables().containsKey(InAppNotificationProducer.ACK_NOTIFICATION_ID))
+                .map((studentId, envelope) -> KeyValue.pair(
+                        envelope.variables().get(InAppNotificationProducer.ACK_NOTIFICATION_ID), AckEvent.acked(studentId)));
+
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(RECIPIENTS_STORE), Serdes.String(), Serdes.Long()));
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(COUNTS_STORE), Serdes.String(), jsonSerde(AckCounts.class)));
+
+        KStream<String, AckEvent> events = deliveries.merge(acks)
+                .repartition(Repartitioned.<String, AckEvent>as("ack-events")
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(jsonSerde(AckEvent.class)));
+        events.process(() -> new AckAggregationProcessor(summaries, retention), RECIPIENTS_STORE, COUNTS_STORE);
+        return events;
+    }
+
+    static String recipientKey(String notificationId, String studentId) {
+        return notificationId + KEY_SEPARATOR + studentId;
+    }
+
+    static String firstRecipientKey(String notificationId) {
+        return notificationId + KEY_SEPARATOR;
+    }
+
+    static String lastRecipientKey(String notificationId) {
+        return notificationId + KEY_RANGE_END;
+    }
+
+    static String studentIdOf(String recipientKey) {
+        return recipientKey.substring(recipientKey.indexOf(KEY_SEPARATOR) + 1);
+    }
+
+    private static <T> JsonSerde<T> jsonSerde(Class<T> type) {
+        JsonSerde<T> serde = new JsonSerde<>(type).noTypeInfo();
+        serde.deserializer().ignoreTypeHeaders();
+        return serde;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.ApacheKafka.ack;
+
+/**
+ * Per-notification totals kept in {@value AckAggregationTopology#COUNTS_STORE}, so
+ * summaries never have to scan the recipient entries.
+ *
+ * @param firstSeenMs record timestamp of the first event; drives retention
+ */
+public record AckCounts(int recipients, int acked, long firstSeenMs, String preview) {
+
+    AckCounts addRecipient(boolean alreadyAcked) {
+        return new AckCounts(recipients + 1, alreadyAcked ? acked + 1 : acked, firstSeenMs, preview);
+    }
+
+    AckCounts addAck() {
+        return new AckCounts(recipients, acked + 1, firstSeenMs, preview);
+    }
+
+    AckCounts withPreview(String preview) {
+        return new AckCounts(recipients, acked, firstSeenMs, preview);
+    }
+
+    AckSummary summary(String notificationId) {
+        return new AckSummary(notificationId, preview, recipients, acked, recipients - acked);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.ApacheKafka.ack;
+
+/**
+ * One input to the ack aggregation, keyed by notification (message) id on the
+ * repartition topic.
+ *
+ * @param studentId recipient the event is about
+ * @param acked     {@code true} for an acknowledgement, {@code false} for a delivery
+ * @param preview   start of the notification text; only set on deliveries
+ */
+public record AckEvent(String studentId, boolean acked, String preview) {
+
+    static final int PREVIEW_LENGTH = 80;
+
+    public static AckEvent delivered(String studentId, String text) {
+        String preview = text == null || text.length() <= PREVIEW_LENGTH ? text : text.substring(0, PREVIEW_LENGTH);
+        return new AckEvent(studentId, false, preview);
+    }
+
+    public static AckEvent acked(String studentId) {
+        return new AckEvent(studentId, true, null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.ApacheKafka.ack;
+
+import org.apache.kafka.streams.state.HostInfo;
+
+/** The notification's ack state lives on another instance; ask that one instead. */
+public class AckHostedElsewhereException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient HostInfo host;
+
+    public AckHostedElsewhereException(String notificationId, HostInfo host) {
+        super("Acks of " + notificationId + " are hosted on " + host.host() + ":" + host.port());
+        this.host = host;
+    }
+
+    public HostInfo host() {
+        return host;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ApacheKafka.ack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers ack queries from the aggregation's state stores instead of the
+ * database. A notification's state lives on the instance hosting its
+ * {@code ack-events} partition; when that is another instance (known from
+ * {@code application.server}), queries fail with
+ * {@link AckHostedElsewhereException} naming it rather than reading an empty
+ * local store.
+ */
+@Service
+public class AckQueryService {
+
+    private final StreamsBuilderFactoryBean streams;
+
+    public AckQueryService(StreamsBuilderFactoryBean streams) {
+        this.streams = streams;
+    }
+
+    public Optional<AckSummary> summary(String notificationId) {
+        ReadOnlyKeyValueStore<String, AckCounts> counts = store(AckAggregationTopology.COUNTS_STORE, notificationId);
+        return Optional.ofNullable(counts.get(notificationId)).map(c -> c.summary(notificationId));
+    }
+
+    /** Up to {@code limit} recipients that have not acknowledged yet, in student id order. */
+    public List<String> pendingRecipients(String notificationId, int limit) {
+        ReadOnlyKeyValueStore<String, Long> recipients = store(AckAggregationTopology.RECIPIENTS_STORE, notificationId);
+        List<String> pending = new ArrayList<>();
+        try (KeyValueIterator<String, Long> range = recipients.range(
+                AckAggregationTopology.firstRecipientKey(notificationId),
+                AckAggregationTopology.lastRecipientKey(notificationId))) {
+            while (range.hasNext() && pending.size() < limit) {
+                KeyValue<String, Long> entry = range.next();
+                if (entry.value == AckAggregationTopology.PENDING) {
+                    pending.add(AckAggregationTopology.studentIdOf(entry.key));
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * @throws IllegalStateException while the streams app is starting or rebalancing
+     * @throws AckHostedElsewhereException if another instance hosts the notification
+     */
+    private <V> ReadOnlyKeyValueStore<String, V> store(String name, String notificationId) {
+        KafkaStreams kafkaStreams = streams.getKafkaStreams();
+        if (kafkaStreams == null || kafkaStreams.state() != KafkaStreams.State.RUNNING) {
+            throw new IllegalStateException("Ack aggregation is not running yet");
+        }
+        HostInfo self = localHost();
+        if (self != null) {
+            // Both stores belong to the task of the notification's ack-events partition.
+            KeyQueryMetadata metadata = kafkaStreams.queryMetadataForKey(
+                    name, notificationId, Serdes.String().serializer());
+            if (metadata == null || metadata.equals(KeyQueryMetadata.NOT_AVAILABLE)) {
+                throw new IllegalStateException("Ack store " + name + " has no host yet");
+            }
+            if (!self.equals(metadata.activeHost())) {
+                throw new AckHostedElsewhereException(notificationId, metadata.activeHost());
+            }
+        }
+        try {
+            return kafkaStreams.store(StoreQueryParameters.fromNameAndType(name, QueryableStoreTypes.keyValueStore()));
+        } catch (InvalidStateStoreException e) {
+            throw new IllegalStateException("Ack store " + name + " is not available: " + e.getMessage(), e);
+        }
+    }
+
+    /** This instance's {@code application.server}, or null if unset (single instance: every key is local). */
+    private HostInfo localHost() {
+        String endpoint = streams.getStreamsConfiguration() != null
+                ? streams.getStreamsConfiguration().getProperty(StreamsConfig.APPLICATION_SERVER_CONFIG) : null;
+        return endpoint == null || endpoint.isBlank() ? null : HostInfo.buildFromEndpoint(endpoint);
+    }
+}
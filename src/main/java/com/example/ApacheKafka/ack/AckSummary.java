@@ -0,0 +1,5 @@
+package com.example.ApacheKafka.ack;
+
+/** Acknowledgement progress of one notification, as pushed to {@code /topic/admin/acks}. */
+public record AckSummary(String notificationId, String message, int recipients, int acked, int pending) {
+}
@@ -0,0 +1,83 @@
+package com.example.ApacheKafka.ack;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.util.SampledLogger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Pushes ack summaries to {@code /topic/admin/acks} at a bounded rate: only the
+ * latest summary per notification is kept, and pending summaries go out as one
+ * frame per interval of at most {@code max-summaries-per-frame} entries.
+ */
+@Service
+public class AckSummaryPublisher implements DisposableBean {
+
+    private static final SampledLogger log = SampledLogger.of(AckSummaryPublisher.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int maxPerFrame;
+    private final Map<String, AckSummary> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final Timer adminPush;
+
+    public AckSummaryPublisher(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+                               @Value("${notification.acks.summary-interval-ms:1000}") long intervalMs,
+                               @Value("${notification.acks.max-summaries-per-frame:200}") int maxPerFrame) {
+        this.messagingTemplate = messagingTemplate;
+        this.maxPerFrame = maxPerFrame;
+        this.adminPush = Timer.builder("notification.websocket.push")
+                .tag("destination", "admin_acks")
+                .register(meterRegistry);
+        Gauge.builder("notification.acks.summaries.pending", pending, Map::size)
+                .description("Notifications whose ack summary changed since the last admin frame")
+                .register(meterRegistry);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "AckSummaryPublisher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Replaces any summary of the same notification still waiting to be pushed. */
+    public void offer(AckSummary summary) {
+        pending.put(summary.notificationId(), summary);
+    }
+
+    void flush() {
+        List<AckSummary> frame = new ArrayList<>();
+        Iterator<String> ids = pending.keySet().iterator();
+        while (ids.hasNext() && frame.size() < maxPerFrame) {
+            AckSummary summary = pending.remove(ids.next());
+            if (summary != null) frame.add(summary);
+        }
+        if (frame.isEmpty()) return;
+        try {
+            adminPush.record(() -> messagingTemplate.convertAndSend("/topic/admin/acks", frame));
+        } catch (Exception e) {
+            log.warn("ack.summary.push.failed", "summaries", frame.size(), "error", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        flush();
+    }
+}
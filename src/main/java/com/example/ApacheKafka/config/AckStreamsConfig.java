@@ -0,0 +1,29 @@
+package com.example.ApacheKafka.config;
+
+import java.time.Duration;
+
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+
+import com.example.ApacheKafka.ack.AckAggregationTopology;
+import com.example.ApacheKafka.ack.AckEvent;
+import com.example.ApacheKafka.ack.AckSummaryPublisher;
+
+/**
+ * Runs the ack aggregation as a Kafka Streams app; its settings come from
+ * {@code spring.kafka.streams.*}.
+ */
+@Configuration
+@EnableKafkaStreams
+public class AckStreamsConfig {
+
+    @Bean
+    public KStream<String, AckEvent> ackAggregation(StreamsBuilder builder, AckSummaryPublisher publisher,
+                                                    @Value("${notification.acks.retention-hours:168}") long retentionHours) {
+        return AckAggregationTopology.build(builder, publisher::offer, Duration.ofHours(retentionHours));
+    }
+}
@@ -1,26 +1,112 @@
 package com.example.ApacheKafka.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.CannotCreateTransactionException;
 
+import com.example.ApacheKafka.util.CircuitBreaker;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Configuration
 @EnableAsync
 @EnableScheduling
 public class AsyncSchedulerConfig {
 
+    /**
+     * {@code notification.executor.mode=platform} (default) keeps the bounded thread
+     * pool. {@code virtual} runs each task on its own virtual thread and leaves
+     * concurrency limits to {@link #dbGate} and the SMTP connection pool; it needs a
+     * Java 21 runtime, and startup fails on an older one since the build targets 17.
+     * <p>
+     * Pool size and queue depth are exported by Boot's executor metrics
+     * ({@code executor.*{name=application}}); rejections are counted here because
+     * callers fall back to running the task themselves.
+     */
     @Bean(name = "applicationTaskExecutor")
-    public Executor applicationTaskExecutor() {
+    public Executor applicationTaskExecutor(MeterRegistry meterRegistry,
+                                            @Value("${notification.executor.mode:platform}") String mode,
+                                            @Value("${notification.executor.core-pool-size:5}") int corePoolSize,
+                                            @Value("${notification.executor.max-pool-size:10}") int maxPoolSize,
+                                            @Value("${notification.executor.queue-capacity:25}") int queueCapacity) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            if (Runtime.version().feature() < 21) {
+                throw new IllegalStateException("notification.executor.mode=virtual needs Java 21 or later, but this runtime is "
+                        + Runtime.version() + "; use notification.executor.mode=platform");
+            }
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("KafkaVirtual-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(25);
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix("KafkaExecutor-");
+        Counter rejected = Counter.builder("notification.executor.rejected")
+                .description("Tasks refused because the pool and its queue were full")
+                .tag("name", "applicationTaskExecutor")
+                .register(meterRegistry);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("applicationTaskExecutor is saturated");
+        });
         executor.initialize();
         return executor;
     }
+
+    /** Runs bulk publish jobs; each job is long-lived, so only a few run at once. */
+    @Bean(name = "bulkPublishExecutor")
+    public Executor bulkPublishExecutor(@Value("${notification.bulk.max-concurrent-jobs:2}") int maxJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxJobs);
+        executor.setMaxPoolSize(maxJobs);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("BulkPublish-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Every JDBC call routed through the gate also goes through the db breaker.
+     * Only connection failures and transient errors (timeouts, deadlocks) count
+     * against it; constraint violations and bad SQL mean the database answered.
+     */
+    @Bean
+    public ResourceGate dbGate(MeterRegistry meterRegistry, @Qualifier("dbCircuitBreaker") CircuitBreaker dbCircuitBreaker,
+                               @Value("${notification.db.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int permits) {
+        ResourceGate gate = new ResourceGate("db", permits, dbCircuitBreaker, AsyncSchedulerConfig::isDatabaseOutage);
+        Gauge.builder("notification.gate.in-use", gate, ResourceGate::getInUse).tag("gate", "db").register(meterRegistry);
+        Gauge.builder("notification.gate.waiting", gate, ResourceGate::getWaiting).tag("gate", "db").register(meterRegistry);
+        return gate;
+    }
+
+    /** Whether {@code e} means the database is unreachable or overloaded, rather than that the statement is bad. */
+    public static boolean isDatabaseOutage(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DataAccessResourceFailureException || t instanceof TransientDataAccessException
+                    || t instanceof RecoverableDataAccessException || t instanceof CannotCreateTransactionException
+                    || t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
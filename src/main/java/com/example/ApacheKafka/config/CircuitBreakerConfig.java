@@ -0,0 +1,63 @@
+package com.example.ApacheKafka.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.example.ApacheKafka.util.CircuitBreaker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Breakers for the two dependencies every delivery path shares: SMTP (checked in
+ * {@code EmailService}) and Postgres (checked by the {@code dbGate}). Settings
+ * come from {@code notification.breaker.<name>.*}, falling back to
+ * {@code notification.breaker.default.*}.
+ */
+@Configuration
+public class CircuitBreakerConfig {
+
+    public static final String SMTP = "smtp";
+    public static final String DB = "db";
+
+    @Bean
+    public CircuitBreaker smtpCircuitBreaker(Environment env, MeterRegistry meterRegistry) {
+        return breaker(SMTP, env, meterRegistry);
+    }
+
+    @Bean
+    public CircuitBreaker dbCircuitBreaker(Environment env, MeterRegistry meterRegistry) {
+        return breaker(DB, env, meterRegistry);
+    }
+
+    private static CircuitBreaker breaker(String name, Environment env, MeterRegistry meterRegistry) {
+        CircuitBreaker breaker = new CircuitBreaker(name,
+                setting(env, name, "window-size", Integer.class, 50),
+                setting(env, name, "min-calls", Integer.class, 10),
+                setting(env, name, "failure-rate-threshold", Double.class, 0.5),
+                setting(env, name, "open-duration-ms", Long.class, 30000L),
+                setting(env, name, "half-open-probes", Integer.class, 3));
+
+        Gauge.builder("notification.breaker.state", breaker, b -> b.getState().ordinal())
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .tag("name", name).register(meterRegistry);
+        Gauge.builder("notification.breaker.failure-rate", breaker, CircuitBreaker::getFailureRate)
+                .tag("name", name).register(meterRegistry);
+        FunctionCounter.builder("notification.breaker.rejected", breaker, CircuitBreaker::getRejectedCount)
+                .description("Calls refused without trying the dependency")
+                .tag("name", name).register(meterRegistry);
+        breaker.addListener((b, from, to) -> Counter.builder("notification.breaker.transitions")
+                .tag("name", name).tag("to", to.name().toLowerCase())
+                .register(meterRegistry).increment());
+        return breaker;
+    }
+
+    private static <T> T setting(Environment env, String name, String key, Class<T> type, T defaultValue) {
+        T value = env.getProperty("notification.breaker." + name + "." + key, type);
+        return value != null ? value : env.getProperty("notification.breaker.default." + key, type, defaultValue);
+    }
+}
@@ -1,15 +1,75 @@
 package com.example.ApacheKafka.config;
 
+import java.time.Duration;
+
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
+/**
+ * Topic declarations. Listener concurrency for each topic is bound to the same
+ * partition-count property, so adding partitions also adds consumers. Every topic
+ * has a {@code .DLT} twin for records the error handler gives up on.
+ */
 @Configuration
 public class KafkaConfig {
 
+    /** Unified topic read by the NotificationRouter; one consumer group per channel. */
+    @Bean
+    public NewTopic notificationsTopic(@Value("${notification.kafka.notifications.partitions:3}") int partitions) {
+        return TopicBuilder.name("notifications").partitions(partitions).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic emailTopic(@Value("${notification.kafka.email.partitions:3}") int partitions) {
+        return TopicBuilder.name("email_notifications").partitions(partitions).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic inAppTopic(@Value("${notification.kafka.inapp.partitions:3}") int partitions) {
+        return TopicBuilder.name("inapp_notifications").partitions(partitions).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic ackTopic(@Value("${notification.kafka.ack.partitions:3}") int partitions) {
+        return TopicBuilder.name("ack_notifications").partitions(partitions).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic notificationsDeadLetterTopic(@Value("${notification.kafka.dlt.partitions:3}") int partitions,
+                                                 @Value("${notification.kafka.dlt.retention-days:14}") int retentionDays) {
+        return deadLetterTopic("notifications", partitions, retentionDays);
+    }
+
+    @Bean
+    public NewTopic emailDeadLetterTopic(@Value("${notification.kafka.dlt.partitions:3}") int partitions,
+                                         @Value("${notification.kafka.dlt.retention-days:14}") int retentionDays) {
+        return deadLetterTopic("email_notifications", partitions, retentionDays);
+    }
+
+    @Bean
+    public NewTopic inAppDeadLetterTopic(@Value("${notification.kafka.dlt.partitions:3}") int partitions,
+                                         @Value("${notification.kafka.dlt.retention-days:14}") int retentionDays) {
+        return deadLetterTopic("inapp_notifications", partitions, retentionDays);
+    }
+
+    @Bean
+    public NewTopic ackDeadLetterTopic(@Value("${notification.kafka.dlt.partitions:3}") int partitions,
+                                       @Value("${notification.kafka.dlt.retention-days:14}") int retentionDays) {
+        return deadLetterTopic("ack_notifications", partitions, retentionDays);
+    }
+
+    private static NewTopic deadLetterTopic(String topic, int partitions, int retentionDays) {
+        return TopicBuilder.name(topic + KafkaErrorHandlerConfig.DLT_SUFFIX).partitions(partitions).replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(Duration.ofDays(retentionDays).toMillis()))
+                .build();
+    }
+
     @Bean
-    public NewTopic emailTopic() {
-        return TopicBuilder.name("email_notifications").partitions(3).replicas(1).build();
+    public NewTopic inboxCacheInvalidationTopic() {
+        return TopicBuilder.name("inbox_cache_invalidation").partitions(1).replicas(1).build();
     }
 }
@@ -1,26 +1,82 @@
 package com.example.ApacheKafka.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+
+/**
+ * Records that still fail after the backoff go to {@code <topic>.DLT} with Spring
+ * Kafka's {@code kafka_dlt-*} headers (original topic, partition, offset, timestamp,
+ * consumer group, exception class, message and stack trace). Values that could not
+ * be deserialized are dead-lettered as their original bytes.
+ */
 @Configuration
 public class KafkaErrorHandlerConfig {
 
+    public static final String DLT_SUFFIX = ".DLT";
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaErrorHandlerConfig.class);
+
+    /**
+     * Sends values as the bytes given, for records that are forwarded without being
+     * deserialized: dead-lettered poison pills and DLT replays. Declared as
+     * {@link KafkaOperations} so Boot still auto-configures the envelope {@code KafkaTemplate}.
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public KafkaOperations<String, byte[]> rawKafkaTemplate(ProducerFactory<?, ?> producerFactory) {
+        return new KafkaTemplate<>((ProducerFactory<String, byte[]>) producerFactory,
+                Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+    }
+
     @Bean
-    public DefaultErrorHandler errorHandler() {
+    public DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, NotificationEnvelope> kafkaTemplate,
+                                                             @Qualifier("rawKafkaTemplate") KafkaOperations<String, byte[]> rawTemplate) {
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(NotificationEnvelope.class, kafkaTemplate);
+        templates.put(byte[].class, rawTemplate);
+
+        // A negative partition leaves the choice to the partitioner, so DLTs may have fewer partitions.
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(templates,
+                (record, ex) -> new TopicPartition(record.topic() + DLT_SUFFIX, -1));
+        recoverer.setFailIfSendResultIsError(true);
+        return recoverer;
+    }
+
+    @Bean
+    public DefaultErrorHandler errorHandler(DeadLetterPublishingRecoverer deadLetterRecoverer) {
+        return withBackOff(deadLetterRecoverer);
+    }
+
+    /** The shared backoff, handing records that exhaust it to {@code recoverer}. */
+    public static DefaultErrorHandler withBackOff(ConsumerRecordRecoverer recoverer) {
         ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(3);
         backOff.setInitialInterval(2000);
         backOff.setMultiplier(2);
         backOff.setMaxInterval(10000);
 
-        DefaultErrorHandler handler = new DefaultErrorHandler((record, ex) -> {
+        return new DefaultErrorHandler((record, ex) -> {
             ConsumerRecord<?, ?> r = (ConsumerRecord<?, ?>) record;
-            System.err.println("Error processing record: " + r.value() + " - " + ex.getMessage());
+            log.error("Giving up on record {}-{}@{}, dead-lettering it: {}", r.topic(), r.partition(), r.offset(), ex.getMessage());
+            recoverer.accept(record, ex);
         }, backOff);
-
-        return handler;
     }
 }
@@ -0,0 +1,40 @@
+package com.example.ApacheKafka.config;
+
+import java.util.Properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.ApacheKafka.mail.PooledJavaMailSender;
+
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Bean
+    public PooledJavaMailSender mailSender(MailProperties mail,
+                                           @Value("${notification.mail.pool.max-size:4}") int maxSize,
+                                           @Value("${notification.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                                           @Value("${notification.mail.pool.validate-after-idle-ms:30000}") long validateAfterIdleMs,
+                                           @Value("${notification.mail.pool.borrow-timeout-ms:30000}") long borrowTimeoutMs) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxSize, maxMessagesPerConnection,
+                validateAfterIdleMs, borrowTimeoutMs);
+        sender.setHost(mail.getHost());
+        if (mail.getPort() != null) {
+            sender.setPort(mail.getPort());
+        }
+        sender.setUsername(mail.getUsername());
+        sender.setPassword(mail.getPassword());
+        sender.setProtocol(mail.getProtocol());
+        if (mail.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mail.getDefaultEncoding().name());
+        }
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(mail.getProperties());
+        sender.setJavaMailProperties(javaMailProperties);
+        return sender;
+    }
+}
@@ -1,15 +1,54 @@
 package com.example.ApacheKafka.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP over WebSocket. With {@code notification.websocket.broker=relay} subscriptions
+ * are held by an external STOMP broker so messages sent from any app instance reach
+ * clients connected to every instance; {@code simple} keeps the in-memory broker.
+ * Per-session send buffers are bounded and sessions that stay over the limit are
+ * closed, so one slow client cannot grow the heap.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${notification.websocket.broker:simple}")
+    private String brokerMode;
+    @Value("${notification.websocket.relay.host:localhost}")
+    private String relayHost;
+    @Value("${notification.websocket.relay.port:61613}")
+    private int relayPort;
+    @Value("${notification.websocket.relay.login:guest}")
+    private String relayLogin;
+    @Value("${notification.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${notification.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+    @Value("${notification.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${notification.websocket.inbound.core-pool-size:4}")
+    private int inboundCorePoolSize;
+    @Value("${notification.websocket.inbound.max-pool-size:8}")
+    private int inboundMaxPoolSize;
+    @Value("${notification.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+    @Value("${notification.websocket.outbound.core-pool-size:4}")
+    private int outboundCorePoolSize;
+    @Value("${notification.websocket.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+    @Value("${notification.websocket.outbound.queue-capacity:50000}")
+    private int outboundQueueCapacity;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
@@ -19,7 +58,40 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            registry.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            registry.enableSimpleBroker("/topic");
+        }
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
     }
 }
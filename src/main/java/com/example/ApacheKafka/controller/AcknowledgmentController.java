@@ -2,6 +2,8 @@ package com.example.ApacheKafka.controller;
 
 import com.example.ApacheKafka.entity.NotificationMessage;
 import com.example.ApacheKafka.service.InAppNotificationProducer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Controller;
@@ -10,14 +12,18 @@ import org.springframework.stereotype.Controller;
 public class AcknowledgmentController {
 
     private final InAppNotificationProducer producer;
+    private final Counter acksReceived;
 
-    public AcknowledgmentController(InAppNotificationProducer producer) {
+    public AcknowledgmentController(InAppNotificationProducer producer, MeterRegistry meterRegistry) {
         this.producer = producer;
+        this.acksReceived = Counter.builder("notification.acks.received")
+                .description("Student acknowledgements received over WebSocket")
+                .register(meterRegistry);
     }
 
     @MessageMapping("/ack")
     public void receiveAck(@Payload NotificationMessage ackMessage) {
-        System.out.println("✅ Student ACK received via WebSocket → " + ackMessage.getStudentId() + ": " + ackMessage.getMessage());
-        producer.sendAck(ackMessage.getStudentId(), ackMessage.getMessage());
+        acksReceived.increment();
+        producer.sendAck(ackMessage.getStudentId(), ackMessage.getNotificationId(), ackMessage.getMessage());
     }
 }
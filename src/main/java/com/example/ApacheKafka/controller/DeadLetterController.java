@@ -0,0 +1,68 @@
+package com.example.ApacheKafka.controller;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.ApacheKafka.service.DeadLetterReplayService;
+
+/** Inspects dead-letter topics and replays them onto their source topics. */
+@RestController
+@RequestMapping("/notify/dlt")
+public class DeadLetterController {
+
+    private final DeadLetterReplayService replayService;
+
+    public DeadLetterController(DeadLetterReplayService replayService) {
+        this.replayService = replayService;
+    }
+
+    /** Records per partition of {@code topic}, e.g. {@code email_notifications.DLT}. */
+    @GetMapping("/{topic}")
+    public ResponseEntity<?> depth(@PathVariable String topic) {
+        try {
+            return ResponseEntity.ok(replayService.depth(topic));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Starts a replay of {@code topic} between the ISO-8601 timestamps {@code from}
+     * and {@code to} (both optional), at {@code ratePerSecond} with {@code workers}
+     * parallel readers.
+     */
+    @PostMapping("/{topic}/replay")
+    public ResponseEntity<Map<String, String>> replay(@PathVariable String topic,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                      @RequestParam(required = false) Integer partition,
+                                                      @RequestParam(defaultValue = "200") double ratePerSecond,
+                                                      @RequestParam(defaultValue = "4") int workers) {
+        try {
+            String jobId = replayService.start(topic, from, to, partition, ratePerSecond, workers);
+            return ResponseEntity.accepted().body(Map.of("jobId", jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/replay/{jobId}")
+    public ResponseEntity<DeadLetterReplayService.ReplayStatus> replayStatus(@PathVariable String jobId) {
+        return ResponseEntity.of(replayService.status(jobId));
+    }
+
+    @DeleteMapping("/replay/{jobId}")
+    public ResponseEntity<Void> cancelReplay(@PathVariable String jobId) {
+        return replayService.cancel(jobId) ? ResponseEntity.accepted().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -1,36 +1,110 @@
 package com.example.ApacheKafka.controller;
 
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import com.example.ApacheKafka.repository.NotificationRepository;
+import com.example.ApacheKafka.ack.AckHostedElsewhereException;
+import com.example.ApacheKafka.ack.AckQueryService;
+import com.example.ApacheKafka.ack.AckSummary;
+import com.example.ApacheKafka.dto.InboxPage;
 import com.example.ApacheKafka.service.InAppNotificationProducer;
+import com.example.ApacheKafka.service.InboxService;
 
 @Controller
 @RequestMapping("/api/inapp")
 public class InAppNotificationController {
 
     private final InAppNotificationProducer producer;
-    private final NotificationRepository repo;
+    private final InboxService inbox;
+    private final AckQueryService acks;
 
-    public InAppNotificationController(InAppNotificationProducer producer, NotificationRepository repo) {
+    public InAppNotificationController(InAppNotificationProducer producer, InboxService inbox, AckQueryService acks) {
         this.producer = producer;
-        this.repo = repo;
+        this.inbox = inbox;
+        this.acks = acks;
     }
 
     @PostMapping("/send")
-    public ResponseEntity<String> send(@RequestParam String studentId, @RequestParam String message) {
-        producer.sendNotification(studentId, message);
+    public ResponseEntity<String> send(@RequestParam String studentId, @RequestParam String message,
+                                       @RequestParam(defaultValue = "false") boolean urgent) {
+        producer.sendNotification(studentId, message, urgent);
         return ResponseEntity.accepted().body("Notification accepted");
     }
 
+    /** Sends one notification to many students; their acks are tracked under the returned id. */
+    @PostMapping("/announce")
+    public ResponseEntity<Map<String, Object>> announce(@RequestParam List<String> studentIds, @RequestParam String message) {
+        if (studentIds.isEmpty()) {
+            throw new IllegalArgumentException("studentIds must not be empty");
+        }
+        String notificationId = producer.sendAnnouncement(studentIds, message).toString();
+        return ResponseEntity.accepted().body(Map.of("notificationId", notificationId, "recipients", studentIds.size()));
+    }
+
+    @GetMapping("/acks/{notificationId}")
+    public ResponseEntity<AckSummary> ackSummary(@PathVariable String notificationId) {
+        return ResponseEntity.of(acks.summary(notificationId));
+    }
+
+    /** Students that received the notification but have not acknowledged it yet. */
+    @GetMapping("/acks/{notificationId}/pending")
+    public ResponseEntity<Map<String, Object>> pendingAcks(@PathVariable String notificationId,
+                                                           @RequestParam(defaultValue = "100") int limit) {
+        return acks.summary(notificationId)
+                .<ResponseEntity<Map<String, Object>>>map(summary -> ResponseEntity.ok(Map.of(
+                        "notificationId", notificationId,
+                        "pending", summary.pending(),
+                        "studentIds", acks.pendingRecipients(notificationId, Math.max(1, Math.min(limit, 10_000))))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{studentId}")
-    public ResponseEntity<?> view(@PathVariable String studentId) {
-        return ResponseEntity.ok(repo.findByStudentIdOrderByCreatedAtDesc(studentId));
+    public ResponseEntity<InboxPage> view(@PathVariable String studentId,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(inbox.page(studentId, cursor, limit));
+    }
+
+    @GetMapping("/{studentId}/unread-count")
+    public ResponseEntity<Map<String, Object>> unreadCount(@PathVariable String studentId) {
+        return ResponseEntity.ok(Map.of("studentId", studentId, "unread", inbox.unreadCount(studentId)));
+    }
+
+    @PostMapping("/{studentId}/read")
+    public ResponseEntity<Void> markAllRead(@PathVariable String studentId) {
+        inbox.markAllRead(studentId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /** Sends ack queries on to the instance that hosts the notification's state. */
+    @ExceptionHandler(AckHostedElsewhereException.class)
+    public ResponseEntity<Map<String, Object>> hostedElsewhere(AckHostedElsewhereException e) {
+        String location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .host(e.host().host()).port(e.host().port()).toUriString();
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .header(HttpHeaders.LOCATION, location)
+                .body(Map.of("error", e.getMessage(), "host", e.host().host() + ":" + e.host().port()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> unavailable(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
     }
 }
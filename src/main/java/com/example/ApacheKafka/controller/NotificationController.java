@@ -1,40 +1,172 @@
 package com.example.ApacheKafka.controller;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.routing.NotificationRouter;
+import com.example.ApacheKafka.service.BulkPublishService;
 import com.example.ApacheKafka.service.NotificationProducer;
-import com.example.ApacheKafka.util.ExcelReader;
+import com.example.ApacheKafka.service.RoutedNotificationProducer;
+import com.example.ApacheKafka.service.ScheduledNotificationService;
+import com.example.ApacheKafka.template.NotificationTemplateService;
 
 @RestController
 @RequestMapping("/notify")
 public class NotificationController {
 
+    private static final String WELCOME_TEMPLATE = "welcome";
+
     private final NotificationProducer producer;
+    private final RoutedNotificationProducer routedProducer;
+    private final NotificationRouter router;
+    private final BulkPublishService bulkPublishService;
+    private final NotificationTemplateService templates;
+    private final ScheduledNotificationService scheduler;
+    private final String recipientsFile;
 
-    public NotificationController(NotificationProducer producer) {
+    public NotificationController(NotificationProducer producer,
+                                  RoutedNotificationProducer routedProducer,
+                                  NotificationRouter router,
+                                  BulkPublishService bulkPublishService,
+                                  NotificationTemplateService templates,
+                                  ScheduledNotificationService scheduler,
+                                  @Value("${notification.recipients.file:users.xlsx}") String recipientsFile) {
         this.producer = producer;
+        this.routedProducer = routedProducer;
+        this.router = router;
+        this.bulkPublishService = bulkPublishService;
+        this.templates = templates;
+        this.scheduler = scheduler;
+        this.recipientsFile = recipientsFile;
     }
 
 
+    /**
+     * Publishes the personalised {@code welcome} template to everyone in the
+     * configured recipients file as a bulk job.
+     */
     @GetMapping("/emails")
-    public String notifyAllUsers() {
-        List<String> emails = ExcelReader.readEmails("users.xlsx");
-        for (String email : emails) {
-            producer.sendNotification(email, "Hello from Kafka Notification Demo!");
+    public ResponseEntity<Map<String, String>> notifyAllUsers() {
+        String jobId = bulkPublishService.startTemplated(Path.of(recipientsFile), WELCOME_TEMPLATE, false);
+        return ResponseEntity.accepted().body(Map.of("jobId", jobId));
+    }
+
+    /**
+     * Starts a bulk publish to an uploaded .xlsx/.csv recipients file, or to the
+     * configured file when none is uploaded. Sends either the raw {@code message}
+     * or {@code templateId} rendered per recipient row.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, String>> bulkPublish(@RequestParam(required = false) String message,
+                                                           @RequestParam(required = false) String templateId,
+                                                           @RequestPart(required = false) MultipartFile file) throws IOException {
+        if ((message == null) == (templateId == null)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Pass exactly one of message or templateId"));
+        }
+        if (templateId != null && !templates.exists(templateId)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown template " + templateId));
+        }
+        Path recipients = Path.of(recipientsFile);
+        boolean uploaded = file != null && !file.isEmpty();
+        if (uploaded) {
+            String name = file.getOriginalFilename();
+            String suffix = name != null && name.toLowerCase().endsWith(".csv") ? ".csv" : ".xlsx";
+            recipients = Files.createTempFile("recipients-", suffix);
+            file.transferTo(recipients);
+        }
+        String jobId = templateId != null
+                ? bulkPublishService.startTemplated(recipients, templateId, uploaded)
+                : bulkPublishService.start(recipients, message, uploaded);
+        return ResponseEntity.accepted().body(Map.of("jobId", jobId));
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<BulkPublishService.BulkPublishStatus> bulkStatus(@PathVariable String jobId) {
+        return ResponseEntity.of(bulkPublishService.status(jobId));
+    }
+
+    /**
+     * Publishes to the unified topic for any registered channel, e.g.
+     * {@code channel=webhook} or {@code channel=in-app}.
+     */
+    @PostMapping("/send")
+    public ResponseEntity<Map<String, String>> send(@RequestParam String channel,
+                                                    @RequestParam String recipient,
+                                                    @RequestParam String message,
+                                                    @RequestParam(defaultValue = "false") boolean urgent) {
+        Channel target = channelOf(channel);
+        if (target == null || !router.channels().contains(target)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No channel " + channel + "; routed channels are " + router.channels()));
         }
-        return "Notifications accepted for processing";
+        routedProducer.send(target, recipient, message, urgent);
+        return ResponseEntity.accepted().body(Map.of("channel", target.name(), "recipient", recipient));
+    }
+
+    /**
+     * Stores an email or in-app notification to go out at {@code sendAt} (ISO-8601,
+     * e.g. {@code 2026-01-31T09:00:00Z}). With a Spring {@code cron} expression
+     * (server time zone) it recurs, starting at {@code sendAt} or the next match.
+     */
+    @PostMapping("/schedule")
+    public ResponseEntity<Map<String, Object>> schedule(@RequestParam String channel,
+                                                        @RequestParam String recipient,
+                                                        @RequestParam String message,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant sendAt,
+                                                        @RequestParam(required = false) String cron,
+                                                        @RequestParam(defaultValue = "false") boolean urgent) {
+        Channel target = channelOf(channel);
+        if (target == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No channel " + channel));
+        }
+        try {
+            long id = scheduler.schedule(target, recipient, message, urgent, sendAt, cron);
+            return ResponseEntity.accepted().body(Map.of("scheduleId", id, "channel", target.name()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static Channel channelOf(String name) {
+        try {
+            return Channel.valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** The bulk job queue is full; the upload has already been discarded. */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> bulkQueueFull(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Too many bulk jobs queued, try again later"));
     }
 
     // New endpoint for sending email notification to a single email
-    @org.springframework.web.bind.annotation.PostMapping("/email")
+    @PostMapping("/email")
     public String sendEmailNotification(
-            @org.springframework.web.bind.annotation.RequestParam String email,
-            @org.springframework.web.bind.annotation.RequestParam String message) {
-        producer.sendNotification(email, message);
+            @RequestParam String email,
+            @RequestParam String message,
+            @RequestParam(defaultValue = "false") boolean urgent) {
+        producer.sendNotification(email, message, urgent);
         return "Email notification accepted for " + email;
     }
 
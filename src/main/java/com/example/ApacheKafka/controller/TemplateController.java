@@ -0,0 +1,44 @@
+package com.example.ApacheKafka.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.ApacheKafka.entity.NotificationTemplate;
+import com.example.ApacheKafka.template.NotificationTemplateService;
+
+/** Stores email templates in the database; see {@link NotificationTemplateService} for the syntax. */
+@RestController
+@RequestMapping("/api/templates")
+public class TemplateController {
+
+    private final NotificationTemplateService templates;
+
+    public TemplateController(NotificationTemplateService templates) {
+        this.templates = templates;
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<NotificationTemplate> save(@PathVariable String id,
+                                                     @RequestParam(required = false) String subject,
+                                                     @RequestParam String body) {
+        return ResponseEntity.ok(templates.save(id, subject, body));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<NotificationTemplate> get(@PathVariable String id) {
+        return ResponseEntity.of(templates.find(id));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badTemplate(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
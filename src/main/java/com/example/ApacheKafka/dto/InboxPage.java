@@ -0,0 +1,10 @@
+package com.example.ApacheKafka.dto;
+
+import java.util.List;
+
+/**
+ * One page of a student's inbox, newest first. {@code nextCursor} is passed back
+ * as {@code ?cursor=} to fetch the following page and is {@code null} on the last page.
+ */
+public record InboxPage(List<NotificationView> items, String nextCursor) {
+}
@@ -0,0 +1,7 @@
+package com.example.ApacheKafka.dto;
+
+import java.time.LocalDateTime;
+
+/** Inbox row as returned to clients; avoids loading full entities for list views. */
+public record NotificationView(Long id, String message, LocalDateTime createdAt) {
+}
@@ -12,14 +12,21 @@ import jakarta.persistence.UniqueConstraint;
 
 @Entity
 @Table(name = "failed_message", uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"recipient", "body"})
+        @UniqueConstraint(name = "uk_failed_message_dedup_key", columnNames = {"dedup_key"})
 })
 public class FailedMessage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /** The envelope's message id as 32 hex characters, or a content hash for legacy rows; see DedupKey. */
+    @Column(length = 32)
+    private String dedupKey;
+
     private String recipient;
+
+    /** Rendered subject; {@code null} means the mail default. */
+    private String subject;
     @Column(columnDefinition = "TEXT")
     private String error;
 
@@ -33,6 +40,9 @@ public class FailedMessage {
 
     private int retryCount = 0;
 
+    /** When the retry queue should try this row next; {@code null} once sent or out of attempts. */
+    private LocalDateTime nextAttemptAt;
+
     public FailedMessage(Long id, String recipient, String body, String error, boolean sent, LocalDateTime createdAt, LocalDateTime lastTriedAt) {
         this.id = id;
         this.recipient = recipient;
@@ -55,6 +65,14 @@ public class FailedMessage {
         this.id = id;
     }
 
+    public String getDedupKey() {
+        return dedupKey;
+    }
+
+    public void setDedupKey(String dedupKey) {
+        this.dedupKey = dedupKey;
+    }
+
     public String getRecipient() {
         return recipient;
     }
@@ -63,6 +81,14 @@ public class FailedMessage {
         this.recipient = recipient;
     }
 
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
     public String getBody() {
         return body;
     }
@@ -110,4 +136,12 @@ public class FailedMessage {
     public void setLastTriedAt(LocalDateTime lastTriedAt) {
         this.lastTriedAt = lastTriedAt;
     }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
 }
@@ -5,13 +5,19 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notification_message")
+@Table(name = "notification_message", indexes = {
+        @Index(name = "idx_notification_student_created", columnList = "student_id, created_at, id")
+})
 public class NotificationMessage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_message_seq")
+    @SequenceGenerator(name = "notification_message_seq", sequenceName = "notification_message_seq", allocationSize = 50)
     private Long id;
 
     private String studentId;
+    /** Envelope message id; shared by every recipient of one announcement and echoed back in acks. */
+    @Column(length = 36)
+    private String notificationId;
     private String message;
     private boolean sent = false;
     private LocalDateTime createdAt = LocalDateTime.now();
@@ -32,6 +38,14 @@ public class NotificationMessage {
         this.studentId = studentId;
     }
 
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(String notificationId) {
+        this.notificationId = notificationId;
+    }
+
     public String getMessage() {
         return message;
     }
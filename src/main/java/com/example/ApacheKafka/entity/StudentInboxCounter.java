@@ -0,0 +1,31 @@
+package com.example.ApacheKafka.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/** Maintained unread count per student, so the badge never needs a COUNT(*). */
+@Entity
+@Table(name = "student_inbox_counter")
+public class StudentInboxCounter {
+    @Id
+    private String studentId;
+
+    private long unreadCount;
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.ApacheKafka.mail;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * {@link JavaMailSenderImpl} that sends over pooled long-lived SMTP sessions
+ * instead of opening (and TLS/AUTH-handshaking) a new connection per call.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private final SmtpTransportPool pool;
+
+    public PooledJavaMailSender(int maxSize, int maxMessagesPerConnection,
+                                long validateAfterIdleMs, long borrowTimeoutMs) {
+        this.pool = new SmtpTransportPool(this::connectTransport, maxSize, maxMessagesPerConnection,
+                validateAfterIdleMs, borrowTimeoutMs);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        SmtpTransportPool.PooledTransport pooled;
+        try {
+            pooled = pool.borrow();
+        } catch (MessagingException e) {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessages[i], e);
+            }
+            throw new MailSendException("Mail server connection failed", e, failedMessages);
+        }
+
+        boolean broken = false;
+        try {
+            Exception connectionFailure = null;
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                if (connectionFailure != null) {
+                    failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessage, connectionFailure);
+                    continue;
+                }
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        mimeMessage.setHeader("Message-ID", messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    pooled.transport().sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                    pool.recordSend(pooled);
+                } catch (Exception e) {
+                    // A rejected recipient leaves the session usable; anything else may not.
+                    if (!(e instanceof SendFailedException)) {
+                        broken = true;
+                        connectionFailure = e;
+                    }
+                    failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessage, e);
+                }
+            }
+        } finally {
+            pool.release(pooled, broken);
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    public SmtpTransportPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public void destroy() {
+        pool.close();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.ApacheKafka.mail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+
+/**
+ * Bounded pool of connected, authenticated SMTP transports.
+ * <p>
+ * Connections are handed out most-recently-used first so a small hot set stays
+ * busy while surplus connections age out. A connection that has been idle longer
+ * than {@code validateAfterIdleMs} is checked with {@link Transport#isConnected()}
+ * (an SMTP {@code NOOP}) before reuse, and every connection is recycled after
+ * {@code maxMessagesPerConnection} sends to stay under provider limits.
+ */
+public class SmtpTransportPool {
+
+    private final Callable<Transport> connector;
+    private final int maxSize;
+    private final int maxMessagesPerConnection;
+    private final long validateAfterIdleMs;
+    private final long borrowTimeoutMs;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private volatile boolean closed = false;
+
+    private final AtomicLong sends = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong connectionsDiscarded = new AtomicLong();
+
+    public SmtpTransportPool(Callable<Transport> connector, int maxSize, int maxMessagesPerConnection,
+                             long validateAfterIdleMs, long borrowTimeoutMs) {
+        this.connector = connector;
+        this.maxSize = maxSize;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.validateAfterIdleMs = validateAfterIdleMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public PooledTransport borrow() throws MessagingException {
+        if (closed) throw new MessagingException("SMTP transport pool is closed");
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Timed out after " + borrowTimeoutMs + " ms waiting for an SMTP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) return pooled;
+                discard(pooled);
+            }
+            Transport transport = connector.call();
+            connectionsOpened.incrementAndGet();
+            return new PooledTransport(transport);
+        } catch (MessagingException e) {
+            permits.release();
+            throw e;
+        } catch (Exception e) {
+            permits.release();
+            throw new MessagingException("Could not open SMTP connection", e);
+        }
+    }
+
+    /**
+     * Returns a transport to the pool. Pass {@code broken = true} when the
+     * connection failed at the protocol level so it is closed instead of reused.
+     */
+    public void release(PooledTransport pooled, boolean broken) {
+        try {
+            if (broken || closed || pooled.messageCount >= maxMessagesPerConnection) {
+                discard(pooled);
+            } else {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    void recordSend(PooledTransport pooled) {
+        pooled.messageCount++;
+        sends.incrementAndGet();
+    }
+
+    private boolean isUsable(PooledTransport pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsedAt < validateAfterIdleMs) {
+            return true;
+        }
+        return pooled.transport.isConnected();
+    }
+
+    private void discard(PooledTransport pooled) {
+        connectionsDiscarded.incrementAndGet();
+        try {
+            pooled.transport.close();
+        } catch (MessagingException ignored) {
+            // connection is already gone
+        }
+    }
+
+    public void close() {
+        closed = true;
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public long getSendCount() {
+        return sends.get();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    public long getConnectionsDiscarded() {
+        return connectionsDiscarded.get();
+    }
+
+    /** Fraction of sends that reused an already-open connection. */
+    public double getReuseRatio() {
+        long total = sends.get();
+        return total == 0 ? 0.0 : Math.max(0.0, 1.0 - (double) connectionsOpened.get() / total);
+    }
+
+    public static final class PooledTransport {
+        private final Transport transport;
+        private int messageCount;
+        private long lastUsedAt = System.currentTimeMillis();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public Transport transport() {
+            return transport;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.ApacheKafka.messaging;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Idempotency key of an email notification, as 32 hex characters: the envelope's
+ * {@code messageId}. The producer assigns it once per publish and it travels in the
+ * payload, so redeliveries and DLT replays of one record share a key while a
+ * deliberate repeat of the same text is a new message. A valid {@value #HEADER}
+ * header takes precedence, for records published before keys followed the id.
+ * <p>
+ * Records in the legacy {@code recipient|body} format carry no producer-assigned
+ * id; they get the first 128 bits of SHA-256({@code recipient + "\n" + body}),
+ * the same expression {@code FailedMessageBatchRepository.prepareSchema} uses to
+ * backfill rows written before the column existed.
+ */
+public final class DedupKey {
+
+    public static final String HEADER = "dedup-key";
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int LENGTH = 32;
+
+    private DedupKey() {
+    }
+
+    public static String of(String recipient, String body) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(recipient.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) '\n');
+            sha256.update(body.getBytes(StandardCharsets.UTF_8));
+            return HEX.formatHex(sha256.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String of(UUID messageId) {
+        return HEX.toHexDigits(messageId.getMostSignificantBits()) + HEX.toHexDigits(messageId.getLeastSignificantBits());
+    }
+
+    public static String of(ConsumerRecord<String, NotificationEnvelope> record, String recipient, String body) {
+        Header header = record.headers().lastHeader(HEADER);
+        if (header != null && header.value() != null) {
+            String key = new String(header.value(), StandardCharsets.UTF_8);
+            if (isValid(key)) return key;
+        }
+        NotificationEnvelope envelope = record.value();
+        return envelope.recipient() == null ? of(envelope.messageId()) : of(recipient, body);
+    }
+
+    /** Whether {@code key} has the shape of a dedup key; anything else would break the bloom filter. */
+    public static boolean isValid(String key) {
+        if (key.length() != LENGTH) return false;
+        for (int i = 0; i < LENGTH; i++) {
+            if (Character.digit(key.charAt(i), 16) < 0) return false;
+        }
+        return true;
+    }
+
+    public static void set(Headers headers, String key) {
+        headers.remove(HEADER);
+        headers.add(HEADER, key.getBytes(StandardCharsets.UTF_8));
+    }
+}
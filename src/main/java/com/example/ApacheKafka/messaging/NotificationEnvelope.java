@@ -0,0 +1,57 @@
+package com.example.ApacheKafka.messaging;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Typed value of every notification record. The recipient (email address or
+ * student id) travels in the record key; see {@link #recipientOf(ConsumerRecord)}.
+ *
+ * @param messageId  id assigned by the producer; all records of one in-app announcement share it
+ * @param channel    delivery channel the record is meant for
+ * @param flags      bit flags for per-message options such as {@link #FLAG_URGENT}, {@code 0} for none
+ * @param templateId optional template to render; {@code null} means {@code body} is final text
+ * @param variables  template variables, never {@code null}
+ * @param body       raw message text; may be {@code null} when a template is used
+ * @param recipient  only set for records decoded from the legacy {@code recipient|body} format
+ */
+public record NotificationEnvelope(UUID messageId, Channel channel, int flags, String templateId,
+                                   Map<String, String> variables, String body, String recipient) {
+
+    /** Deliver on its own and right away, bypassing digests and coalescing. */
+    public static final int FLAG_URGENT = 1;
+
+    // Append only: the binary codec stores the ordinal.
+    public enum Channel { EMAIL, IN_APP, ACK, WEBHOOK, SMS }
+
+    public NotificationEnvelope {
+        variables = variables == null || variables.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(variables));
+    }
+
+    public static NotificationEnvelope of(Channel channel, String body) {
+        return new NotificationEnvelope(UUID.randomUUID(), channel, 0, null, null, body, null);
+    }
+
+    public static NotificationEnvelope ofTemplate(Channel channel, String templateId, Map<String, String> variables) {
+        return new NotificationEnvelope(UUID.randomUUID(), channel, 0, templateId, variables, null, null);
+    }
+
+    public boolean isUrgent() {
+        return (flags & FLAG_URGENT) != 0;
+    }
+
+    public NotificationEnvelope withFlags(int flags) {
+        return new NotificationEnvelope(messageId, channel, flags, templateId, variables, body, recipient);
+    }
+
+    /** Recipient of a consumed record: the key, or the legacy in-payload recipient. */
+    public static String recipientOf(ConsumerRecord<String, NotificationEnvelope> record) {
+        return record.key() != null ? record.key() : record.value().recipient();
+    }
+}
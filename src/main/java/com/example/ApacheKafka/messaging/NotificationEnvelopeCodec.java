@@ -0,0 +1,200 @@
+package com.example.ApacheKafka.messaging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+
+/**
+ * Hand-rolled binary encoding of {@link NotificationEnvelope}.
+ * <pre>
+ * byte    magic (0x00)
+ * byte    version (1)
+ * byte    channel ordinal
+ * byte    flags
+ * long    messageId most significant bits
+ * long    messageId least significant bits
+ * string  templateId
+ * varint  variable count, then key/value strings
+ * string  body
+ * </pre>
+ * Strings are a varint of {@code byteLength + 1} followed by UTF-8 bytes, with
+ * {@code 0} meaning {@code null}. Payloads that do not start with the magic byte
+ * are decoded as the legacy {@code recipient|body} text format.
+ */
+public final class NotificationEnvelopeCodec {
+
+    static final byte MAGIC = 0x00;
+    static final byte VERSION = 1;
+
+    private static final Channel[] CHANNELS = Channel.values();
+
+    private NotificationEnvelopeCodec() {
+    }
+
+    public static byte[] encode(NotificationEnvelope envelope) {
+        Writer out = new Writer(64 + (envelope.body() != null ? envelope.body().length() : 0));
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte((byte) envelope.channel().ordinal());
+        out.writeByte((byte) envelope.flags());
+        out.writeLong(envelope.messageId().getMostSignificantBits());
+        out.writeLong(envelope.messageId().getLeastSignificantBits());
+        out.writeString(envelope.templateId());
+        out.writeVarint(envelope.variables().size());
+        for (Map.Entry<String, String> variable : envelope.variables().entrySet()) {
+            out.writeString(variable.getKey());
+            out.writeString(variable.getValue());
+        }
+        out.writeString(envelope.body());
+        return out.toByteArray();
+    }
+
+    public static NotificationEnvelope decode(byte[] data) {
+        if (data.length == 0 || data[0] != MAGIC) {
+            return decodeLegacy(data);
+        }
+        Reader in = new Reader(data);
+        in.readByte();
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported notification envelope version " + version);
+        }
+        int channel = in.readByte();
+        if (channel < 0 || channel >= CHANNELS.length) {
+            throw new IllegalArgumentException("Unknown notification channel " + channel);
+        }
+        int flags = in.readByte() & 0xFF;
+        UUID messageId = new UUID(in.readLong(), in.readLong());
+        String templateId = in.readString();
+        int variableCount = in.readVarint();
+        Map<String, String> variables = null;
+        if (variableCount > 0) {
+            variables = new LinkedHashMap<>(variableCount * 2);
+            for (int i = 0; i < variableCount; i++) {
+                variables.put(in.readString(), in.readString());
+            }
+        }
+        String body = in.readString();
+        return new NotificationEnvelope(messageId, CHANNELS[channel], flags, templateId, variables, body, null);
+    }
+
+    /**
+     * Reads pre-envelope {@code recipient|body} records still sitting in the topics.
+     * The channel is not recoverable from the payload; callers only use recipient and body.
+     */
+    private static NotificationEnvelope decodeLegacy(byte[] data) {
+        String text = new String(data, StandardCharsets.UTF_8);
+        int separator = text.indexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Not a notification envelope or legacy recipient|body record");
+        }
+        String recipient = text.substring(0, separator).trim();
+        String body = text.substring(separator + 1);
+        return new NotificationEnvelope(UUID.nameUUIDFromBytes(data), Channel.EMAIL, 0, null, null, body, recipient);
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        private Writer(int initialCapacity) {
+            this.buf = new byte[initialCapacity];
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+
+        private void writeByte(byte b) {
+            ensure(1);
+            buf[pos++] = b;
+        }
+
+        private void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        private void writeVarint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        private void writeString(String s) {
+            if (s == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        private Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        private void require(int n) {
+            if (pos + n > buf.length) {
+                throw new IllegalArgumentException("Truncated notification envelope");
+            }
+        }
+
+        private byte readByte() {
+            require(1);
+            return buf[pos++];
+        }
+
+        private long readLong() {
+            require(8);
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (buf[pos++] & 0xFF);
+            }
+            return v;
+        }
+
+        private int readVarint() {
+            int v = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IllegalArgumentException("Malformed varint in notification envelope");
+        }
+
+        private String readString() {
+            int len = readVarint();
+            if (len == 0) return null;
+            len -= 1;
+            require(len);
+            String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.ApacheKafka.messaging;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class NotificationEnvelopeDeserializer implements Deserializer<NotificationEnvelope> {
+
+    @Override
+    public NotificationEnvelope deserialize(String topic, byte[] data) {
+        if (data == null) return null;
+        try {
+            return NotificationEnvelopeCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Could not decode notification envelope from " + topic, e);
+        }
+    }
+}
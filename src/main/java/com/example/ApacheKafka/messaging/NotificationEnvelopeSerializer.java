@@ -0,0 +1,11 @@
+package com.example.ApacheKafka.messaging;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+public class NotificationEnvelopeSerializer implements Serializer<NotificationEnvelope> {
+
+    @Override
+    public byte[] serialize(String topic, NotificationEnvelope envelope) {
+        return envelope == null ? null : NotificationEnvelopeCodec.encode(envelope);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.ApacheKafka.messaging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+/**
+ * Partitions by recipient key, ignoring case, so every record for one recipient
+ * lands on the same partition (and consumer) regardless of how the address was
+ * typed. Enabled with {@code spring.kafka.producer.properties.partitioner.class}.
+ */
+public class RecipientPartitioner implements Partitioner {
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int partitions = cluster.partitionCountForTopic(topic);
+        if (key == null) {
+            return ThreadLocalRandom.current().nextInt(partitions);
+        }
+        byte[] normalized = key.toString().trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        return Utils.toPositive(Utils.murmur2(normalized)) % partitions;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
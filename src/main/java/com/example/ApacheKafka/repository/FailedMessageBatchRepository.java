@@ -0,0 +1,147 @@
+package com.example.ApacheKafka.repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based JDBC access to {@code failed_message}, keyed by the 32-character
+ * {@code dedup_key}. Lookups and writes cover a whole poll batch in a single
+ * round-trip each.
+ */
+@Repository
+public class FailedMessageBatchRepository {
+
+    private static final String FIND_SENT_SQL =
+            "SELECT f.dedup_key FROM failed_message f WHERE f.dedup_key = ANY(?::varchar[]) AND f.sent = true";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO failed_message (dedup_key, recipient, subject, body, sent, error, created_at, last_tried_at, retry_count, next_attempt_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?) " +
+            "ON CONFLICT (dedup_key) DO UPDATE SET " +
+            // A duplicate that fails must not undo a delivery recorded by another instance.
+            "sent = failed_message.sent OR EXCLUDED.sent, " +
+            "error = CASE WHEN failed_message.sent OR EXCLUDED.sent THEN NULL ELSE EXCLUDED.error END, " +
+            "last_tried_at = EXCLUDED.last_tried_at, " +
+            "next_attempt_at = CASE WHEN failed_message.sent OR EXCLUDED.sent THEN NULL ELSE EXCLUDED.next_attempt_at END, " +
+            "retry_count = CASE WHEN EXCLUDED.sent THEN 0 ELSE failed_message.retry_count END";
+
+    // Same expression as DedupKey.of(recipient, body), for rows written before the column existed.
+    private static final String BACKFILL_SQL =
+            "UPDATE failed_message SET dedup_key = " +
+            "encode(substring(sha256(convert_to(recipient || E'\\n' || body, 'UTF8')) FROM 1 FOR 16), 'hex') " +
+            "WHERE dedup_key IS NULL AND recipient IS NOT NULL AND body IS NOT NULL";
+
+    // The pre-dedup-key UNIQUE(recipient, body); its name was generated, so it is found by its columns.
+    private static final String FIND_CONTENT_CONSTRAINT_SQL =
+            "SELECT quote_ident(c.conname) FROM pg_constraint c " +
+            "WHERE c.conrelid = 'failed_message'::regclass AND c.contype = 'u' " +
+            "AND (SELECT array_agg(a.attname::text ORDER BY a.attname) FROM pg_attribute a " +
+            "     WHERE a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)) = ARRAY['body', 'recipient']";
+
+    private static final int KEY_PAGE_SIZE = 10_000;
+
+    private final JdbcTemplate jdbc;
+
+    public FailedMessageBatchRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Returns the subset of {@code dedupKeys} that already have a delivered row. */
+    public Set<String> findAlreadySent(List<String> dedupKeys) {
+        Set<String> sent = new HashSet<>();
+        if (dedupKeys.isEmpty()) return sent;
+
+        jdbc.execute(FIND_SENT_SQL, (PreparedStatement ps) -> {
+            Array keyArray = ps.getConnection().createArrayOf("varchar", dedupKeys.toArray());
+            ps.setArray(1, keyArray);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sent.add(rs.getString(1));
+                }
+            } finally {
+                keyArray.free();
+            }
+            return null;
+        });
+        return sent;
+    }
+
+    public void upsertOutcomes(List<DeliveryOutcome> outcomes) {
+        if (outcomes.isEmpty()) return;
+
+        jdbc.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                DeliveryOutcome outcome = outcomes.get(i);
+                Timestamp now = Timestamp.valueOf(outcome.triedAt());
+                ps.setString(1, outcome.dedupKey());
+                ps.setString(2, outcome.recipient());
+                ps.setString(3, outcome.subject());
+                ps.setString(4, outcome.body());
+                ps.setBoolean(5, outcome.sent());
+                ps.setString(6, outcome.error());
+                ps.setTimestamp(7, now);
+                ps.setTimestamp(8, now);
+                ps.setTimestamp(9, outcome.nextAttemptAt() != null ? Timestamp.valueOf(outcome.nextAttemptAt()) : null);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return outcomes.size();
+            }
+        });
+    }
+
+    /**
+     * Moves rows written before {@code dedup_key} onto it: fills in their keys and
+     * drops the old {@code UNIQUE(recipient, body)}, which indexed whole bodies and
+     * would reject a row whose content matches one stored under another key. A no-op
+     * once applied.
+     *
+     * @return the number of rows backfilled
+     */
+    public int prepareSchema() {
+        int backfilled = jdbc.update(BACKFILL_SQL);
+        for (String constraint : jdbc.queryForList(FIND_CONTENT_CONSTRAINT_SQL, String.class)) {
+            jdbc.execute("ALTER TABLE failed_message DROP CONSTRAINT " + constraint);
+        }
+        return backfilled;
+    }
+
+    /** Streams every delivered dedup key, paging over the unique index. */
+    public void forEachSentKey(Consumer<String> action) {
+        String after = "";
+        while (true) {
+            List<String> page = jdbc.queryForList(
+                    "SELECT dedup_key FROM failed_message WHERE sent = true AND dedup_key > ? ORDER BY dedup_key LIMIT ?",
+                    String.class, after, KEY_PAGE_SIZE);
+            page.forEach(action);
+            if (page.size() < KEY_PAGE_SIZE) return;
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    /** Streams dedup keys of rows delivered at or after {@code since}. */
+    public void forEachKeySentSince(LocalDateTime since, Consumer<String> action) {
+        jdbc.query("SELECT dedup_key FROM failed_message WHERE sent = true AND last_tried_at >= ? AND dedup_key IS NOT NULL",
+                rs -> {
+                    action.accept(rs.getString(1));
+                }, Timestamp.valueOf(since));
+    }
+
+    /** @param nextAttemptAt when the retry queue should pick up a failed send; {@code null} when sent */
+    public record DeliveryOutcome(String dedupKey, String recipient, String subject, String body, boolean sent, String error,
+                                  LocalDateTime triedAt, LocalDateTime nextAttemptAt) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.ApacheKafka.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ApacheKafka.entity.StudentInboxCounter;
+
+@Repository
+public interface InboxCounterRepository extends JpaRepository<StudentInboxCounter, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO student_inbox_counter (student_id, unread_count) VALUES (:studentId, :delta) " +
+            "ON CONFLICT (student_id) DO UPDATE SET unread_count = student_inbox_counter.unread_count + EXCLUDED.unread_count",
+            nativeQuery = true)
+    void increment(@Param("studentId") String studentId, @Param("delta") long delta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StudentInboxCounter c SET c.unreadCount = 0 WHERE c.studentId = :studentId")
+    void reset(@Param("studentId") String studentId);
+}
@@ -1,13 +1,31 @@
 package com.example.ApacheKafka.repository;
 
+import com.example.ApacheKafka.dto.NotificationView;
 import com.example.ApacheKafka.entity.NotificationMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<NotificationMessage, Long> {
-    List<NotificationMessage> findByStudentIdOrderByCreatedAtDesc(String studentId);
-}
 
+    // Keyset pagination over idx_notification_student_created; newest first, id breaks ties.
+    @Query("SELECT new com.example.ApacheKafka.dto.NotificationView(n.id, n.message, n.createdAt) " +
+            "FROM NotificationMessage n WHERE n.studentId = :studentId " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationView> findInboxFirstPage(@Param("studentId") String studentId, Pageable page);
+
+    @Query("SELECT new com.example.ApacheKafka.dto.NotificationView(n.id, n.message, n.createdAt) " +
+            "FROM NotificationMessage n WHERE n.studentId = :studentId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationView> findInboxPageBefore(@Param("studentId") String studentId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable page);
+}
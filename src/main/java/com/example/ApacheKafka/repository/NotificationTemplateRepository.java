@@ -0,0 +1,10 @@
+package com.example.ApacheKafka.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.ApacheKafka.entity.NotificationTemplate;
+
+@Repository
+public interface NotificationTemplateRepository extends JpaRepository<NotificationTemplate, String> {
+}
@@ -0,0 +1,131 @@
+package com.example.ApacheKafka.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@code failed_message} used as a work queue. A row is due when
+ * {@code next_attempt_at <= now()}; {@code NULL} means delivered or given up, so the
+ * partial index on {@code next_attempt_at} (see {@link #prepareSchema}) only holds
+ * live retries. Each statement runs in its own short transaction; row locks are held
+ * only while claiming.
+ */
+@Repository
+public class RetryQueueRepository {
+
+    // Claiming pushes next_attempt_at out by the lease, so a crashed worker's rows come back on their own.
+    private static final String CLAIM_SQL =
+            "UPDATE failed_message f SET next_attempt_at = ? " +
+            "FROM (SELECT id FROM failed_message WHERE next_attempt_at <= ? " +
+            "      ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) due " +
+            "WHERE f.id = due.id " +
+            "RETURNING f.id, f.recipient, f.subject, f.body, f.retry_count";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE failed_message SET sent = ?, error = ?, retry_count = ?, last_tried_at = ?, next_attempt_at = ? " +
+            "WHERE id = ?";
+
+    private static final String ARCHIVE_SQL =
+            "WITH moved AS (DELETE FROM failed_message WHERE id IN (" +
+            "  SELECT id FROM failed_message WHERE sent = true AND last_tried_at < ? LIMIT ?) " +
+            "  RETURNING id, recipient, body, error, created_at, last_tried_at, retry_count) " +
+            "INSERT INTO failed_message_archive (id, recipient, body, error, created_at, last_tried_at, retry_count) " +
+            "SELECT id, recipient, body, error, created_at, last_tried_at, retry_count FROM moved";
+
+    private static final String CREATE_ARCHIVE_SQL =
+            "CREATE TABLE IF NOT EXISTS failed_message_archive (" +
+            "id BIGINT PRIMARY KEY, recipient VARCHAR(255), body TEXT, error TEXT, " +
+            "created_at TIMESTAMP, last_tried_at TIMESTAMP, retry_count INTEGER NOT NULL, " +
+            "archived_at TIMESTAMP NOT NULL DEFAULT now())";
+
+    // Only live retries are indexed, so claiming stays cheap however many sent rows accumulate.
+    private static final String CREATE_NEXT_ATTEMPT_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_failed_message_next_attempt " +
+            "ON failed_message (next_attempt_at) WHERE next_attempt_at IS NOT NULL";
+
+    private static final String CREATE_SENT_TRIED_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_failed_message_sent_tried " +
+            "ON failed_message (last_tried_at) WHERE sent = true";
+
+    private final JdbcTemplate jdbc;
+
+    public RetryQueueRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Creates the archive table and the partial indexes for claiming and archiving,
+     * and backfills {@code next_attempt_at} for rows written before the column existed.
+     * A full {@code idx_failed_message_next_attempt}, as Hibernate used to create it,
+     * is replaced by the partial one. All of it is a no-op once applied.
+     */
+    public void prepareSchema(int maxRetries) {
+        jdbc.execute(CREATE_ARCHIVE_SQL);
+        Integer fullIndexes = jdbc.queryForObject("SELECT count(*) FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                "WHERE c.relname = 'idx_failed_message_next_attempt' AND i.indpred IS NULL", Integer.class);
+        if (fullIndexes != null && fullIndexes > 0) jdbc.execute("DROP INDEX idx_failed_message_next_attempt");
+        jdbc.execute(CREATE_NEXT_ATTEMPT_INDEX_SQL);
+        jdbc.execute(CREATE_SENT_TRIED_INDEX_SQL);
+        jdbc.update("UPDATE failed_message SET next_attempt_at = COALESCE(last_tried_at, created_at, now()) " +
+                "WHERE sent = false AND retry_count < ? AND next_attempt_at IS NULL", maxRetries);
+    }
+
+    /** Claims up to {@code limit} due rows, hiding them from other workers until {@code leaseUntil}. */
+    public List<ClaimedRetry> claimDue(LocalDateTime now, LocalDateTime leaseUntil, int limit) {
+        return jdbc.query(CLAIM_SQL,
+                (rs, i) -> new ClaimedRetry(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5)),
+                Timestamp.valueOf(leaseUntil), Timestamp.valueOf(now), limit);
+    }
+
+    /** Live retries (the rows in the partial index) and how many of them are already due. */
+    public Backlog backlog(LocalDateTime now) {
+        return jdbc.queryForObject(
+                "SELECT count(*), count(*) FILTER (WHERE next_attempt_at <= ?) FROM failed_message WHERE next_attempt_at IS NOT NULL",
+                (rs, i) -> new Backlog(rs.getLong(1), rs.getLong(2)), Timestamp.valueOf(now));
+    }
+
+    public void complete(List<RetryResult> results) {
+        if (results.isEmpty()) return;
+
+        jdbc.batchUpdate(COMPLETE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RetryResult result = results.get(i);
+                ps.setBoolean(1, result.sent());
+                ps.setString(2, result.error());
+                ps.setInt(3, result.retryCount());
+                ps.setTimestamp(4, Timestamp.valueOf(result.triedAt()));
+                ps.setTimestamp(5, result.nextAttemptAt() != null ? Timestamp.valueOf(result.nextAttemptAt()) : null);
+                ps.setLong(6, result.id());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return results.size();
+            }
+        });
+    }
+
+    /** Moves up to {@code limit} delivered rows older than {@code cutoff} to the archive; returns the count. */
+    public int archiveSent(LocalDateTime cutoff, int limit) {
+        return jdbc.update(ARCHIVE_SQL, Timestamp.valueOf(cutoff), limit);
+    }
+
+    public record ClaimedRetry(long id, String recipient, String subject, String body, int retryCount) {
+    }
+
+    /** @param nextAttemptAt {@code null} when the row is delivered or out of attempts */
+    public record RetryResult(long id, boolean sent, String error, int retryCount,
+                              LocalDateTime triedAt, LocalDateTime nextAttemptAt) {
+    }
+
+    public record Backlog(long live, long due) {
+    }
+}
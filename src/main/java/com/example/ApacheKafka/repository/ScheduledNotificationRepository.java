@@ -0,0 +1,117 @@
+package com.example.ApacheKafka.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@code scheduled_notification}: notifications waiting for their {@code send_at}.
+ * Rows are only ever read through the {@code send_at} index, a horizon at a time,
+ * so the number of far-future rows does not affect the cost of a load. A claimed
+ * row carries a {@code lease_until}; if its instance dies before releasing it,
+ * the row becomes claimable again once the lease runs out.
+ */
+@Repository
+public class ScheduledNotificationRepository {
+
+    private static final String CREATE_SQL =
+            "CREATE TABLE IF NOT EXISTS scheduled_notification (" +
+            "id BIGSERIAL PRIMARY KEY, channel VARCHAR(16) NOT NULL, recipient VARCHAR(255) NOT NULL, " +
+            "message TEXT NOT NULL, urgent BOOLEAN NOT NULL DEFAULT false, send_at TIMESTAMP NOT NULL, " +
+            "cron VARCHAR(120), lease_until TIMESTAMP, created_at TIMESTAMP NOT NULL DEFAULT now())";
+
+    private static final String CREATE_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_scheduled_notification_send_at ON scheduled_notification (send_at)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO scheduled_notification (channel, recipient, message, urgent, send_at, cron) " +
+            "VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
+
+    // The lease runs from the later of now and send_at, so rows claimed ahead of time stay ours until they fire.
+    private static final String CLAIM_SQL =
+            "UPDATE scheduled_notification s SET lease_until = GREATEST(s.send_at, ?) + ? * interval '1 millisecond' " +
+            "FROM (SELECT id FROM scheduled_notification WHERE send_at <= ? AND (lease_until IS NULL OR lease_until <= ?) " +
+            "      ORDER BY send_at LIMIT ? FOR UPDATE SKIP LOCKED) due " +
+            "WHERE s.id = due.id " +
+            "RETURNING s.id, s.channel, s.recipient, s.message, s.urgent, s.send_at, s.cron";
+
+    private static final String RESCHEDULE_SQL =
+            "UPDATE scheduled_notification SET send_at = ?, lease_until = NULL WHERE id = ?";
+
+    private final JdbcTemplate jdbc;
+
+    public ScheduledNotificationRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Creates the table and its {@code send_at} index; a no-op once applied. */
+    public void prepareSchema() {
+        jdbc.execute(CREATE_SQL);
+        jdbc.execute(CREATE_INDEX_SQL);
+    }
+
+    /** @param cron {@code null} for a one-off notification */
+    public long insert(String channel, String recipient, String message, boolean urgent, LocalDateTime sendAt, String cron) {
+        return jdbc.queryForObject(INSERT_SQL, Long.class,
+                channel, recipient, message, urgent, Timestamp.valueOf(sendAt), cron);
+    }
+
+    /**
+     * Claims up to {@code limit} unleased rows due by {@code horizon}, earliest first,
+     * leasing each until {@code leaseMs} past its {@code send_at} (or past {@code now}
+     * when already overdue).
+     */
+    public List<ScheduledNotification> claimDue(LocalDateTime now, LocalDateTime horizon, long leaseMs, int limit) {
+        Timestamp nowTs = Timestamp.valueOf(now);
+        return jdbc.query(CLAIM_SQL,
+                (rs, i) -> new ScheduledNotification(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getBoolean(5), rs.getTimestamp(6).toLocalDateTime(), rs.getString(7)),
+                nowTs, leaseMs, Timestamp.valueOf(horizon), nowTs, limit);
+    }
+
+    /** Deletes released one-off rows. */
+    public void deleteAll(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        jdbc.update("DELETE FROM scheduled_notification WHERE id = ANY(?)",
+                (PreparedStatement ps) -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())));
+    }
+
+    /** Drops the lease so the rows can be claimed again right away, by any instance. */
+    public void unlease(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        jdbc.update("UPDATE scheduled_notification SET lease_until = NULL WHERE id = ANY(?)",
+                (PreparedStatement ps) -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())));
+    }
+
+    /** Moves released recurring rows to their next occurrence and drops their lease. */
+    public void reschedule(List<Reschedule> next) {
+        if (next.isEmpty()) return;
+
+        jdbc.batchUpdate(RESCHEDULE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setTimestamp(1, Timestamp.valueOf(next.get(i).sendAt()));
+                ps.setLong(2, next.get(i).id());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return next.size();
+            }
+        });
+    }
+
+    /** @param cron Spring cron expression for recurring rows; {@code null} for one-offs */
+    public record ScheduledNotification(long id, String channel, String recipient, String message, boolean urgent,
+                                        LocalDateTime sendAt, String cron) {
+    }
+
+    public record Reschedule(long id, LocalDateTime sendAt) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.ApacheKafka.resilience;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.routing.NotificationRouter;
+import com.example.ApacheKafka.util.CircuitBreaker;
+
+/**
+ * Keeps Kafka consumption in line with the {@code smtp} and {@code db} breakers.
+ * While a breaker is not closed, the listener containers and router lanes that
+ * depend on it are paused, so records wait in Kafka instead of being fetched only
+ * to fail fast; they resume once no breaker they depend on is open or half-open.
+ * <p>
+ * With consumption paused nothing else calls the dependency, so the half-open
+ * probes are made here: an SMTP connect for {@code smtp} and {@code SELECT 1} for
+ * {@code db}, every {@code notification.breaker.probe-interval-ms}. Pausing,
+ * resuming and probing all run on one background thread, never on a consumer thread.
+ */
+@Component
+public class CircuitBreakerCoordinator implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerCoordinator.class);
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final NotificationRouter router;
+    private final List<Guard> guards;
+    private final ScheduledExecutorService worker;
+    private final Set<String> paused = new TreeSet<>();
+
+    public CircuitBreakerCoordinator(KafkaListenerEndpointRegistry registry, NotificationRouter router,
+                                     @Qualifier("smtpCircuitBreaker") CircuitBreaker smtpBreaker,
+                                     @Qualifier("dbCircuitBreaker") CircuitBreaker dbBreaker,
+                                     JavaMailSender mailSender, JdbcTemplate jdbc,
+                                     @Value("${notification.breaker.probe-interval-ms:5000}") long probeIntervalMs) {
+        this.registry = registry;
+        this.router = router;
+        this.guards = List.of(
+                new Guard(smtpBreaker, Set.of("email_notifications"), EnumSet.of(Channel.EMAIL), () -> {
+                    if (mailSender instanceof JavaMailSenderImpl sender) sender.testConnection();
+                }),
+                new Guard(dbBreaker, Set.of("email_notifications", "inapp_notifications"),
+                        EnumSet.of(Channel.EMAIL, Channel.IN_APP), () -> jdbc.queryForObject("SELECT 1", Integer.class)));
+
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "CircuitBreaker-coordinator");
+            t.setDaemon(true);
+            return t;
+        });
+        for (Guard guard : guards) {
+            guard.breaker().addListener((breaker, from, to) -> {
+                log.warn("Circuit breaker {} went from {} to {}", breaker.getName(), from, to);
+                worker.execute(this::applyPauses);
+            });
+        }
+        worker.scheduleWithFixedDelay(this::probe, probeIntervalMs, probeIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Pauses what a non-closed breaker guards and resumes what none does any more. */
+    private synchronized void applyPauses() {
+        Set<String> wanted = new TreeSet<>();
+        for (Guard guard : guards) {
+            if (guard.breaker().getState() != CircuitBreaker.State.CLOSED) wanted.addAll(targets(guard));
+        }
+        if (wanted.equals(paused)) return;
+        for (Guard guard : guards) {
+            for (Channel channel : guard.lanes()) {
+                String target = laneName(channel);
+                if (wanted.contains(target) && paused.add(target)) router.pause(channel);
+                if (!wanted.contains(target) && paused.remove(target)) router.resume(channel);
+            }
+            for (MessageListenerContainer container : containers(guard)) {
+                String target = container.getListenerId();
+                if (wanted.contains(target) && paused.add(target)) container.pause();
+                if (!wanted.contains(target) && paused.remove(target)) container.resume();
+            }
+        }
+        log.info("Consumers paused by circuit breakers: {}", paused.isEmpty() ? "none" : paused);
+    }
+
+    private void probe() {
+        for (Guard guard : guards) {
+            CircuitBreaker breaker = guard.breaker();
+            while (breaker.isProbeDue() && breaker.tryAcquire()) {
+                try {
+                    guard.probe().run();
+                    breaker.onSuccess();
+                } catch (Exception e) {
+                    breaker.onFailure();
+                    log.warn("Circuit breaker {} probe failed: {}", breaker.getName(), e.getMessage());
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Breaker name to its current state and what it has paused. */
+    public synchronized Map<String, BreakerStatus> status() {
+        Map<String, BreakerStatus> status = new LinkedHashMap<>();
+        for (Guard guard : guards) {
+            CircuitBreaker breaker = guard.breaker();
+            CircuitBreaker.State state = breaker.getState();
+            List<String> pausing = state == CircuitBreaker.State.CLOSED
+                    ? List.of()
+                    : targets(guard).stream().filter(paused::contains).toList();
+            status.put(breaker.getName(), new BreakerStatus(state.name(), breaker.getFailureRate(),
+                    breaker.getRejectedCount(), pausing));
+        }
+        return status;
+    }
+
+    private List<String> targets(Guard guard) {
+        List<String> targets = new ArrayList<>();
+        for (Channel channel : guard.lanes()) {
+            if (router.channels().contains(channel)) targets.add(laneName(channel));
+        }
+        for (MessageListenerContainer container : containers(guard)) targets.add(container.getListenerId());
+        return targets;
+    }
+
+    private List<MessageListenerContainer> containers(Guard guard) {
+        List<MessageListenerContainer> matching = new ArrayList<>();
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            String[] topics = container.getContainerProperties().getTopics();
+            if (topics == null) continue;
+            for (String topic : topics) {
+                if (guard.topics().contains(topic)) {
+                    matching.add(container);
+                    break;
+                }
+            }
+        }
+        return matching;
+    }
+
+    private static String laneName(Channel channel) {
+        return "router-" + channel.name().toLowerCase();
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+    }
+
+    /** A call that succeeds only if the dependency is reachable. */
+    @FunctionalInterface
+    private interface Probe {
+        void run() throws Exception;
+    }
+
+    private record Guard(CircuitBreaker breaker, Set<String> topics, Set<Channel> lanes, Probe probe) {
+    }
+
+    /** @param pausing listener containers and router lanes this breaker is keeping paused */
+    public record BreakerStatus(String state, double failureRate, long rejectedCalls, List<String> pausing) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.ApacheKafka.resilience;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.example.ApacheKafka.resilience.CircuitBreakerCoordinator.BreakerStatus;
+
+/** {@code GET /actuator/circuitbreakers}: state, failure rate, rejected calls and paused consumers per breaker. */
+@Component
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakersEndpoint {
+
+    private final CircuitBreakerCoordinator coordinator;
+
+    public CircuitBreakersEndpoint(CircuitBreakerCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    @ReadOperation
+    public Map<String, BreakerStatus> breakers() {
+        return coordinator.status();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.ApacheKafka.routing;
+
+import org.springframework.core.env.Environment;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+
+/**
+ * Per-channel resources, read from {@code notification.router.channels.<name>.*}
+ * where {@code <name>} is the lower-case channel with {@code -} for {@code _}.
+ *
+ * @param consumers    consumer threads in the channel's group
+ * @param workers      threads in the channel's delivery pool
+ * @param maxBatchSize most records handed to one {@link NotificationChannel#deliver} call
+ * @param lingerMs     how long a fetch may wait for a batch to fill; {@code 0} returns as soon as anything arrives
+ */
+public record ChannelPolicy(int consumers, int workers, int maxBatchSize, long lingerMs) {
+
+    public static final ChannelPolicy DEFAULT = new ChannelPolicy(1, 2, 100, 0);
+
+    public ChannelPolicy {
+        if (consumers < 1 || workers < 1 || maxBatchSize < 1 || lingerMs < 0) {
+            throw new IllegalArgumentException("Invalid channel policy " + consumers + "/" + workers + "/" + maxBatchSize + "/" + lingerMs);
+        }
+    }
+
+    static String propertyName(Channel channel) {
+        return channel.name().toLowerCase().replace('_', '-');
+    }
+
+    static ChannelPolicy resolve(Environment env, Channel channel, ChannelPolicy defaults) {
+        String prefix = "notification.router.channels." + propertyName(channel) + ".";
+        return new ChannelPolicy(
+                env.getProperty(prefix + "consumers", Integer.class, defaults.consumers()),
+                env.getProperty(prefix + "workers", Integer.class, defaults.workers()),
+                env.getProperty(prefix + "max-batch-size", Integer.class, defaults.maxBatchSize()),
+                env.getProperty(prefix + "linger-ms", Long.class, defaults.lingerMs()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ApacheKafka.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntConsumer;
+
+/** A channel's delivery pool and how many tasks one batch may spread over. */
+public final class ChannelWorkers {
+
+    private final Executor executor;
+    private final int parallelism;
+
+    public ChannelWorkers(Executor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Runs {@code action} for indexes {@code 0..count-1}, split into at most
+     * {@code parallelism} contiguous chunks, and waits for all of them. A chunk the
+     * executor refuses runs on the calling thread.
+     */
+    public void forEach(int count, IntConsumer action) {
+        if (count == 0) return;
+        int chunkSize = Math.max(1, (count + parallelism - 1) / parallelism);
+        if (chunkSize >= count) {
+            for (int i = 0; i < count; i++) action.accept(i);
+            return;
+        }
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < count; from += chunkSize) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(from + chunkSize, count);
+            Runnable chunk = () -> {
+                for (int i = chunkStart; i < chunkEnd; i++) action.accept(i);
+            };
+            try {
+                chunks.add(CompletableFuture.runAsync(chunk, executor));
+            } catch (RejectedExecutionException saturated) {
+                chunk.run();
+            }
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+    }
+}
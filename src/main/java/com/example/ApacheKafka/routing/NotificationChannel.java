@@ -0,0 +1,45 @@
+package com.example.ApacheKafka.routing;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+
+/**
+ * Delivery channel plugged into the {@link NotificationRouter}. Implementations
+ * are Spring beans; the router gives each one its own consumer group on the
+ * {@value NotificationRouter#TOPIC} topic, its own worker pool and its own
+ * batching policy, so a slow or failing channel only lags itself.
+ */
+public interface NotificationChannel {
+
+    /** How long a consumer waits before polling a batch refused by an open breaker again. */
+    Duration REFUSED_BATCH_BACKOFF = Duration.ofSeconds(1);
+
+    /** Envelopes with this channel are routed here. At most one bean per channel. */
+    Channel channel();
+
+    /** Used for any {@code notification.router.channels.<name>.*} property that is not set. */
+    default ChannelPolicy defaultPolicy() {
+        return ChannelPolicy.DEFAULT;
+    }
+
+    /**
+     * Delivers one batch and returns once every record has a final outcome; the
+     * batch's offsets are committed afterwards. Throwing hands the whole batch to
+     * the container's error handler, so redelivered records must be tolerated.
+     * {@link com.example.ApacheKafka.util.CircuitOpenException} is the exception:
+     * the batch is sought back and redelivered without using up the handler's
+     * retries, so it is never dead-lettered for an outage.
+     *
+     * @param workers this channel's bounded pool, for delivering records in parallel
+     */
+    void deliver(List<ConsumerRecord<String, NotificationEnvelope>> batch, ChannelWorkers workers) throws Exception;
+
+    /** Called when partitions are assigned to this channel's consumers. */
+    default void onPartitionsAssigned() {
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.ApacheKafka.routing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.example.ApacheKafka.config.KafkaErrorHandlerConfig;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.util.CircuitOpenException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Routes records of the unified {@value #TOPIC} topic to the registered
+ * {@link NotificationChannel}s by envelope channel.
+ * <p>
+ * Every channel gets a lane: a batch listener container in consumer group
+ * {@code router-<name>}, which skips other channels' records, plus a bounded
+ * delivery pool. Offsets are committed per lane after its batch is delivered,
+ * so a slow or failing channel lags only its own group while the others keep
+ * consuming. Adding a channel is a new {@link NotificationChannel} bean.
+ * <p>
+ * A batch that keeps failing is dead-lettered to {@code notifications.DLT}, but
+ * only the lane's own records: replaying them reaches the other lanes too, and
+ * they skip records of channels that are not theirs.
+ */
+@Component
+public class NotificationRouter implements SmartLifecycle {
+
+    public static final String TOPIC = "notifications";
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRouter.class);
+
+    // Rough size of one encoded envelope, to turn max-batch-size into fetch.min.bytes.
+    private static final int ESTIMATED_RECORD_BYTES = 128;
+
+    private final Map<Channel, Lane> lanes = new EnumMap<>(Channel.class);
+    private volatile boolean running;
+
+    public NotificationRouter(List<NotificationChannel> channels, ConcurrentKafkaListenerContainerFactory<?, ?> factory,
+                              DeadLetterPublishingRecoverer deadLetters, Environment env, MeterRegistry meterRegistry) {
+        for (NotificationChannel channel : channels) {
+            if (lanes.containsKey(channel.channel())) {
+                throw new IllegalStateException("More than one NotificationChannel for " + channel.channel());
+            }
+            ChannelPolicy policy = ChannelPolicy.resolve(env, channel.channel(), channel.defaultPolicy());
+            lanes.put(channel.channel(), new Lane(channel, policy, factory, deadLetters, meterRegistry));
+        }
+    }
+
+    /** Channels with a registered implementation. */
+    public Collection<Channel> channels() {
+        return lanes.keySet();
+    }
+
+    /** Stops fetching for {@code channel}'s lane; its records wait in Kafka until {@link #resume}. */
+    public void pause(Channel channel) {
+        Lane lane = lanes.get(channel);
+        if (lane != null) lane.container.pause();
+    }
+
+    public void resume(Channel channel) {
+        Lane lane = lanes.get(channel);
+        if (lane != null) lane.container.resume();
+    }
+
+    @Override
+    public void start() {
+        for (Lane lane : lanes.values()) {
+            lane.pool.initialize();
+            lane.container.start();
+            log.info("Routing {} notifications with {}", lane.channel.channel(), lane.policy);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        for (Lane lane : lanes.values()) {
+            lane.container.stop();
+            lane.pool.shutdown();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE;
+    }
+
+    private static final class Lane {
+
+        private final NotificationChannel channel;
+        private final ChannelPolicy policy;
+        private final ThreadPoolTaskExecutor pool;
+        private final ChannelWorkers workers;
+        private final ConcurrentMessageListenerContainer<?, ?> container;
+        private final Timer delivered;
+        private final Timer failed;
+
+        private Lane(NotificationChannel channel, ChannelPolicy policy, ConcurrentKafkaListenerContainerFactory<?, ?> factory,
+                     DeadLetterPublishingRecoverer deadLetters, MeterRegistry meterRegistry) {
+            this.channel = channel;
+            this.policy = policy;
+            String name = ChannelPolicy.propertyName(channel.channel());
+
+            this.pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(policy.workers());
+            pool.setMaxPoolSize(policy.workers());
+            // Each consumer waits for its own batch, so this many tasks can be queued at most.
+            pool.setQueueCapacity(policy.workers() * policy.consumers());
+            pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.setThreadNamePrefix("channel-" + name + "-");
+            this.workers = new ChannelWorkers(pool, policy.workers());
+
+            this.container = factory.createContainer(TOPIC);
+            container.setBeanName("router-" + name);
+            container.setConcurrency(policy.consumers());
+            var props = container.getContainerProperties();
+            props.setGroupId("router-" + name);
+            Properties consumerProps = new Properties();
+            consumerProps.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(policy.maxBatchSize()));
+            if (policy.lingerMs() > 0) {
+                // The broker holds a fetch until about a batch's worth of bytes is there or
+                // linger-ms passes; with a backlog it answers at once, so nothing sleeps.
+                consumerProps.setProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG,
+                        String.valueOf(policy.maxBatchSize() * ESTIMATED_RECORD_BYTES));
+                consumerProps.setProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(policy.lingerMs()));
+            }
+            props.setKafkaConsumerProperties(consumerProps);
+            props.setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    channel.onPartitionsAssigned();
+                }
+            });
+            container.setCommonErrorHandler(KafkaErrorHandlerConfig.withBackOff((record, ex) -> {
+                if (record.value() instanceof NotificationEnvelope envelope && envelope.channel() == channel.channel()) {
+                    deadLetters.accept(record, ex);
+                }
+            }));
+            container.setupMessageListener((BatchAcknowledgingMessageListener<String, NotificationEnvelope>) this::route);
+
+            this.delivered = Timer.builder("notification.channel.deliver")
+                    .description("Time to deliver one routed batch")
+                    .tag("channel", name).tag("outcome", "delivered")
+                    .register(meterRegistry);
+            this.failed = Timer.builder("notification.channel.deliver")
+                    .tag("channel", name).tag("outcome", "failed")
+                    .register(meterRegistry);
+            Gauge.builder("notification.channel.workers.active", pool, ThreadPoolTaskExecutor::getActiveCount)
+                    .tag("channel", name).register(meterRegistry);
+        }
+
+        private void route(List<ConsumerRecord<String, NotificationEnvelope>> records, Acknowledgment ack) {
+            List<ConsumerRecord<String, NotificationEnvelope>> batch = new ArrayList<>(records.size());
+            for (ConsumerRecord<String, NotificationEnvelope> record : records) {
+                // Values that failed to deserialize arrive as null and are dropped by every lane.
+                if (record.value() != null && record.value().channel() == channel.channel()) batch.add(record);
+            }
+            if (!batch.isEmpty()) {
+                long start = System.nanoTime();
+                try {
+                    channel.deliver(batch, workers);
+                } catch (CircuitOpenException e) {
+                    // The breaker coordinator pauses this lane; the batch comes back once it resumes.
+                    failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    ack.nack(0, NotificationChannel.REFUSED_BATCH_BACKOFF);
+                    return;
+                } catch (RuntimeException e) {
+                    failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    throw e;
+                } catch (Exception e) {
+                    failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                    throw new IllegalStateException(channel.channel() + " delivery failed", e);
+                }
+                delivered.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            ack.acknowledge();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.ApacheKafka.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.util.RecipientFileReader;
+
+/**
+ * Runs bulk email publishes as background jobs. Recipients are streamed from a
+ * file into the producer with at most {@code maxOutstanding} unacknowledged sends,
+ * and each job counts accepted, broker-acked and failed records.
+ */
+@Service
+public class BulkPublishService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkPublishService.class);
+
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final NotificationProducer producer;
+    private final Executor bulkExecutor;
+    private final int maxOutstanding;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public BulkPublishService(NotificationProducer producer,
+                              @Qualifier("bulkPublishExecutor") Executor bulkExecutor,
+                              @Value("${notification.bulk.max-outstanding-sends:10000}") int maxOutstanding) {
+        this.producer = producer;
+        this.bulkExecutor = bulkExecutor;
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    /**
+     * Starts a job that publishes {@code message} to every recipient in
+     * {@code recipientsFile}. When {@code deleteWhenDone} is set the file is
+     * removed after the job finishes (used for uploaded files).
+     */
+    public String start(Path recipientsFile, String message, boolean deleteWhenDone) {
+        return start(recipientsFile, (email, row) -> producer.sendNotification(email, message), deleteWhenDone);
+    }
+
+    /**
+     * Like {@link #start(Path, String, boolean)} but personalised: each row is sent
+     * as {@code templateId} with the variables {@code email} (first cell),
+     * {@code name} (second cell) and {@code col0..colN} (every cell).
+     */
+    public String startTemplated(Path recipientsFile, String templateId, boolean deleteWhenDone) {
+        return start(recipientsFile, (email, row) -> producer.sendTemplated(email, templateId, rowVariables(row)), deleteWhenDone);
+    }
+
+    /**
+     * @throws RejectedExecutionException when the job queue is full; no job is
+     *                                    registered and the file is deleted if owned
+     */
+    private String start(Path recipientsFile, RowPublisher publisher, boolean deleteWhenDone) {
+        evictFinishedJobs();
+        Job job = new Job(UUID.randomUUID().toString());
+        try {
+            bulkExecutor.execute(() -> run(job, recipientsFile, publisher, deleteWhenDone));
+        } catch (RejectedExecutionException e) {
+            if (deleteWhenDone) deleteQuietly(recipientsFile);
+            throw e;
+        }
+        jobs.put(job.id, job);
+        return job.id;
+    }
+
+    static Map<String, String> rowVariables(List<String> row) {
+        Map<String, String> variables = new HashMap<>(row.size() * 2 + 4);
+        variables.put("email", row.get(0).trim());
+        if (row.size() > 1) variables.put("name", row.get(1).trim());
+        for (int i = 0; i < row.size(); i++) {
+            variables.put("col" + i, row.get(i));
+        }
+        return variables;
+    }
+
+    public Optional<BulkPublishStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+    }
+
+    private void run(Job job, Path recipientsFile, RowPublisher publisher, boolean deleteWhenDone) {
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+        try {
+            RecipientFileReader.stream(recipientsFile.toString(), row -> {
+                outstanding.acquireUninterruptibly();
+                job.accepted.incrementAndGet();
+                try {
+                    publisher.publish(row.get(0), row).whenComplete((result, ex) -> {
+                        if (ex == null) job.acked.incrementAndGet();
+                        else job.failed.incrementAndGet();
+                        outstanding.release();
+                    });
+                } catch (RuntimeException e) {
+                    job.failed.incrementAndGet();
+                    outstanding.release();
+                }
+            });
+            outstanding.acquireUninterruptibly(maxOutstanding);
+            job.finish(BulkPublishStatus.State.COMPLETED, null);
+        } catch (Exception e) {
+            job.finish(BulkPublishStatus.State.FAILED, e.getMessage());
+            log.warn("Bulk publish job {} failed after {} recipients: {}", job.id, job.accepted.get(), e.getMessage());
+        } finally {
+            if (deleteWhenDone) deleteQuietly(recipientsFile);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception ignored) {
+            // temp file cleanup is best effort
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @FunctionalInterface
+    private interface RowPublisher {
+        CompletableFuture<?> publish(String email, List<String> row);
+    }
+
+    public record BulkPublishStatus(String jobId, State state, long accepted, long acked, long failed,
+                                    Instant startedAt, Instant finishedAt, String error) {
+        public enum State { RUNNING, COMPLETED, FAILED }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong acked = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile BulkPublishStatus.State state = BulkPublishStatus.State.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(String id) {
+            this.id = id;
+        }
+
+        private void finish(BulkPublishStatus.State state, String error) {
+            this.error = error;
+            this.finishedAt = Instant.now();
+            this.state = state;
+        }
+
+        private BulkPublishStatus snapshot() {
+            return new BulkPublishStatus(id, state, accepted.get(), acked.get(), failed.get(), startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.ApacheKafka.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.config.KafkaErrorHandlerConfig;
+import com.example.ApacheKafka.util.TokenBucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replays a range of a {@code .DLT} topic back onto its source topic as a
+ * background job. The range is cut into slices (several per partition when there
+ * are more workers than partitions); each worker reads slices with its own
+ * group-less consumer and republishes the raw records, sharing one rate limit.
+ * The range's end is fixed when the job starts, so records that fail again and
+ * are dead-lettered during the replay are not picked up by it.
+ * <p>
+ * Payloads and original headers are kept, so email records keep their dedup key
+ * and those meanwhile delivered by the retry queue are not sent twice.
+ */
+@Service
+public class DeadLetterReplayService implements DisposableBean {
+
+    /** Header naming the DLT record a replayed record came from, as {@code topic-partition@offset}. */
+    public static final String REPLAYED_FROM_HEADER = "dlt-replayed-from";
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterReplayService.class);
+
+    private static final String DLT_HEADER_PREFIX = "kafka_dlt-";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final KafkaOperations<String, byte[]> rawTemplate;
+    private final int maxWorkers;
+    private final int maxOutstanding;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Counter replayed;
+    private final Counter failed;
+
+    public DeadLetterReplayService(ConsumerFactory<?, ?> consumerFactory,
+                                   @Qualifier("rawKafkaTemplate") KafkaOperations<String, byte[]> rawTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${notification.dlt.replay.max-workers:8}") int maxWorkers,
+                                   @Value("${notification.dlt.replay.max-outstanding-sends:10000}") int maxOutstanding) {
+        this.consumerFactory = consumerFactory;
+        this.rawTemplate = rawTemplate;
+        this.maxWorkers = Math.max(1, maxWorkers);
+        this.maxOutstanding = maxOutstanding;
+        this.replayed = Counter.builder("notification.dlt.replayed").tag("outcome", "acked").register(meterRegistry);
+        this.failed = Counter.builder("notification.dlt.replayed").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Starts replaying {@code dltTopic} onto the topic it dead-letters.
+     *
+     * @param from          first record timestamp to replay; {@code null} for the start of the topic
+     * @param to            replay records before this timestamp; {@code null} for everything there is now
+     * @param partition     a single DLT partition, or {@code null} for all
+     * @param ratePerSecond republish rate across all workers
+     * @param workers       parallel readers, capped by {@code notification.dlt.replay.max-workers}
+     * @return the job id
+     * @throws IllegalArgumentException when {@code dltTopic} is not a DLT or does not exist
+     */
+    public String start(String dltTopic, Instant from, Instant to, Integer partition, double ratePerSecond, int workers) {
+        if (!dltTopic.endsWith(KafkaErrorHandlerConfig.DLT_SUFFIX)) {
+            throw new IllegalArgumentException(dltTopic + " is not a dead-letter topic");
+        }
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be positive");
+        String target = dltTopic.substring(0, dltTopic.length() - KafkaErrorHandlerConfig.DLT_SUFFIX.length());
+        int workerCount = Math.max(1, Math.min(workers, maxWorkers));
+
+        List<Slice> slices;
+        try (Consumer<String, byte[]> consumer = createConsumer("plan")) {
+            slices = plan(consumer, dltTopic, from, to, partition, workerCount);
+        }
+
+        evictFinishedJobs();
+        Job job = new Job(UUID.randomUUID().toString(), dltTopic, target, ratePerSecond, workerCount, slices);
+        jobs.put(job.id, job);
+        TokenBucket rate = new TokenBucket(ratePerSecond, Math.max(1, ratePerSecond / 10));
+        ConcurrentLinkedQueue<Slice> queue = new ConcurrentLinkedQueue<>(slices);
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+        CountDownLatch done = new CountDownLatch(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    replaySlices(job, queue, rate, outstanding);
+                } catch (RuntimeException e) {
+                    job.fail(e.getMessage());
+                    log.warn("DLT replay job {} worker failed: {}", job.id, e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }, "DltReplay-" + job.id.substring(0, 8) + "-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Thread finisher = new Thread(() -> {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            outstanding.acquireUninterruptibly(maxOutstanding);
+            job.finish();
+            log.info("DLT replay job {} of {} finished {}: {}", job.id, dltTopic, job.state, job.snapshot());
+        }, "DltReplay-" + job.id.substring(0, 8) + "-done");
+        finisher.setDaemon(true);
+        finisher.start();
+        log.info("DLT replay job {} started: {} -> {}, {} records in {} slices, {} workers at {}/s",
+                job.id, dltTopic, target, job.total, slices.size(), workerCount, ratePerSecond);
+        return job.id;
+    }
+
+    public Optional<ReplayStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+    }
+
+    /** Stops reading; records already handed to the producer still go out. */
+    public boolean cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) return false;
+        job.cancelled = true;
+        return true;
+    }
+
+    /** Records currently on each partition of {@code dltTopic}, for deciding what to replay. */
+    public Map<Integer, Long> depth(String dltTopic) {
+        try (Consumer<String, byte[]> consumer = createConsumer("depth")) {
+            List<TopicPartition> partitions = partitionsOf(consumer, dltTopic, null);
+            Map<TopicPartition, Long> begin = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+            Map<Integer, Long> depth = new HashMap<>();
+            for (TopicPartition tp : partitions) depth.put(tp.partition(), end.get(tp) - begin.get(tp));
+            return depth;
+        }
+    }
+
+    /** Cuts the offset range between {@code from} and {@code to} into about {@code workerCount} slices. */
+    static List<Slice> plan(Consumer<String, byte[]> consumer, String dltTopic, Instant from, Instant to,
+                            Integer partition, int workerCount) {
+        List<TopicPartition> partitions = partitionsOf(consumer, dltTopic, partition);
+        Map<TopicPartition, Long> begin = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+        Map<TopicPartition, Long> start = from != null ? offsetsAt(consumer, partitions, from, end) : begin;
+        Map<TopicPartition, Long> stop = to != null ? offsetsAt(consumer, partitions, to, end) : end;
+
+        int slicesPerPartition = Math.max(1, (workerCount + partitions.size() - 1) / partitions.size());
+        List<Slice> slices = new ArrayList<>();
+        for (TopicPartition tp : partitions) {
+            long first = Math.max(start.get(tp), begin.get(tp));
+            long last = stop.get(tp);
+            if (first >= last) continue;
+            long step = Math.max(1, (last - first + slicesPerPartition - 1) / slicesPerPartition);
+            for (long offset = first; offset < last; offset += step) {
+                slices.add(new Slice(tp, offset, Math.min(last, offset + step)));
+            }
+        }
+        return slices;
+    }
+
+    private static List<TopicPartition> partitionsOf(Consumer<String, byte[]> consumer, String topic, Integer partition) {
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        if (infos == null || infos.isEmpty()) throw new IllegalArgumentException("No topic " + topic);
+        List<TopicPartition> partitions = new ArrayList<>();
+        for (PartitionInfo info : infos) {
+            if (partition == null || partition == info.partition()) partitions.add(new TopicPartition(topic, info.partition()));
+        }
+        if (partitions.isEmpty()) throw new IllegalArgumentException(topic + " has no partition " + partition);
+        return partitions;
+    }
+
+    /** First offset at or after {@code time} per partition; the end offset where there is none. */
+    private static Map<TopicPartition, Long> offsetsAt(Consumer<String, byte[]> consumer, List<TopicPartition> partitions,
+                                                       Instant time, Map<TopicPartition, Long> end) {
+        Map<TopicPartition, Long> query = new HashMap<>();
+        for (TopicPartition tp : partitions) query.put(tp, time.toEpochMilli());
+        Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(query);
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            OffsetAndTimestamp at = found.get(tp);
+            offsets.put(tp, at != null ? at.offset() : end.get(tp));
+        }
+        return offsets;
+    }
+
+    private void replaySlices(Job job, ConcurrentLinkedQueue<Slice> queue, TokenBucket rate, Semaphore outstanding) {
+        try (Consumer<String, byte[]> consumer = createConsumer(job.id.substring(0, 8))) {
+            for (Slice slice; !job.cancelled && (slice = queue.poll()) != null; ) {
+                consumer.assign(List.of(slice.partition()));
+                consumer.seek(slice.partition(), slice.from());
+                long position = slice.from();
+                while (!job.cancelled && position < slice.to()) {
+                    for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                        if (record.offset() >= slice.to() || job.cancelled) break;
+                        rate.acquire();
+                        outstanding.acquireUninterruptibly();
+                        republish(job, record, outstanding);
+                    }
+                    position = consumer.position(slice.partition());
+                }
+            }
+        }
+    }
+
+    private void republish(Job job, ConsumerRecord<String, byte[]> record, Semaphore outstanding) {
+        ProducerRecord<String, byte[]> copy = new ProducerRecord<>(job.target, null, record.key(), record.value());
+        for (Header header : record.headers()) {
+            if (!header.key().startsWith(DLT_HEADER_PREFIX)) copy.headers().add(header);
+        }
+        copy.headers().add(REPLAYED_FROM_HEADER,
+                (record.topic() + "-" + record.partition() + "@" + record.offset()).getBytes(StandardCharsets.UTF_8));
+        try {
+            rawTemplate.send(copy).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    job.replayed.incrementAndGet();
+                    replayed.increment();
+                } else {
+                    job.failed.incrementAndGet();
+                    failed.increment();
+                }
+                outstanding.release();
+            });
+        } catch (RuntimeException e) {
+            job.failed.incrementAndGet();
+            failed.increment();
+            outstanding.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, byte[]> createConsumer(String clientIdSuffix) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "500");
+        // Partitions are assigned by hand and offsets never committed; the group id is only a label.
+        return (Consumer<String, byte[]>) consumerFactory.createConsumer("dlt-replay", "dlt-replay", "-" + clientIdSuffix, overrides);
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @Override
+    public void destroy() {
+        jobs.values().forEach(job -> job.cancelled = true);
+    }
+
+    /** Offsets {@code from} (inclusive) to {@code to} (exclusive) of one partition. */
+    record Slice(TopicPartition partition, long from, long to) {
+    }
+
+    /** @param total records in the range when the job started */
+    public record ReplayStatus(String jobId, String dltTopic, String targetTopic, State state, long total, long replayed,
+                               long failed, double ratePerSecond, int workers, Instant startedAt, Instant finishedAt,
+                               String error) {
+        public enum State { RUNNING, COMPLETED, CANCELLED, FAILED }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String dltTopic;
+        private final String target;
+        private final double ratePerSecond;
+        private final int workers;
+        private final long total;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong replayed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile ReplayStatus.State state = ReplayStatus.State.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(String id, String dltTopic, String target, double ratePerSecond, int workers, List<Slice> slices) {
+            this.id = id;
+            this.dltTopic = dltTopic;
+            this.target = target;
+            this.ratePerSecond = ratePerSecond;
+            this.workers = workers;
+            this.total = slices.stream().mapToLong(slice -> slice.to() - slice.from()).sum();
+        }
+
+        private void fail(String error) {
+            this.error = error;
+            this.cancelled = true;
+        }
+
+        private void finish() {
+            this.finishedAt = Instant.now();
+            this.state = error != null ? ReplayStatus.State.FAILED
+                    : cancelled ? ReplayStatus.State.CANCELLED
+                    : ReplayStatus.State.COMPLETED;
+        }
+
+        private ReplayStatus snapshot() {
+            return new ReplayStatus(id, dltTopic, target, state, total, replayed.get(), failed.get(), ratePerSecond, workers,
+                    startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ApacheKafka.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Parks delayed retries on a single timer thread instead of sleeping on a worker.
+ * When a retry becomes due it is handed to the target executor; if that executor
+ * is saturated the hand-off is re-parked briefly rather than dropped.
+ */
+@Component
+public class DelayedRetryScheduler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(DelayedRetryScheduler.class);
+
+    private static final long REJECTED_HANDOFF_DELAY_MS = 1000;
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public DelayedRetryScheduler(MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "RetryScheduler-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        Gauge.builder("notification.retry.parked", pending, AtomicInteger::get)
+                .description("In-process email retries waiting out their backoff").register(meterRegistry);
+    }
+
+    /** @throws RejectedExecutionException once the scheduler has been shut down */
+    public void schedule(Runnable task, long delayMs, Executor target) {
+        pending.incrementAndGet();
+        try {
+            timer.schedule(() -> handOff(task, target), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void handOff(Runnable task, Executor target) {
+        try {
+            target.execute(task);
+            pending.decrementAndGet();
+        } catch (RejectedExecutionException e) {
+            timer.schedule(() -> handOff(task, target), REJECTED_HANDOFF_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Retries parked on the timer that have not yet been handed to a worker. */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void destroy() {
+        int dropped = timer.shutdownNow().size();
+        if (dropped > 0) {
+            log.warn("Dropping {} parked email retries on shutdown", dropped);
+        }
+    }
+}
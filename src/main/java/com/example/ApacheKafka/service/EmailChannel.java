@@ -0,0 +1,257 @@
+package com.example.ApacheKafka.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.messaging.DedupKey;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.repository.FailedMessageBatchRepository;
+import com.example.ApacheKafka.repository.FailedMessageBatchRepository.DeliveryOutcome;
+import com.example.ApacheKafka.routing.ChannelPolicy;
+import com.example.ApacheKafka.routing.ChannelWorkers;
+import com.example.ApacheKafka.routing.NotificationChannel;
+import com.example.ApacheKafka.template.NotificationTemplateService;
+import com.example.ApacheKafka.template.NotificationTemplateService.Rendered;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.ResourceGate;
+import com.example.ApacheKafka.util.SampledLogger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Batch email delivery, shared by the router and {@link NotificationBatchConsumer}.
+ * Each batch is deduped by dedup key, checked against {@link SentMessageFilter}
+ * and then {@code failed_message} in one query, sent in parallel and written back
+ * with a single JDBC batch. Failed sends are not retried inline; they are queued
+ * for {@link RetryService}, or with {@code notification.email.dead-letter-failures}
+ * dead-lettered to the source topic's DLT for bulk replay. Records that cannot be
+ * rendered, such as those naming an unknown template, are dead-lettered as well.
+ * Sends refused by the open {@code smtp} breaker are neither: the batch throws
+ * {@link CircuitOpenException} and is redelivered once the listener resumes.
+ * <p>
+ * With {@code notification.digest.email.enabled}, non-urgent emails to the same
+ * recipient in one batch go out as a single {@link EmailDigest}. The batch is the
+ * coalescing window: the router's {@code linger-ms} for this channel is how long a
+ * fetch waits for it to fill while the topic is quiet.
+ */
+@Service
+public class EmailChannel implements NotificationChannel {
+
+    private static final SampledLogger log = SampledLogger.of(EmailChannel.class);
+
+    private final EmailService emailService;
+    private final FailedMessageBatchRepository batchRepo;
+    private final ResourceGate dbGate;
+    private final RetryService retryQueue;
+    private final SentMessageFilter sentFilter;
+    private final NotificationTemplateService templates;
+    private final DeadLetterPublishingRecoverer deadLetters;
+    private final boolean deadLetterFailures;
+    private final Timer outcomeWrite;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter duplicateCounter;
+    private final Counter skippedCounter;
+    private final Counter deadLetteredCounter;
+    private final Counter coalescedCounter;
+    private final EmailDigest digest;
+
+    public EmailChannel(EmailService emailService,
+                        FailedMessageBatchRepository batchRepo,
+                        ResourceGate dbGate,
+                        RetryService retryQueue,
+                        SentMessageFilter sentFilter,
+                        NotificationTemplateService templates,
+                        DeadLetterPublishingRecoverer deadLetters,
+                        MeterRegistry meterRegistry,
+                        @Value("${notification.email.dead-letter-failures:false}") boolean deadLetterFailures,
+                        @Value("${notification.digest.email.enabled:false}") boolean digestEnabled,
+                        @Value("${notification.digest.email.max-items:20}") int digestMaxItems,
+                        @Value("${notification.digest.email.subject:You have {count} new notifications}") String digestSubject) {
+        this.emailService = emailService;
+        this.batchRepo = batchRepo;
+        this.dbGate = dbGate;
+        this.retryQueue = retryQueue;
+        this.sentFilter = sentFilter;
+        this.templates = templates;
+        this.deadLetters = deadLetters;
+        this.deadLetterFailures = deadLetterFailures;
+        this.outcomeWrite = Timer.builder("notification.db.write").tag("op", "email_outcome").register(meterRegistry);
+        this.sentCounter = NotificationConsumer.emailOutcomeCounter(meterRegistry, "sent");
+        this.failedCounter = NotificationConsumer.emailOutcomeCounter(meterRegistry, "failed");
+        this.duplicateCounter = NotificationConsumer.emailOutcomeCounter(meterRegistry, "duplicate");
+        this.skippedCounter = NotificationConsumer.emailOutcomeCounter(meterRegistry, "skipped");
+        this.deadLetteredCounter = NotificationConsumer.emailOutcomeCounter(meterRegistry, "dead_lettered");
+        this.coalescedCounter = Counter.builder("notification.email.coalesced")
+                .description("Emails delivered inside a digest rather than on their own")
+                .register(meterRegistry);
+        this.digest = new EmailDigest(digestEnabled, digestMaxItems, digestSubject);
+    }
+
+    @Override
+    public Channel channel() {
+        return Channel.EMAIL;
+    }
+
+    @Override
+    public ChannelPolicy defaultPolicy() {
+        return new ChannelPolicy(1, 4, 500, 0);
+    }
+
+    @Override
+    public void deliver(List<ConsumerRecord<String, NotificationEnvelope>> records, ChannelWorkers workers) {
+        Map<String, Email> unique = new LinkedHashMap<>();
+        Map<String, ConsumerRecord<String, NotificationEnvelope>> sources = new HashMap<>();
+        for (ConsumerRecord<String, NotificationEnvelope> record : records) {
+            String to = NotificationEnvelope.recipientOf(record);
+            Optional<Rendered> email = render(record);
+            if (to == null || email.isEmpty()) {
+                skippedCounter.increment();
+                continue;
+            }
+            String body = email.get().body();
+            String dedupKey = DedupKey.of(record, to, body);
+            unique.putIfAbsent(dedupKey, new Email(dedupKey, to, email.get().subject(), body, record.value().isUrgent()));
+            sources.putIfAbsent(dedupKey, record);
+        }
+
+        List<String> keys = new ArrayList<>(unique.keySet());
+        // Only keys the bloom filter might have seen need the database round-trip.
+        List<String> maybeSent = new ArrayList<>();
+        for (String key : keys) {
+            if (sentFilter.mightBeSent(key)) maybeSent.add(key);
+        }
+        Set<String> alreadySent = maybeSent.isEmpty()
+                ? Set.of()
+                : dbGate.get(() -> batchRepo.findAlreadySent(maybeSent));
+        List<Email> pending = new ArrayList<>(keys.size() - alreadySent.size());
+        for (String key : keys) {
+            if (!alreadySent.contains(key)) pending.add(unique.get(key));
+        }
+
+        List<List<Email>> sends = digest.group(pending);
+        Exception[] failures = new Exception[sends.size()];
+        workers.forEach(sends.size(), i -> failures[i] = send(sends.get(i)));
+
+        for (Exception failure : failures) {
+            if (failure instanceof CircuitOpenException refused) {
+                // Nothing is queued or dead-lettered: the listener redelivers the batch once
+                // it resumes, and the sends that did go out are skipped as duplicates then.
+                List<DeliveryOutcome> sent = new ArrayList<>();
+                for (int i = 0; i < failures.length; i++) {
+                    if (failures[i] == null) sent.addAll(List.of(outcomes(sends.get(i), null, sources)));
+                }
+                record(sent);
+                throw refused;
+            }
+        }
+        DeliveryOutcome[][] outcomes = new DeliveryOutcome[sends.size()][];
+        workers.forEach(sends.size(), i -> outcomes[i] = outcomes(sends.get(i), failures[i], sources));
+
+        List<DeliveryOutcome> written = new ArrayList<>(pending.size());
+        for (DeliveryOutcome[] group : outcomes) written.addAll(List.of(group));
+        int sentCount = record(written);
+        duplicateCounter.increment(alreadySent.size());
+
+        log.info("email.batch", "records", records.size(), "sent", sentCount, "failed", written.size() - sentCount,
+                "duplicates", alreadySent.size(), "smtpSends", sends.size());
+    }
+
+    @Override
+    public void onPartitionsAssigned() {
+        // Records redelivered from another instance may already be sent; catch up first.
+        sentFilter.refresh();
+    }
+
+    /**
+     * Empty for records with nothing to send. A record that cannot be rendered goes
+     * to the DLT and is empty too; if the DLT write fails the batch fails and is
+     * redelivered, before anything in it was sent.
+     */
+    private Optional<Rendered> render(ConsumerRecord<String, NotificationEnvelope> record) {
+        try {
+            return templates.render(record.value());
+        } catch (IllegalArgumentException e) {
+            log.warn("email.deadlettered", "partition", record.partition(), "offset", record.offset(), "error", e.getMessage());
+            deadLetters.accept(record, e);
+            deadLetteredCounter.increment();
+            return Optional.empty();
+        }
+    }
+
+    /** Writes the outcomes and counts them; returns how many were sent. */
+    private int record(List<DeliveryOutcome> written) {
+        if (written.isEmpty()) return 0;
+        dbGate.run(() -> outcomeWrite.record(() -> batchRepo.upsertOutcomes(written)));
+        int sentCount = 0;
+        for (DeliveryOutcome outcome : written) {
+            if (outcome.sent()) {
+                sentFilter.recordSent(outcome.dedupKey());
+                sentCount++;
+            }
+        }
+        sentCounter.increment(sentCount);
+        failedCounter.increment(written.size() - sentCount);
+        return sentCount;
+    }
+
+    /** Sends one email, or one digest for several; returns the failure, or {@code null} once sent. */
+    private Exception send(List<Email> emails) {
+        Email first = emails.get(0);
+        String subject = emails.size() == 1 ? first.subject() : digest.subject(emails.size());
+        String body = emails.size() == 1 ? first.body() : digest.body(emails);
+        try {
+            emailService.sendEmail(first.to(), subject, body);
+            if (emails.size() > 1) coalescedCounter.increment(emails.size());
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    /** Every message of one send gets the same outcome. */
+    private DeliveryOutcome[] outcomes(List<Email> emails, Exception failure,
+                                       Map<String, ConsumerRecord<String, NotificationEnvelope>> sources) {
+        String error = failure == null ? null : failure.getMessage() != null ? failure.getMessage() : "Unknown error";
+        LocalDateTime now = LocalDateTime.now();
+        DeliveryOutcome[] outcomes = new DeliveryOutcome[emails.size()];
+        for (int i = 0; i < outcomes.length; i++) {
+            Email email = emails.get(i);
+            // Failed messages are retried one by one, from failed_message or the DLT, not as a digest.
+            LocalDateTime retryAt = failure == null ? null : failureRetryAt(sources.get(email.dedupKey()), failure, now);
+            outcomes[i] = new DeliveryOutcome(email.dedupKey(), email.to(), email.subject(), email.body(), error == null, error,
+                    now, retryAt);
+        }
+        return outcomes;
+    }
+
+    /** {@code null} once the record is on the DLT; the retry queue time otherwise, also when the DLT write fails. */
+    private LocalDateTime failureRetryAt(ConsumerRecord<String, NotificationEnvelope> record, Exception failure, LocalDateTime now) {
+        if (deadLetterFailures) {
+            try {
+                deadLetters.accept(record, failure);
+                return null;
+            } catch (RuntimeException e) {
+                log.warn("email.deadletter.failed", "partition", record.partition(), "offset", record.offset(), "error", e.getMessage());
+            }
+        }
+        return retryQueue.firstAttemptAfter(now);
+    }
+
+    record Email(String dedupKey, String to, String subject, String body, boolean urgent) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ApacheKafka.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.example.ApacheKafka.service.EmailChannel.Email;
+
+/**
+ * Groups one batch of emails into SMTP sends: non-urgent emails to the same
+ * recipient are merged, up to {@code maxItems} per digest, in batch order.
+ * Urgent emails, and everything when disabled, are sent on their own.
+ */
+class EmailDigest {
+
+    private static final String SEPARATOR = "\n\n----------------------------------------\n\n";
+
+    private final boolean enabled;
+    private final int maxItems;
+    private final String subjectTemplate;
+
+    EmailDigest(boolean enabled, int maxItems, String subjectTemplate) {
+        this.enabled = enabled;
+        this.maxItems = Math.max(1, maxItems);
+        this.subjectTemplate = subjectTemplate;
+    }
+
+    List<List<Email>> group(List<Email> emails) {
+        List<List<Email>> sends = new ArrayList<>();
+        Map<String, List<Email>> open = new LinkedHashMap<>();
+        for (Email email : emails) {
+            if (!enabled || email.urgent()) {
+                sends.add(List.of(email));
+                continue;
+            }
+            String recipient = email.to().trim().toLowerCase(Locale.ROOT);
+            List<Email> digest = open.get(recipient);
+            if (digest == null || digest.size() >= maxItems) {
+                digest = new ArrayList<>();
+                open.put(recipient, digest);
+                sends.add(digest);
+            }
+            digest.add(email);
+        }
+        return sends;
+    }
+
+    String subject(int count) {
+        return subjectTemplate.replace("{count}", String.valueOf(count));
+    }
+
+    /** Each message under its own subject line, oldest first. */
+    String body(List<Email> emails) {
+        StringBuilder body = new StringBuilder();
+        for (Email email : emails) {
+            if (body.length() > 0) body.append(SEPARATOR);
+            if (email.subject() != null) body.append(email.subject()).append("\n\n");
+            body.append(email.body());
+        }
+        return body.toString();
+    }
+}
@@ -1,23 +1,169 @@
 package com.example.ApacheKafka.service;
 
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import com.example.ApacheKafka.util.AdaptiveConcurrencyLimiter;
+import com.example.ApacheKafka.util.CircuitBreaker;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Sends every email through three limits: a token bucket for the sending account,
+ * one per recipient domain, and an {@link AdaptiveConcurrencyLimiter} that shrinks
+ * parallelism when SMTP latency climbs or the provider pushes back. Sends wait for
+ * permits rather than fail, so the callers' retry paths only see real failures.
+ * <p>
+ * The {@code smtp} {@link CircuitBreaker} sits in front of all three: while it is
+ * open sends fail at once with {@link CircuitOpenException} instead of each one
+ * waiting out the connect timeout. Per-recipient rejections do not count against it.
+ */
 @Service
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final String defaultSubject;
+    private final TokenBucket accountLimit;
+    private final Cache<String, TokenBucket> domainLimits;
+    private final double domainPerSecond;
+    private final double domainBurst;
+    private final AdaptiveConcurrencyLimiter concurrency;
+    private final CircuitBreaker breaker;
+    private final Timer permitWait;
+    private final Timer sendSuccess;
+    private final Timer sendFailure;
 
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, MeterRegistry meterRegistry,
+                        @Qualifier("smtpCircuitBreaker") CircuitBreaker breaker,
+                        @Value("${notification.mail.default-subject:Kafka Notification}") String defaultSubject,
+                        @Value("${notification.mail.rate.account-per-second:10}") double accountPerSecond,
+                        @Value("${notification.mail.rate.account-burst:20}") double accountBurst,
+                        @Value("${notification.mail.rate.domain-per-second:5}") double domainPerSecond,
+                        @Value("${notification.mail.rate.domain-burst:10}") double domainBurst,
+                        @Value("${notification.mail.concurrency.min:1}") int minConcurrency,
+                        @Value("${notification.mail.concurrency.max:${notification.mail.pool.max-size:4}}") int maxConcurrency,
+                        @Value("${notification.mail.concurrency.backoff-ratio:0.7}") double backoffRatio,
+                        @Value("${notification.mail.concurrency.latency-tolerance:2.0}") double latencyTolerance) {
         this.mailSender = mailSender;
+        this.breaker = breaker;
+        this.defaultSubject = defaultSubject;
+        this.accountLimit = new TokenBucket(accountPerSecond, accountBurst);
+        this.domainPerSecond = domainPerSecond;
+        this.domainBurst = domainBurst;
+        this.domainLimits = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.concurrency = new AdaptiveConcurrencyLimiter(maxConcurrency, minConcurrency, maxConcurrency,
+                backoffRatio, latencyTolerance);
+
+        // Histogram buckets for notification.mail.send are enabled in application.properties.
+        this.sendSuccess = Timer.builder("notification.mail.send")
+                .description("SMTP send latency, excluding the wait for rate and concurrency permits")
+                .tag("outcome", "sent").register(meterRegistry);
+        this.sendFailure = Timer.builder("notification.mail.send").tag("outcome", "failed").register(meterRegistry);
+        this.permitWait = Timer.builder("notification.mail.permit.wait")
+                .description("Time spent waiting for rate and concurrency permits")
+                .register(meterRegistry);
+        Gauge.builder("notification.mail.concurrency.limit", concurrency, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive SMTP concurrency limit").register(meterRegistry);
+        Gauge.builder("notification.mail.concurrency.in-flight", concurrency, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        Gauge.builder("notification.mail.latency.recent", concurrency, AdaptiveConcurrencyLimiter::getRecentLatencyMillis)
+                .baseUnit("milliseconds").register(meterRegistry);
+        Gauge.builder("notification.mail.rate.account.limit", accountLimit, TokenBucket::getPermitsPerSecond)
+                .baseUnit("permits/second").register(meterRegistry);
+        Gauge.builder("notification.mail.rate.account.available", accountLimit, TokenBucket::getAvailable)
+                .register(meterRegistry);
+        Gauge.builder("notification.mail.rate.domains", domainLimits, Cache::estimatedSize)
+                .description("Recipient domains with an active rate limit").register(meterRegistry);
     }
 
     public void sendEmail(String to, String body) {
+        sendEmail(to, null, body);
+    }
+
+    /** A {@code null} subject falls back to {@code notification.mail.default-subject}. */
+    public void sendEmail(String to, String subject, String body) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo(to);
-        message.setSubject("Kafka Retry Demo");
+        message.setSubject(subject != null ? subject : defaultSubject);
         message.setText(body);
-        mailSender.send(message);
+
+        if (!breaker.tryAcquire()) throw new CircuitOpenException(breaker.getName());
+        boolean outage = false;
+        try {
+            long waitStart = System.nanoTime();
+            accountLimit.acquire();
+            domainLimits.get(domainOf(to), domain -> new TokenBucket(domainPerSecond, domainBurst)).acquire();
+            concurrency.acquire();
+            long start = System.nanoTime();
+            permitWait.record(start - waitStart, TimeUnit.NANOSECONDS);
+            try {
+                mailSender.send(message);
+            } catch (MailException e) {
+                sendFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                outage = isPushback(e);
+                concurrency.onFailure(outage);
+                throw e;
+            } catch (RuntimeException e) {
+                sendFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                outage = true;
+                concurrency.onFailure(false);
+                throw e;
+            }
+            long latency = System.nanoTime() - start;
+            sendSuccess.record(latency, TimeUnit.NANOSECONDS);
+            concurrency.onSuccess(latency);
+        } finally {
+            if (outage) breaker.onFailure();
+            else breaker.onSuccess();
+        }
+    }
+
+    private static String domainOf(String address) {
+        int at = address.lastIndexOf('@');
+        return (at < 0 ? address : address.substring(at + 1)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Anything except a malformed message or a permanent rejection of this one
+     * recipient is treated as the provider or network struggling.
+     */
+    private static boolean isPushback(MailException e) {
+        if (e instanceof MailParseException || e instanceof MailPreparationException) return false;
+        if (e instanceof MailSendException send) {
+            for (Exception failure : send.getFailedMessages().values()) {
+                if (!isRecipientRejection(failure)) return true;
+            }
+            return send.getFailedMessages().isEmpty();
+        }
+        return true;
+    }
+
+    // MessagingException chains its nested exception as the cause.
+    private static boolean isRecipientRejection(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof SMTPAddressFailedException address && address.getReturnCode() >= 500) return true;
+        }
+        return false;
     }
 }
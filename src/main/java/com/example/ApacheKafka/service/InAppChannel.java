@@ -0,0 +1,90 @@
+package com.example.ApacheKafka.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.entity.NotificationMessage;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.routing.ChannelPolicy;
+import com.example.ApacheKafka.routing.ChannelWorkers;
+import com.example.ApacheKafka.routing.NotificationChannel;
+import com.example.ApacheKafka.util.SampledLogger;
+
+/**
+ * In-app delivery, shared by the router and {@link InAppNotificationConsumer}:
+ * pushes to WebSocket right away and hands the row to the write-behind buffer.
+ * Pushes are coalesced per student by {@link WebSocketFanoutService} unless the
+ * envelope is flagged urgent.
+ */
+@Service
+public class InAppChannel implements NotificationChannel {
+
+    private static final SampledLogger log = SampledLogger.of(InAppChannel.class);
+    private static final Acknowledgment NOT_LAST = () -> { };
+
+    private final WebSocketFanoutService fanout;
+    private final InAppWriteBehindBuffer writeBehind;
+
+    public InAppChannel(WebSocketFanoutService fanout, InAppWriteBehindBuffer writeBehind) {
+        this.fanout = fanout;
+        this.writeBehind = writeBehind;
+    }
+
+    @Override
+    public Channel channel() {
+        return Channel.IN_APP;
+    }
+
+    @Override
+    public ChannelPolicy defaultPolicy() {
+        return new ChannelPolicy(1, 1, 500, 0);
+    }
+
+    /**
+     * Queues the whole batch and waits until its last row is flushed. The buffer
+     * flushes in queue order, so that covers every row before it.
+     */
+    @Override
+    public void deliver(List<ConsumerRecord<String, NotificationEnvelope>> batch, ChannelWorkers workers)
+            throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        int last = batch.size() - 1;
+        for (int i = 0; i <= last; i++) {
+            accept(batch.get(i), i == last ? flushed::countDown : NOT_LAST);
+        }
+        flushed.await();
+    }
+
+    /** Pushes and queues one record; {@code ack} runs once the buffer has flushed it. */
+    void accept(ConsumerRecord<String, NotificationEnvelope> record, Acknowledgment ack) {
+        String studentId = NotificationEnvelope.recipientOf(record);
+        String message = record.value().body();
+        if (studentId == null || message == null) {
+            // Still routed through the buffer so acks stay in offset order.
+            writeBehind.enqueue(record, ack, null);
+            return;
+        }
+
+        NotificationMessage notification = new NotificationMessage();
+        notification.setStudentId(studentId);
+        notification.setNotificationId(record.value().messageId().toString());
+        notification.setMessage(message);
+        notification.setSent(true);
+        notification.setCreatedAt(LocalDateTime.now());
+
+        if (record.value().isUrgent()) {
+            fanout.publishNow(studentId, notification);
+        } else {
+            fanout.publish(studentId, notification);
+        }
+        writeBehind.enqueue(record, ack, notification);
+
+        log.info("inapp.queued", "studentId", studentId, "partition", record.partition(), "offset", record.offset());
+    }
+}
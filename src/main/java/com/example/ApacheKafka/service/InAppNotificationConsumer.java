@@ -1,7 +1,10 @@
 package com.example.ApacheKafka.service;
 
-import com.example.ApacheKafka.entity.NotificationMessage;
-import com.example.ApacheKafka.repository.NotificationRepository;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.util.SampledLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -9,64 +12,60 @@ import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.Map;
 
 @Service
 public class InAppNotificationConsumer {
 
-    private final NotificationRepository repo;
+    private static final SampledLogger log = SampledLogger.of(InAppNotificationConsumer.class);
+
     private final SimpMessagingTemplate messagingTemplate;
+    private final InAppChannel inApp;
+    private final Counter acksForwarded;
+    private final Timer adminPush;
 
     @Autowired
-    public InAppNotificationConsumer(NotificationRepository repo, SimpMessagingTemplate messagingTemplate) {
-        this.repo = repo;
+    public InAppNotificationConsumer(SimpMessagingTemplate messagingTemplate, InAppChannel inApp,
+                                     MeterRegistry meterRegistry) {
         this.messagingTemplate = messagingTemplate;
+        this.inApp = inApp;
+        this.acksForwarded = Counter.builder("notification.acks.forwarded")
+                .description("Free-text student acknowledgements pushed to the admin topic")
+                .register(meterRegistry);
+        this.adminPush = Timer.builder("notification.websocket.push")
+                .tag("destination", "admin_acks")
+                .register(meterRegistry);
     }
 
-    @KafkaListener(topics = "inapp_notifications", groupId = "inapp-group")
-    public void listen(ConsumerRecord<String, String> record, Acknowledgment ack) {
-        try {
-            String[] parts = record.value().split("\\|", 2);
-            if (parts.length < 2) {
-                ack.acknowledge();
-                return;
-            }
-
-            String studentId = parts[0];
-            String message = parts[1];
-
-            NotificationMessage notification = new NotificationMessage();
-            notification.setStudentId(studentId);
-            notification.setMessage(message);
-            notification.setSent(true);
-            notification.setCreatedAt(LocalDateTime.now());
-
-            repo.save(notification);
-
-            messagingTemplate.convertAndSend("/topic/notifications/" + studentId, notification);
-
-            System.out.println("📨 Sent WebSocket notification to student: " + studentId);
-        } finally {
-            ack.acknowledge();
-        }
+    /**
+     * Pushes to WebSocket right away and hands the row to the write-behind buffer,
+     * which acknowledges the record once it is flushed to the database.
+     */
+    @KafkaListener(topics = "inapp_notifications", groupId = "inapp-group",
+            concurrency = "${notification.kafka.inapp.partitions:3}")
+    public void listen(ConsumerRecord<String, NotificationEnvelope> record, Acknowledgment ack) {
+        inApp.accept(record, ack);
     }
-    @KafkaListener(topics = "ack_notifications", groupId = "ack-group")
-    public void listenAck(ConsumerRecord<String, String> record, Acknowledgment ack) {
+
+    /**
+     * Forwards free-text acks one by one. Acks that name a notification are left to
+     * the Kafka Streams aggregation, which pushes rate-bounded summaries instead.
+     */
+    @KafkaListener(topics = "ack_notifications", groupId = "ack-group",
+            concurrency = "${notification.kafka.ack.partitions:3}")
+    public void listenAck(ConsumerRecord<String, NotificationEnvelope> record, Acknowledgment ack) {
         try {
-            String[] parts = record.value().split("\\|", 2);
-            if (parts.length < 2) {
-                ack.acknowledge();
+            String studentId = NotificationEnvelope.recipientOf(record);
+            String message = record.value().body();
+            if (studentId == null || message == null
+                    || record.value().variables().containsKey(InAppNotificationProducer.ACK_NOTIFICATION_ID)) {
                 return;
             }
 
-            String studentId = parts[0];
-            String message = parts[1];
-
-            // Send this ACK to admin WebSocket topic
-            messagingTemplate.convertAndSend("/topic/admin/acks",
-                    String.format("{\"studentId\":\"%s\", \"message\":\"%s\"}", studentId, message));
-
-            System.out.println("✅ ACK received from student " + studentId + ": " + message);
+            adminPush.record(() -> messagingTemplate.convertAndSend("/topic/admin/acks",
+                    Map.of("studentId", studentId, "message", message)));
+            acksForwarded.increment();
+            log.info("ack.forwarded", "studentId", studentId, "partition", record.partition(), "offset", record.offset());
         } finally {
             ack.acknowledge();
         }
@@ -1,26 +1,70 @@
 package com.example.ApacheKafka.service;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.util.SampledLogger;
+
 @Service
 public class InAppNotificationProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    /** Ack envelope variable naming the acknowledged notification's message id. */
+    public static final String ACK_NOTIFICATION_ID = "notificationId";
+
+    private static final SampledLogger log = SampledLogger.of(InAppNotificationProducer.class);
 
-    public InAppNotificationProducer(KafkaTemplate<String, String> kafkaTemplate) {
+    private final KafkaTemplate<String, NotificationEnvelope> kafkaTemplate;
+    private final PublishMetrics metrics;
+
+    public InAppNotificationProducer(KafkaTemplate<String, NotificationEnvelope> kafkaTemplate, PublishMetrics metrics) {
         this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
     }
     // admin -> student
     public void sendNotification(String studentId, String message) {
-        System.out.println("Publishing to Kafka → " + studentId + " | " + message);
-        kafkaTemplate.send("inapp_notifications", studentId + "|" + message);
+        sendNotification(studentId, message, false);
+    }
+
+    /** @param urgent push in its own frame right away instead of waiting for the coalescing interval */
+    public CompletableFuture<SendResult<String, NotificationEnvelope>> sendNotification(String studentId, String message,
+                                                                                        boolean urgent) {
+        log.info("inapp.publish", "studentId", studentId, "urgent", urgent);
+        NotificationEnvelope envelope = NotificationEnvelope.of(Channel.IN_APP, message)
+                .withFlags(urgent ? NotificationEnvelope.FLAG_URGENT : 0);
+        return metrics.record("inapp_notifications", kafkaTemplate.send("inapp_notifications", studentId, envelope));
+    }
+
+    /**
+     * Sends one message to many students under a single message id, so their acks
+     * aggregate into one notification on the admin dashboard.
+     *
+     * @return the shared message id
+     */
+    public UUID sendAnnouncement(Collection<String> studentIds, String message) {
+        UUID notificationId = UUID.randomUUID();
+        NotificationEnvelope envelope = new NotificationEnvelope(notificationId, Channel.IN_APP, 0, null, null, message, null);
+        for (String studentId : studentIds) {
+            metrics.record("inapp_notifications", kafkaTemplate.send("inapp_notifications", studentId, envelope));
+        }
+        log.info("inapp.announce", "notificationId", notificationId, "recipients", studentIds.size());
+        return notificationId;
     }
+
     // student -> admin
-    public void sendAck(String studentId, String message) {
-        System.out.println("Publishing ACK to Kafka → " + studentId + " | " + message);
-        kafkaTemplate.send("ack_notifications", studentId + "|" + message);
+    /** @param notificationId message id of the acknowledged notification; {@code null} for free-text acks */
+    public void sendAck(String studentId, String notificationId, String message) {
+        log.info("ack.publish", "studentId", studentId);
+        Map<String, String> variables = notificationId != null ? Map.of(ACK_NOTIFICATION_ID, notificationId) : null;
+        NotificationEnvelope envelope = new NotificationEnvelope(UUID.randomUUID(), Channel.ACK, 0, null, variables, message, null);
+        metrics.record("ack_notifications", kafkaTemplate.send("ack_notifications", studentId, envelope));
     }
 
 }
-
@@ -0,0 +1,233 @@
+package com.example.ApacheKafka.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ApacheKafka.config.AsyncSchedulerConfig;
+import com.example.ApacheKafka.entity.NotificationMessage;
+import com.example.ApacheKafka.repository.InboxCounterRepository;
+import com.example.ApacheKafka.repository.NotificationRepository;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Write-behind stage for in-app notifications. The consumer pushes to WebSocket
+ * and enqueues here; a single flusher thread inserts queued rows in JDBC batches
+ * and only then acknowledges the records, so a crash before a flush leads to
+ * redelivery rather than loss. The queue is bounded: if the database falls behind,
+ * {@link #enqueue} blocks the listener thread and consumption slows down. Rows the
+ * database rejects are dead-lettered so they do not block the queue.
+ */
+@Service
+public class InAppWriteBehindBuffer implements ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(InAppWriteBehindBuffer.class);
+    private static final long FAILED_FLUSH_BACKOFF_MS = 2000;
+
+    private final NotificationRepository repo;
+    private final InboxCounterRepository counters;
+    private final TransactionTemplate tx;
+    private final JdbcTemplate jdbc;
+    private final ResourceGate dbGate;
+    private final DeadLetterPublishingRecoverer deadLetters;
+    private final RecentInboxCache recentCache;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final BlockingQueue<Pending> queue;
+    private final Thread flusher;
+    private final Timer flushTimer;
+    private volatile boolean running = true;
+
+    public InAppWriteBehindBuffer(NotificationRepository repo, InboxCounterRepository counters,
+                                  TransactionTemplate tx, JdbcTemplate jdbc, ResourceGate dbGate,
+                                  RecentInboxCache recentCache, DeadLetterPublishingRecoverer deadLetters,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notification.inapp.write-behind.batch-size:50}") int batchSize,
+                                  @Value("${notification.inapp.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${notification.inapp.write-behind.queue-capacity:5000}") int queueCapacity) {
+        this.repo = repo;
+        this.counters = counters;
+        this.tx = tx;
+        this.jdbc = jdbc;
+        this.dbGate = dbGate;
+        this.recentCache = recentCache;
+        this.deadLetters = deadLetters;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flusher = new Thread(this::flushLoop, "InAppWriteBehind");
+        this.flusher.setDaemon(true);
+        this.flushTimer = Timer.builder("notification.db.write")
+                .description("Database write time, excluding the wait for a database permit")
+                .tag("op", "inapp_flush")
+                .register(meterRegistry);
+        Gauge.builder("notification.inapp.write-behind.queued", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    /**
+     * Moves tables created under the old IDENTITY ids onto {@code notification_message_seq}
+     * (which Hibernate creates), then starts flushing. This is the only place that
+     * migration lives; it is idempotent, so it runs on every start.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbc.execute("ALTER TABLE notification_message ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbc.execute("SELECT setval('notification_message_seq', GREATEST(" +
+                "(SELECT COALESCE(MAX(id), 1) FROM notification_message), " +
+                "(SELECT last_value FROM notification_message_seq)))");
+        flusher.start();
+    }
+
+    /**
+     * Queues a record for persistence. {@code notification} may be {@code null} for
+     * records that only need acknowledging, which keeps acks in offset order.
+     */
+    public void enqueue(ConsumerRecord<?, ?> record, Acknowledgment ack, NotificationMessage notification) {
+        try {
+            queue.put(new Pending(record, new TopicPartition(record.topic(), record.partition()), ack, notification));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing in-app notification", e);
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                flushBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (!running) continue;
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Keep what is left of the batch and retry; none of it has been acknowledged yet.
+                log.warn("In-app write-behind flush of {} rows failed, retrying: {}", batch.size(), e.getMessage());
+                try {
+                    Thread.sleep(FAILED_FLUSH_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    if (running) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction. If that fails while the database is up,
+     * a row in it is bad (a message too long for its column, say): the batch is
+     * written row by row instead, and rows that still fail go to the DLT, so one
+     * poison row does not hold back the partition. Handled entries are removed from
+     * {@code batch}; an outage leaves the rest in it for the next retry.
+     */
+    private void flushBatch(List<Pending> batch) {
+        try {
+            flush(batch);
+            return;
+        } catch (RuntimeException e) {
+            forgetIds(batch);
+            if (!isRowFailure(e)) throw e;
+            log.warn("In-app write-behind batch of {} rows rejected, writing row by row: {}", batch.size(), e.getMessage());
+        }
+        for (Iterator<Pending> it = batch.iterator(); it.hasNext(); ) {
+            Pending pending = it.next();
+            try {
+                flush(List.of(pending));
+            } catch (RuntimeException e) {
+                forgetIds(List.of(pending));
+                if (!isRowFailure(e)) throw e;
+                log.warn("In-app notification {} rejected, dead-lettering it: {}", pending.record.offset(), e.getMessage());
+                deadLetters.accept(pending.record, e);
+                pending.ack.acknowledge();
+            }
+            it.remove();
+        }
+    }
+
+    /** An open breaker or an outage is retried; anything else is blamed on the rows. */
+    private static boolean isRowFailure(Exception e) {
+        return !(e instanceof CircuitOpenException) && !AsyncSchedulerConfig.isDatabaseOutage(e);
+    }
+
+    /** Ids drawn for a rolled-back insert would make the retry look like an update of a missing row. */
+    private static void forgetIds(List<Pending> batch) {
+        for (Pending pending : batch) {
+            if (pending.notification != null) pending.notification.setId(null);
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<NotificationMessage> rows = new ArrayList<>(batch.size());
+        Map<String, Long> unreadDeltas = new LinkedHashMap<>();
+        Map<TopicPartition, Acknowledgment> lastAckPerPartition = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            if (pending.notification != null) {
+                rows.add(pending.notification);
+                unreadDeltas.merge(pending.notification.getStudentId(), 1L, Long::sum);
+            }
+            lastAckPerPartition.put(pending.partition, pending.ack);
+        }
+
+        if (!rows.isEmpty()) {
+            dbGate.run(() -> flushTimer.record(() -> tx.executeWithoutResult(status -> {
+                repo.saveAll(rows);
+                unreadDeltas.forEach(counters::increment);
+            })));
+            // Committed: a failure past this point must not send the batch back for a second write.
+            try {
+                recentCache.recordFlushed(rows);
+            } catch (RuntimeException e) {
+                log.warn("Inbox cache update after flushing {} rows failed: {}", rows.size(), e.getMessage());
+            }
+        }
+        // Acknowledging the last record of each partition commits the whole run before it.
+        lastAckPerPartition.values().forEach(Acknowledgment::acknowledge);
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(10_000);
+    }
+
+    private record Pending(ConsumerRecord<?, ?> record, TopicPartition partition, Acknowledgment ack, NotificationMessage notification) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.ApacheKafka.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+/**
+ * Bounded per-partition window of records handed off to asynchronous workers.
+ * <p>
+ * Offsets are acknowledged only up to the highest contiguous completed record,
+ * so a crash never commits past work that has not finished. When a partition has
+ * {@code highWatermark} records in flight it is paused on the listener container,
+ * and it is resumed once completions bring it back down to {@code lowWatermark}.
+ * The container only applies a resume between polls, so the listener poll timeout
+ * bounds how long a drained partition stays idle.
+ */
+public class InFlightWindow {
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final String listenerId;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    public InFlightWindow(KafkaListenerEndpointRegistry registry, String listenerId, int highWatermark, int lowWatermark) {
+        if (lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("Require 0 <= lowWatermark < highWatermark");
+        }
+        this.registry = registry;
+        this.listenerId = listenerId;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    /** Registers a record as in flight. Called on the consumer thread before hand-off. */
+    public void begin(ConsumerRecord<?, ?> record, Acknowledgment ack) {
+        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+        PartitionState state = partitions.computeIfAbsent(tp, k -> new PartitionState());
+        synchronized (state) {
+            state.pending.put(record.offset(), new Entry(ack));
+            if (!state.paused && state.pending.size() >= highWatermark) {
+                state.paused = true;
+                MessageListenerContainer container = container();
+                if (container != null) container.pausePartition(tp);
+            }
+        }
+    }
+
+    /** Marks a record finished. Safe to call from any thread. */
+    public void complete(ConsumerRecord<?, ?> record) {
+        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+        PartitionState state = partitions.get(tp);
+        if (state == null) return; // partition was revoked meanwhile
+
+        synchronized (state) {
+            Entry entry = state.pending.get(record.offset());
+            if (entry == null) return;
+            entry.done = true;
+
+            Acknowledgment frontier = null;
+            while (!state.pending.isEmpty() && state.pending.firstEntry().getValue().done) {
+                frontier = state.pending.pollFirstEntry().getValue().ack;
+            }
+            // Acking the highest contiguous record commits everything before it.
+            if (frontier != null) frontier.acknowledge();
+
+            if (state.paused && state.pending.size() <= lowWatermark) {
+                state.paused = false;
+                MessageListenerContainer container = container();
+                if (container != null) container.resumePartition(tp);
+            }
+        }
+    }
+
+    /**
+     * Drops a record that failed on the consumer thread before it was handed off,
+     * without acknowledging it; the container redelivers or recovers it. Nothing
+     * after it on the partition has begun, so later acks cannot commit past it.
+     */
+    public void discard(ConsumerRecord<?, ?> record) {
+        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+        PartitionState state = partitions.get(tp);
+        if (state == null) return;
+
+        synchronized (state) {
+            Entry entry = state.pending.get(record.offset());
+            if (entry == null || entry.done) return;
+            state.pending.remove(record.offset());
+            if (state.paused && state.pending.size() <= lowWatermark) {
+                state.paused = false;
+                MessageListenerContainer container = container();
+                if (container != null) container.resumePartition(tp);
+            }
+        }
+    }
+
+    /** Drops state for partitions this instance no longer owns. */
+    public void forget(Collection<TopicPartition> revoked) {
+        for (TopicPartition tp : revoked) {
+            PartitionState state = partitions.remove(tp);
+            if (state != null && state.paused) {
+                MessageListenerContainer container = container();
+                if (container != null) container.resumePartition(tp);
+            }
+        }
+    }
+
+    public int inFlight(TopicPartition tp) {
+        PartitionState state = partitions.get(tp);
+        if (state == null) return 0;
+        synchronized (state) {
+            return state.pending.size();
+        }
+    }
+
+    private MessageListenerContainer container() {
+        return registry.getListenerContainer(listenerId);
+    }
+
+    private static final class PartitionState {
+        private final TreeMap<Long, Entry> pending = new TreeMap<>();
+        private boolean paused;
+    }
+
+    private static final class Entry {
+        private final Acknowledgment ack;
+        private boolean done;
+
+        private Entry(Acknowledgment ack) {
+            this.ack = ack;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ApacheKafka.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.dto.InboxPage;
+import com.example.ApacheKafka.dto.NotificationView;
+import com.example.ApacheKafka.entity.StudentInboxCounter;
+import com.example.ApacheKafka.repository.InboxCounterRepository;
+import com.example.ApacheKafka.repository.NotificationRepository;
+
+/**
+ * Read side of the student inbox: keyset-paginated history and the maintained
+ * unread counter. Page cost depends only on the page size, not on history length.
+ */
+@Service
+public class InboxService {
+
+    private final NotificationRepository repo;
+    private final InboxCounterRepository counters;
+    private final RecentInboxCache recentCache;
+    private final int maxPageSize;
+
+    public InboxService(NotificationRepository repo, InboxCounterRepository counters, RecentInboxCache recentCache,
+                        @Value("${notification.inbox.max-page-size:100}") int maxPageSize) {
+        this.repo = repo;
+        this.counters = counters;
+        this.recentCache = recentCache;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public InboxPage page(String studentId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        if ((cursor == null || cursor.isBlank()) && size <= recentCache.getRecentSize()) {
+            return firstPageFromCache(studentId, size);
+        }
+        // Fetch one extra row to learn whether another page exists without a COUNT.
+        PageRequest window = PageRequest.of(0, size + 1);
+        List<NotificationView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repo.findInboxFirstPage(studentId, window);
+        } else {
+            Cursor position = Cursor.decode(cursor);
+            rows = repo.findInboxPageBefore(studentId, position.createdAt(), position.id(), window);
+        }
+
+        if (rows.size() <= size) {
+            return new InboxPage(rows, null);
+        }
+        List<NotificationView> items = rows.subList(0, size);
+        NotificationView last = items.get(size - 1);
+        return new InboxPage(List.copyOf(items), new Cursor(last.createdAt(), last.id()).encode());
+    }
+
+    private InboxPage firstPageFromCache(String studentId, int size) {
+        RecentInboxCache.Recent recent = recentCache.get(studentId,
+                rows -> repo.findInboxFirstPage(studentId, PageRequest.of(0, rows)));
+        List<NotificationView> rows = recent.rows();
+        if (rows.size() < size || (rows.size() == size && !recent.hasOlder())) {
+            return new InboxPage(rows, null);
+        }
+        List<NotificationView> items = rows.subList(0, size);
+        NotificationView last = items.get(size - 1);
+        return new InboxPage(List.copyOf(items), new Cursor(last.createdAt(), last.id()).encode());
+    }
+
+    public long unreadCount(String studentId) {
+        return counters.findById(studentId).map(StudentInboxCounter::getUnreadCount).orElse(0L);
+    }
+
+    public void markAllRead(String studentId) {
+        counters.reset(studentId);
+    }
+
+    record Cursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid inbox cursor", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.ApacheKafka.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.routing.ChannelWorkers;
+import com.example.ApacheKafka.routing.NotificationChannel;
+import com.example.ApacheKafka.util.CircuitOpenException;
+
+/**
+ * Batch-mode alternative to {@link NotificationConsumer}, enabled with
+ * {@code notification.email.listener-mode=batch}. Each poll batch goes through
+ * {@link EmailChannel} with {@code send-parallelism} workers from the application
+ * executor and is acknowledged once its outcomes are written.
+ */
+@Service
+@ConditionalOnProperty(name = "notification.email.listener-mode", havingValue = "batch")
+public class NotificationBatchConsumer implements ConsumerSeekAware {
+
+    private final EmailChannel emailChannel;
+    private final ChannelWorkers workers;
+
+    public NotificationBatchConsumer(EmailChannel emailChannel,
+                                     @Qualifier("applicationTaskExecutor") Executor emailExecutor,
+                                     @Value("${notification.email.batch.send-parallelism:4}") int sendParallelism) {
+        this.emailChannel = emailChannel;
+        this.workers = new ChannelWorkers(emailExecutor, sendParallelism);
+    }
+
+    @KafkaListener(topics = "email_notifications", groupId = "email-group", batch = "true",
+            concurrency = "${notification.kafka.email.partitions:3}",
+            properties = "max.poll.records=${notification.email.batch.max-poll-records:500}")
+    public void listen(List<ConsumerRecord<String, NotificationEnvelope>> records, Acknowledgment ack) {
+        try {
+            emailChannel.deliver(records, workers);
+        } catch (CircuitOpenException e) {
+            // Paused by the breaker coordinator; the batch comes back once the listener resumes.
+            ack.nack(0, NotificationChannel.REFUSED_BATCH_BACKOFF);
+            return;
+        }
+        ack.acknowledge();
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        emailChannel.onPartitionsAssigned();
+    }
+}
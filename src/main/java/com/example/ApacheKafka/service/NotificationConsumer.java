@@ -1,93 +1,267 @@
 package com.example.ApacheKafka.service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import com.example.ApacheKafka.entity.FailedMessage;
+import com.example.ApacheKafka.messaging.DedupKey;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
 import com.example.ApacheKafka.repository.FailedMessageRepository;
+import com.example.ApacheKafka.routing.NotificationChannel;
+import com.example.ApacheKafka.template.NotificationTemplateService;
+import com.example.ApacheKafka.template.NotificationTemplateService.Rendered;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.ResourceGate;
+import com.example.ApacheKafka.util.SampledLogger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
-public class NotificationConsumer {
+@ConditionalOnProperty(name = "notification.email.listener-mode", havingValue = "record", matchIfMissing = true)
+public class NotificationConsumer implements ConsumerSeekAware {
+
+    static final String LISTENER_ID = "email-listener";
+
+    private static final SampledLogger log = SampledLogger.of(NotificationConsumer.class);
 
-    private final JavaMailSender mailSender;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long[] BACKOFF_MS = {60000, 300000}; // 1 min, 5 min between attempts
+
+    private final EmailService emailService;
     private final Executor emailExecutor;
     private final FailedMessageRepository repo;
+    private final DelayedRetryScheduler retryScheduler;
+    private final ResourceGate dbGate;
+    private final InFlightWindow window;
+    private final RetryService retryQueue;
+    private final SentMessageFilter sentFilter;
+    private final NotificationTemplateService templates;
+    private final DeadLetterPublishingRecoverer deadLetters;
+    private final boolean deadLetterFailures;
+    private final Timer outcomeWrite;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter duplicateCounter;
+    private final Counter skippedCounter;
+    private final Counter deadLetteredCounter;
 
-    public NotificationConsumer(JavaMailSender mailSender,
+    public NotificationConsumer(EmailService emailService,
                                 @Qualifier("applicationTaskExecutor") Executor emailExecutor,
-                                FailedMessageRepository repo) {
-        this.mailSender = mailSender;
+                                FailedMessageRepository repo,
+                                DelayedRetryScheduler retryScheduler,
+                                ResourceGate dbGate,
+                                RetryService retryQueue,
+                                SentMessageFilter sentFilter,
+                                NotificationTemplateService templates,
+                                DeadLetterPublishingRecoverer deadLetters,
+                                KafkaListenerEndpointRegistry registry,
+                                MeterRegistry meterRegistry,
+                                @Value("${notification.email.window.high-watermark:20}") int highWatermark,
+                                @Value("${notification.email.window.low-watermark:5}") int lowWatermark,
+                                @Value("${notification.email.dead-letter-failures:false}") boolean deadLetterFailures) {
+        this.emailService = emailService;
         this.emailExecutor = emailExecutor;
         this.repo = repo;
+        this.retryScheduler = retryScheduler;
+        this.dbGate = dbGate;
+        this.retryQueue = retryQueue;
+        this.sentFilter = sentFilter;
+        this.templates = templates;
+        this.deadLetters = deadLetters;
+        this.deadLetterFailures = deadLetterFailures;
+        this.window = new InFlightWindow(registry, LISTENER_ID, highWatermark, lowWatermark);
+        this.outcomeWrite = Timer.builder("notification.db.write").tag("op", "email_outcome").register(meterRegistry);
+        this.sentCounter = emailOutcomeCounter(meterRegistry, "sent");
+        this.failedCounter = emailOutcomeCounter(meterRegistry, "failed");
+        this.duplicateCounter = emailOutcomeCounter(meterRegistry, "duplicate");
+        this.skippedCounter = emailOutcomeCounter(meterRegistry, "skipped");
+        this.deadLetteredCounter = emailOutcomeCounter(meterRegistry, "dead_lettered");
+    }
+
+    static Counter emailOutcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("notification.email.outcome")
+                .description("Email records by final outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
-    @KafkaListener(topics = "email_notifications", groupId = "email-group", concurrency = "2")
-    public void listen(ConsumerRecord<String, String> record, Acknowledgment ack) {
-        String message = record.value();
-        String[] parts = message.split("\\|", 2);
+    /**
+     * Hands each record to the email executor. The offset is committed by the
+     * {@link InFlightWindow} once the record and everything before it on the
+     * partition has a final outcome, not at hand-off. A record that fails before
+     * hand-off leaves the window again, so the error handler's retry or recovery
+     * decides its fate and the partition keeps committing. A lookup refused by an
+     * open breaker is nacked instead, like the batch listener does.
+     */
+    @KafkaListener(id = LISTENER_ID, topics = "email_notifications", groupId = "email-group",
+            concurrency = "${notification.kafka.email.partitions:3}")
+    public void listen(ConsumerRecord<String, NotificationEnvelope> record, Acknowledgment ack) {
+        window.begin(record, ack);
+        try {
+            dispatch(record);
+        } catch (CircuitOpenException e) {
+            // The db breaker refused the lookup. The coordinator pauses the listener;
+            // the record is fetched again instead of burning retries into the DLT.
+            window.discard(record);
+            ack.nack(NotificationChannel.REFUSED_BATCH_BACKOFF);
+        } catch (RuntimeException | Error e) {
+            window.discard(record);
+            throw e;
+        }
+    }
 
-        if (parts.length < 2) {
-            ack.acknowledge();
+    private void dispatch(ConsumerRecord<String, NotificationEnvelope> record) {
+        String to = NotificationEnvelope.recipientOf(record);
+        Optional<Rendered> rendered;
+        try {
+            rendered = templates.render(record.value());
+        } catch (IllegalArgumentException e) {
+            // Unknown template or bad template syntax. If the DLT write throws, the
+            // error handler redelivers the record.
+            log.warn("email.deadlettered", "partition", record.partition(), "offset", record.offset(), "error", e.getMessage());
+            deadLetters.accept(record, e);
+            deadLetteredCounter.increment();
+            window.complete(record);
             return;
         }
 
-        String to = parts[0].trim();
-        String body = parts[1];
-
-        emailExecutor.execute(() -> {
-            int maxRetries = 3;
-            int attempt = 0;
-            long[] backoff = {60000, 300000, 900000}; // 1 min, 5 min, 15 min in ms
-            boolean sent = false;
-            Exception lastException = null;
-
-            while (attempt < maxRetries && !sent) {
-                try {
-                    SimpleMailMessage mail = new SimpleMailMessage();
-                    mail.setTo(to);
-                    mail.setSubject("Kafka Notification");
-                    mail.setText(body);
-                    mailSender.send(mail);
-                    sent = true;
-                } catch (Exception e) {
-                    lastException = e;
-                    try {
-                        Thread.sleep(backoff[attempt]);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-                attempt++;
-            }
+        if (to == null || rendered.isEmpty()) {
+            skippedCounter.increment();
+            window.complete(record);
+            return;
+        }
+
+        String body = rendered.get().body();
+        Email email = new Email(DedupKey.of(record, to, body), to, rendered.get().subject(), body);
+        // The bloom filter answers most fresh messages without touching the database.
+        if (sentFilter.mightBeSent(email.dedupKey()) && dbGate.get(() -> repo.existsByDedupKeyAndSentTrue(email.dedupKey()))) {
+            duplicateCounter.increment();
+            log.info("email.duplicate", "to", to, "partition", record.partition(), "offset", record.offset());
+            window.complete(record);
+            return;
+        }
+
+        try {
+            emailExecutor.execute(() -> attemptDelivery(record, email, 0));
+        } catch (RejectedExecutionException saturated) {
+            // Executor is full: do the first attempt here, which also slows the consumer down.
+            attemptDelivery(record, email, 0);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // Records redelivered from another instance may already be sent; catch up first.
+        sentFilter.refresh();
+    }
 
-            FailedMessage failed = repo.findByRecipientAndBody(to, body)
-                    .orElseGet(FailedMessage::new);
-            failed.setRecipient(to);
-            failed.setBody(body);
-            failed.setLastTriedAt(LocalDateTime.now());
-            if (failed.getCreatedAt() == null) failed.setCreatedAt(LocalDateTime.now());
-
-            if (sent) {
-                failed.setSent(true);
-                failed.setError(null);
-                repo.save(failed);
-                System.out.println("Email sent successfully to " + to);
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        window.forget(partitions);
+    }
+
+    /**
+     * Makes one delivery attempt. On failure the next attempt is parked on the
+     * {@link DelayedRetryScheduler} so no worker thread is held during the backoff.
+     * A send refused by the open {@code smtp} breaker does not use up an attempt.
+     */
+    private void attemptDelivery(ConsumerRecord<String, NotificationEnvelope> record, Email email, int attempt) {
+        try {
+            emailService.sendEmail(email.to(), email.subject(), email.body());
+        } catch (CircuitOpenException e) {
+            retryScheduler.schedule(() -> attemptDelivery(record, email, attempt), BACKOFF_MS[0], emailExecutor);
+            return;
+        } catch (Exception e) {
+            if (attempt + 1 < MAX_ATTEMPTS) {
+                retryScheduler.schedule(() -> attemptDelivery(record, email, attempt + 1), BACKOFF_MS[attempt], emailExecutor);
             } else {
-                failed.setSent(false);
-                failed.setError(lastException != null ? lastException.getMessage() : "Unknown error");
-                repo.save(failed);
-                System.out.println("Failed to send email to " + to + " after retries: " + (lastException != null ? lastException.getMessage() : "Unknown error"));
+                recordOutcome(record, email, e);
+            }
+            return;
+        }
+        recordOutcome(record, email, null);
+    }
+
+    private void recordOutcome(ConsumerRecord<String, NotificationEnvelope> record, Email email, Exception lastException) {
+        try {
+            LocalDateTime retryAt = lastException == null ? null : failureRetryAt(record, lastException);
+            dbGate.run(() -> outcomeWrite.record(() -> saveOutcome(email, lastException, retryAt)));
+        } catch (Exception e) {
+            log.warn("email.outcome.write.failed", "to", email.to(), "error", e.getMessage());
+        } finally {
+            window.complete(record);
+        }
+    }
+
+    /**
+     * With {@code notification.email.dead-letter-failures} the record goes to
+     * {@code email_notifications.DLT} for bulk replay and the retry queue leaves it
+     * alone; if the DLT cannot be written either, it falls back to the retry queue.
+     */
+    private LocalDateTime failureRetryAt(ConsumerRecord<String, NotificationEnvelope> record, Exception lastException) {
+        if (deadLetterFailures) {
+            try {
+                deadLetters.accept(record, lastException);
+                return null;
+            } catch (RuntimeException e) {
+                log.warn("email.deadletter.failed", "partition", record.partition(), "offset", record.offset(), "error", e.getMessage());
             }
-        });
-        ack.acknowledge();
+        }
+        return retryQueue.firstAttemptAfter(LocalDateTime.now());
+    }
+
+    /** @param retryAt when the retry queue should pick up a failed send; {@code null} if it should not */
+    private void saveOutcome(Email email, Exception lastException, LocalDateTime retryAt) {
+        String to = email.to();
+        FailedMessage failed = repo.findByDedupKey(email.dedupKey())
+                .orElseGet(FailedMessage::new);
+        failed.setDedupKey(email.dedupKey());
+        failed.setRecipient(to);
+        failed.setSubject(email.subject());
+        failed.setBody(email.body());
+        failed.setLastTriedAt(LocalDateTime.now());
+        if (failed.getCreatedAt() == null) failed.setCreatedAt(LocalDateTime.now());
+
+        if (lastException == null) {
+            failed.setSent(true);
+            failed.setError(null);
+            failed.setRetryCount(0);
+            failed.setNextAttemptAt(null);
+            repo.save(failed);
+            sentFilter.recordSent(email.dedupKey());
+            sentCounter.increment();
+            log.info("email.sent", "to", to);
+        } else if (failed.isSent()) {
+            // A concurrent duplicate was delivered; this failure must not undo that.
+            duplicateCounter.increment();
+        } else {
+            failed.setSent(false);
+            failed.setError(lastException.getMessage() != null ? lastException.getMessage() : "Unknown error");
+            failed.setNextAttemptAt(retryAt);
+            repo.save(failed);
+            failedCounter.increment();
+            log.warn("email.failed", "to", to, "error", failed.getError());
+        }
+    }
+
+    private record Email(String dedupKey, String to, String subject, String body) {
     }
 }
@@ -1,19 +1,48 @@
 package com.example.ApacheKafka.service;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+
 @Service
 public class NotificationProducer {
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private static final String TOPIC = "email_notifications";
 
-    public NotificationProducer(KafkaTemplate<String, String> kafkaTemplate) {
+    private final KafkaTemplate<String, NotificationEnvelope> kafkaTemplate;
+    private final PublishMetrics metrics;
+
+    public NotificationProducer(KafkaTemplate<String, NotificationEnvelope> kafkaTemplate, PublishMetrics metrics) {
         this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+    }
+
+    public CompletableFuture<SendResult<String, NotificationEnvelope>> sendNotification(String email, String message) {
+        return sendNotification(email, message, false);
+    }
+
+    /** @param urgent send on its own even when digests are enabled */
+    public CompletableFuture<SendResult<String, NotificationEnvelope>> sendNotification(String email, String message, boolean urgent) {
+        String recipient = email.trim();
+        NotificationEnvelope envelope = NotificationEnvelope.of(Channel.EMAIL, message)
+                .withFlags(urgent ? NotificationEnvelope.FLAG_URGENT : 0);
+        ProducerRecord<String, NotificationEnvelope> record = new ProducerRecord<>(TOPIC, recipient, envelope);
+        return metrics.record(TOPIC, kafkaTemplate.send(record));
     }
 
-    public void sendNotification(String email, String message) {
-        System.out.println("Sending to Kafka → " + email + " | " + message);
-        kafkaTemplate.send("email_notifications", email + "|" + message);
+    /** Publishes a reference to {@code templateId}; the consumer renders it with {@code variables}. */
+    public CompletableFuture<SendResult<String, NotificationEnvelope>> sendTemplated(String email, String templateId,
+                                                                                     Map<String, String> variables) {
+        String recipient = email.trim();
+        ProducerRecord<String, NotificationEnvelope> record = new ProducerRecord<>(TOPIC, recipient,
+                NotificationEnvelope.ofTemplate(Channel.EMAIL, templateId, variables));
+        return metrics.record(TOPIC, kafkaTemplate.send(record));
     }
 
 }
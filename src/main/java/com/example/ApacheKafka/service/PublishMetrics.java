@@ -0,0 +1,32 @@
+package com.example.ApacheKafka.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every publish from {@code send()} until the broker acknowledges it
+ * ({@code acks=all}), as {@code notification.publish} tagged by topic and outcome.
+ */
+@Component
+public class PublishMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public PublishMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <K, V> CompletableFuture<SendResult<K, V>> record(String topic, CompletableFuture<SendResult<K, V>> send) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return send.whenComplete((result, error) -> sample.stop(Timer.builder("notification.publish")
+                .description("Time from publish to broker acknowledgement")
+                .tag("topic", topic)
+                .tag("outcome", error == null ? "acked" : "failed")
+                .register(meterRegistry)));
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.ApacheKafka.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.dto.NotificationView;
+import com.example.ApacheKafka.entity.NotificationMessage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Newest {@code N} inbox rows per student, kept in front of {@link InboxService}'s
+ * first page. Entries are loaded from the database once and then kept current
+ * write-through by {@link InAppWriteBehindBuffer} after each flush. Entries are
+ * bounded by student count and expire when idle.
+ * <p>
+ * Other instances learn about new rows through the {@code inbox_cache_invalidation}
+ * topic: one record per flush, keyed by the sending instance's id, whose value is
+ * the affected student ids, one per line. Every instance reads all partitions of
+ * the topic from its end with a group-less consumer, so restarts leave no consumer
+ * groups behind.
+ */
+@Service
+public class RecentInboxCache implements ApplicationRunner, DisposableBean {
+
+    static final String INVALIDATION_TOPIC = "inbox_cache_invalidation";
+
+    private static final Logger log = LoggerFactory.getLogger(RecentInboxCache.class);
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final Cache<String, Recent> cache;
+    private final KafkaOperations<String, byte[]> rawTemplate;
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final int recentSize;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Thread listener;
+    private volatile boolean running = true;
+
+    public RecentInboxCache(@Qualifier("rawKafkaTemplate") KafkaOperations<String, byte[]> rawTemplate,
+                            ConsumerFactory<?, ?> consumerFactory, MeterRegistry meterRegistry,
+                            @Value("${notification.inbox.cache.recent-size:50}") int recentSize,
+                            @Value("${notification.inbox.cache.max-students:100000}") long maxStudents,
+                            @Value("${notification.inbox.cache.idle-expiry-minutes:30}") long idleExpiryMinutes) {
+        this.rawTemplate = rawTemplate;
+        this.consumerFactory = consumerFactory;
+        this.recentSize = recentSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxStudents)
+                .expireAfterAccess(Duration.ofMinutes(idleExpiryMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "inbox.recent");
+        this.listener = new Thread(this::listen, "InboxCacheInvalidation");
+        this.listener.setDaemon(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        listener.start();
+    }
+
+    public int getRecentSize() {
+        return recentSize;
+    }
+
+    /**
+     * The student's newest rows. {@code loader} is called on a miss with the number
+     * of rows to fetch ({@code recentSize + 1}, so the entry knows whether older rows exist).
+     */
+    public Recent get(String studentId, Function<Integer, List<NotificationView>> loader) {
+        return cache.get(studentId, id -> {
+            List<NotificationView> rows = loader.apply(recentSize + 1);
+            boolean hasOlder = rows.size() > recentSize;
+            return new Recent(List.copyOf(hasOlder ? rows.subList(0, recentSize) : rows), hasOlder);
+        });
+    }
+
+    /** Applies freshly committed rows to cached students and tells other instances in one record. */
+    public void recordFlushed(List<NotificationMessage> rows) {
+        Map<String, List<NotificationView>> byStudent = new LinkedHashMap<>();
+        for (NotificationMessage row : rows) {
+            byStudent.computeIfAbsent(row.getStudentId(), id -> new ArrayList<>())
+                    .add(new NotificationView(row.getId(), row.getMessage(), row.getCreatedAt()));
+        }
+        // Students without an entry load it on their next read; no point creating a partial one.
+        byStudent.forEach((studentId, added) ->
+                cache.asMap().computeIfPresent(studentId, (id, recent) -> recent.prepend(added, recentSize)));
+
+        byte[] studentIds = String.join("\n", byStudent.keySet()).getBytes(StandardCharsets.UTF_8);
+        rawTemplate.send(INVALIDATION_TOPIC, instanceId, studentIds).whenComplete((result, ex) -> {
+            if (ex != null) log.warn("Inbox cache invalidation for {} students not sent: {}", byStudent.size(), ex.getMessage());
+        });
+    }
+
+    /** Drops the entries named by an invalidation record unless this instance sent it. */
+    void onInvalidation(String origin, String studentIds) {
+        if (origin == null || studentIds == null || instanceId.equals(origin)) return;
+        for (String studentId : studentIds.split("\n")) {
+            if (!studentId.isEmpty()) cache.invalidate(studentId);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Consumer<String, String> consumer = createConsumer()) {
+                List<TopicPartition> partitions = new ArrayList<>();
+                for (PartitionInfo info : consumer.partitionsFor(INVALIDATION_TOPIC)) {
+                    partitions.add(new TopicPartition(info.topic(), info.partition()));
+                }
+                if (partitions.isEmpty()) throw new IllegalStateException("No topic " + INVALIDATION_TOPIC + " yet");
+                consumer.assign(partitions);
+                // Only rows flushed from now on matter; entries loaded before were read after their commit.
+                consumer.seekToEnd(partitions);
+                while (running) {
+                    for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT)) {
+                        onInvalidation(record.key(), record.value());
+                    }
+                }
+            } catch (InterruptException e) {
+                if (running) log.warn("Inbox cache invalidation listener interrupted");
+                return;
+            } catch (RuntimeException e) {
+                // Entries may be stale until the listener is back; they still expire when idle.
+                log.warn("Inbox cache invalidation listener failed, restarting: {}", e.getMessage());
+                try {
+                    Thread.sleep(POLL_TIMEOUT.toMillis());
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Consumer<String, String> createConsumer() {
+        Map<String, Object> config = new HashMap<>(consumerFactory.getConfigurationProperties());
+        // No group: partitions are assigned by hand and offsets are never committed.
+        config.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.CLIENT_ID_CONFIG, "inbox-cache-" + instanceId.substring(0, 8));
+        return new KafkaConsumer<>(config, new StringDeserializer(), new StringDeserializer());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join(5_000);
+    }
+
+    /**
+     * Newest-first rows for one student.
+     *
+     * @param rows     at most {@code recentSize} rows
+     * @param hasOlder whether the database holds rows older than the last one here
+     */
+    public record Recent(List<NotificationView> rows, boolean hasOlder) {
+
+        Recent prepend(List<NotificationView> oldestFirst, int limit) {
+            List<NotificationView> merged = new ArrayList<>(rows.size() + oldestFirst.size());
+            for (int i = oldestFirst.size() - 1; i >= 0; i--) {
+                NotificationView view = oldestFirst.get(i);
+                // A load racing with the flush may already contain the row.
+                if (!containsId(view.id())) merged.add(view);
+            }
+            merged.addAll(rows);
+            boolean older = hasOlder || merged.size() > limit;
+            return new Recent(List.copyOf(merged.size() > limit ? merged.subList(0, limit) : merged), older);
+        }
+
+        private boolean containsId(Long id) {
+            for (NotificationView row : rows) {
+                if (row.id().equals(id)) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -1,52 +1,246 @@
 package com.example.ApacheKafka.service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.example.ApacheKafka.entity.FailedMessage;
-import com.example.ApacheKafka.repository.FailedMessageRepository;
+import com.example.ApacheKafka.repository.RetryQueueRepository;
+import com.example.ApacheKafka.repository.RetryQueueRepository.ClaimedRetry;
+import com.example.ApacheKafka.repository.RetryQueueRepository.RetryResult;
+import com.example.ApacheKafka.repository.RetryQueueRepository.Backlog;
+import com.example.ApacheKafka.util.CircuitBreaker;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 
+/**
+ * Drains the {@code failed_message} retry queue. Each worker claims a chunk of due
+ * rows with {@code FOR UPDATE SKIP LOCKED}, sends it outside any transaction and
+ * writes the outcomes back in one batch, so any number of workers and instances
+ * can drain in parallel. Failures are rescheduled with exponential backoff.
+ * <p>
+ * Nothing is drained unless the {@code smtp} breaker is closed and the {@code db}
+ * breaker is not open. Sends refused by a breaker that opened mid-chunk are put
+ * back without using up a retry.
+ */
 @Service
-public class RetryService {
+public class RetryService implements ApplicationRunner, DisposableBean {
+
+    static final int MAX_RETRIES = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(RetryService.class);
 
     private final EmailService emailService;
-    private final FailedMessageRepository repo;
+    private final RetryQueueRepository queue;
+    private final ResourceGate dbGate;
+    private final CircuitBreaker smtpBreaker;
+    private final Executor emailExecutor;
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final int sendParallelism;
+    private final int chunkSize;
+    private final long leaseMs;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final long archiveAfterDays;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong backlogLive = new AtomicLong();
+    private final AtomicLong backlogDue = new AtomicLong();
+    private final Counter retriesSent;
+    private final Counter retriesFailed;
+    private final Counter retriesExhausted;
 
-    public RetryService(EmailService emailService, FailedMessageRepository repo) {
+    public RetryService(EmailService emailService, RetryQueueRepository queue, ResourceGate dbGate, MeterRegistry meterRegistry,
+                        @Qualifier("smtpCircuitBreaker") CircuitBreaker smtpBreaker,
+                        @Qualifier("applicationTaskExecutor") Executor emailExecutor,
+                        @Value("${notification.mail.pool.max-size:4}") int sendParallelism,
+                        @Value("${notification.retry.workers:2}") int workerCount,
+                        @Value("${notification.retry.chunk-size:100}") int chunkSize,
+                        @Value("${notification.retry.lease-ms:600000}") long leaseMs,
+                        @Value("${notification.retry.base-backoff-ms:120000}") long baseBackoffMs,
+                        @Value("${notification.retry.max-backoff-ms:3600000}") long maxBackoffMs,
+                        @Value("${notification.retry.archive-after-days:7}") long archiveAfterDays) {
         this.emailService = emailService;
-        this.repo = repo;
+        this.queue = queue;
+        this.dbGate = dbGate;
+        this.smtpBreaker = smtpBreaker;
+        this.emailExecutor = emailExecutor;
+        this.sendParallelism = Math.max(1, sendParallelism);
+        this.workerCount = Math.max(1, workerCount);
+        this.chunkSize = chunkSize;
+        this.leaseMs = leaseMs;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.archiveAfterDays = archiveAfterDays;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.workerCount, r -> {
+            Thread t = new Thread(r, "RetryWorker-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("notification.retry.backlog", backlogLive, AtomicLong::get)
+                .description("failed_message rows waiting for a retry, as of the last poll")
+                .tag("state", "waiting").register(meterRegistry);
+        Gauge.builder("notification.retry.backlog", backlogDue, AtomicLong::get)
+                .tag("state", "due").register(meterRegistry);
+        this.retriesSent = retryCounter(meterRegistry, "sent");
+        this.retriesFailed = retryCounter(meterRegistry, "failed");
+        this.retriesExhausted = retryCounter(meterRegistry, "exhausted");
     }
 
-    private static final int MAX_RETRIES = 3;
+    private static Counter retryCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("notification.retry.attempts").tag("outcome", outcome).register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        queue.prepareSchema(MAX_RETRIES);
+    }
 
-    @Scheduled(fixedRate = 120000) // 2 minutes
-    @Transactional
+    @Scheduled(fixedDelayString = "${notification.retry.poll-interval-ms:5000}")
     public void retryFailedMessages() {
-        List<FailedMessage> failedList = repo.findBySentFalseAndRetryCountLessThan(MAX_RETRIES);
-        if (failedList.isEmpty()) return;
+        // Half-open probes belong to the breaker coordinator, not to a queue full of sends.
+        if (smtpBreaker.getState() != CircuitBreaker.State.CLOSED || dbGate.isCircuitOpen()) return;
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            Backlog backlog = dbGate.get(() -> queue.backlog(LocalDateTime.now()));
+            backlogLive.set(backlog.live() - backlog.due());
+            backlogDue.set(backlog.due());
+            // Sends from all workers share one window sized to the SMTP pool.
+            Semaphore window = new Semaphore(sendParallelism);
+            List<CompletableFuture<Void>> running = new ArrayList<>(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                running.add(CompletableFuture.runAsync(() -> drain(window), workers));
+            }
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            draining.set(false);
+        }
+    }
 
-        System.out.println("Retrying " + failedList.size() + " failed messages...");
+    private void drain(Semaphore window) {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            List<ClaimedRetry> chunk = dbGate.get(() -> queue.claimDue(now, now.plus(Duration.ofMillis(leaseMs)), chunkSize));
+            if (chunk.isEmpty()) return;
 
-        for (FailedMessage msg : failedList) {
+            log.info("Retrying {} failed messages", chunk.size());
+            List<RetryResult> results = sendChunk(chunk, window);
+            dbGate.run(() -> queue.complete(results));
+            if (chunk.size() < chunkSize) return;
+        }
+    }
+
+    private List<RetryResult> sendChunk(List<ClaimedRetry> chunk, Semaphore window) {
+        List<CompletableFuture<Exception>> sends = new ArrayList<>(chunk.size());
+        for (ClaimedRetry msg : chunk) {
+            window.acquireUninterruptibly();
             try {
-                emailService.sendEmail(msg.getRecipient(), msg.getBody());
-                msg.setSent(true);
-                msg.setError(null);
-                System.out.println(" Retry success for " + msg.getRecipient());
-            } catch (Exception e) {
-                msg.setRetryCount(msg.getRetryCount() + 1);
-                msg.setError(e.getMessage());
-                System.err.println(" Retry failed for " + msg.getRecipient());
-                if (msg.getRetryCount() >= MAX_RETRIES) {
-                    System.err.println(" Marking as permanently failed: " + msg.getRecipient());
-                }
+                sends.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return trySend(msg.recipient(), msg.subject(), msg.body());
+                    } finally {
+                        window.release();
+                    }
+                }, emailExecutor));
+            } catch (RejectedExecutionException saturated) {
+                window.release();
+                sends.add(CompletableFuture.completedFuture(trySend(msg.recipient(), msg.subject(), msg.body())));
+            }
+        }
+
+        List<RetryResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ClaimedRetry msg = chunk.get(i);
+            Exception e = sends.get(i).join();
+            LocalDateTime triedAt = LocalDateTime.now();
+            if (e == null) {
+                retriesSent.increment();
+                results.add(new RetryResult(msg.id(), true, null, msg.retryCount(), triedAt, null));
+                continue;
+            }
+            if (e instanceof CircuitOpenException) {
+                results.add(new RetryResult(msg.id(), false, e.getMessage(), msg.retryCount(), triedAt,
+                        triedAt.plus(Duration.ofMillis(backoffMs(msg.retryCount())))));
+                continue;
             }
-            msg.setLastTriedAt(LocalDateTime.now());
-            repo.save(msg);
+            int retryCount = msg.retryCount() + 1;
+            LocalDateTime next = null;
+            if (retryCount >= MAX_RETRIES) {
+                retriesExhausted.increment();
+                log.warn("Giving up on email to {} after {} retries: {}", msg.recipient(), retryCount, e.getMessage());
+            } else {
+                retriesFailed.increment();
+                next = triedAt.plus(Duration.ofMillis(backoffMs(retryCount)));
+            }
+            String error = e.getMessage() != null ? e.getMessage() : "Unknown error";
+            results.add(new RetryResult(msg.id(), false, error, retryCount, triedAt, next));
         }
+        return results;
+    }
+
+    /** {@code base * 2^retryCount}, capped, with up to 20% jitter so failed bursts spread out. */
+    long backoffMs(int retryCount) {
+        long delay = Math.min(maxBackoffMs, baseBackoffMs << Math.min(retryCount, 20));
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    /** When the queue should first retry a message whose delivery just failed. */
+    public LocalDateTime firstAttemptAfter(LocalDateTime failedAt) {
+        return failedAt.plus(Duration.ofMillis(backoffMs(0)));
+    }
+
+    @Scheduled(fixedDelayString = "${notification.retry.archive-interval-ms:3600000}",
+            initialDelayString = "${notification.retry.archive-interval-ms:3600000}")
+    public void archiveSentMessages() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(archiveAfterDays);
+        int total = 0;
+        int moved;
+        do {
+            moved = dbGate.get(() -> queue.archiveSent(cutoff, 1000));
+            total += moved;
+        } while (moved == 1000);
+        if (total > 0) {
+            log.info("Archived {} delivered messages older than {} days", total, archiveAfterDays);
+        }
+    }
+
+    private Exception trySend(String recipient, String subject, String body) {
+        try {
+            emailService.sendEmail(recipient, subject, body);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
     }
 }
@@ -0,0 +1,35 @@
+package com.example.ApacheKafka.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.routing.NotificationRouter;
+
+/** Publishes to the unified topic; the {@link NotificationRouter} picks the channel from the envelope. */
+@Service
+public class RoutedNotificationProducer {
+
+    private final KafkaTemplate<String, NotificationEnvelope> kafkaTemplate;
+    private final PublishMetrics metrics;
+
+    public RoutedNotificationProducer(KafkaTemplate<String, NotificationEnvelope> kafkaTemplate, PublishMetrics metrics) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+    }
+
+    /** @param urgent bypass digests and coalescing on channels that have them */
+    public CompletableFuture<SendResult<String, NotificationEnvelope>> send(Channel channel, String recipient, String message,
+                                                                            boolean urgent) {
+        String key = recipient.trim();
+        NotificationEnvelope envelope = NotificationEnvelope.of(channel, message)
+                .withFlags(urgent ? NotificationEnvelope.FLAG_URGENT : 0);
+        ProducerRecord<String, NotificationEnvelope> record = new ProducerRecord<>(NotificationRouter.TOPIC, key, envelope);
+        return metrics.record(NotificationRouter.TOPIC, kafkaTemplate.send(record));
+    }
+}
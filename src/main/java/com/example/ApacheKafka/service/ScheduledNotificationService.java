@@ -0,0 +1,235 @@
+package com.example.ApacheKafka.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.repository.ScheduledNotificationRepository;
+import com.example.ApacheKafka.repository.ScheduledNotificationRepository.Reschedule;
+import com.example.ApacheKafka.repository.ScheduledNotificationRepository.ScheduledNotification;
+import com.example.ApacheKafka.util.HierarchicalTimerWheel;
+import com.example.ApacheKafka.util.ResourceGate;
+import com.example.ApacheKafka.util.SampledLogger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Releases {@code scheduled_notification} rows into {@code email_notifications} and
+ * {@code inapp_notifications} at their {@code send_at}. Every load interval this
+ * instance claims the rows due within the horizon (an index range, earliest first,
+ * {@code FOR UPDATE SKIP LOCKED}) and parks them on a {@link HierarchicalTimerWheel};
+ * the wheel's tick thread publishes each one when it comes due and never touches the
+ * database. Outcomes are written back on the next load: one-offs are deleted,
+ * recurring rows move to their next cron occurrence, failed publishes are unleased
+ * and go out again on the following load.
+ */
+@Service
+public class ScheduledNotificationService implements ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledNotificationService.class);
+    private static final SampledLogger releaseLog = SampledLogger.of(ScheduledNotificationService.class);
+
+    private final ScheduledNotificationRepository repository;
+    private final ResourceGate dbGate;
+    private final NotificationProducer emailProducer;
+    private final InAppNotificationProducer inAppProducer;
+    private final HierarchicalTimerWheel<ScheduledNotification> wheel;
+    private final ScheduledExecutorService ticker;
+    private final ConcurrentLinkedQueue<Released> released = new ConcurrentLinkedQueue<>();
+    private final long horizonMs;
+    private final long leaseMs;
+    private final int claimBatchSize;
+    private final int maxParked;
+    private final Timer lag;
+    private final Counter releasedOk;
+    private final Counter releasedFailed;
+    private volatile boolean ready;
+
+    public ScheduledNotificationService(ScheduledNotificationRepository repository, ResourceGate dbGate,
+                                        NotificationProducer emailProducer, InAppNotificationProducer inAppProducer,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${notification.scheduler.tick-ms:100}") long tickMs,
+                                        @Value("${notification.scheduler.wheel-size:64}") int wheelSize,
+                                        @Value("${notification.scheduler.horizon-ms:30000}") long horizonMs,
+                                        @Value("${notification.scheduler.lease-ms:60000}") long leaseMs,
+                                        @Value("${notification.scheduler.claim-batch-size:1000}") int claimBatchSize,
+                                        @Value("${notification.scheduler.max-parked:100000}") int maxParked) {
+        this.repository = repository;
+        this.dbGate = dbGate;
+        this.emailProducer = emailProducer;
+        this.inAppProducer = inAppProducer;
+        this.horizonMs = horizonMs;
+        this.leaseMs = leaseMs;
+        this.claimBatchSize = claimBatchSize;
+        this.maxParked = maxParked;
+        this.wheel = new HierarchicalTimerWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "NotificationScheduler-tick");
+            t.setDaemon(true);
+            return t;
+        });
+        this.ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+
+        // Histogram buckets for notification.scheduler.lag are enabled in application.properties.
+        this.lag = Timer.builder("notification.scheduler.lag")
+                .description("How late a scheduled notification was published, measured from its send_at")
+                .register(meterRegistry);
+        this.releasedOk = Counter.builder("notification.scheduler.released").tag("outcome", "published").register(meterRegistry);
+        this.releasedFailed = Counter.builder("notification.scheduler.released").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("notification.scheduler.parked", wheel, HierarchicalTimerWheel::size)
+                .description("Claimed scheduled notifications waiting on this instance's timer wheel").register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        repository.prepareSchema();
+        ready = true;
+    }
+
+    /**
+     * Stores a notification for later. With a {@code cron} expression it recurs; the
+     * first occurrence is {@code sendAt} if given, otherwise the cron's next match.
+     *
+     * @return the schedule id
+     * @throws IllegalArgumentException for channels other than email and in-app, an
+     *                                  invalid cron expression or no send time at all
+     */
+    public long schedule(Channel channel, String recipient, String message, boolean urgent, Instant sendAt, String cron) {
+        if (channel != Channel.EMAIL && channel != Channel.IN_APP) {
+            throw new IllegalArgumentException("Only EMAIL and IN_APP notifications can be scheduled");
+        }
+        CronExpression recurrence = cron != null ? CronExpression.parse(cron) : null;
+        LocalDateTime first;
+        if (sendAt != null) {
+            first = LocalDateTime.ofInstant(sendAt, ZoneId.systemDefault());
+        } else if (recurrence != null) {
+            first = recurrence.next(LocalDateTime.now());
+        } else {
+            throw new IllegalArgumentException("Pass sendAt, cron or both");
+        }
+        if (first == null) throw new IllegalArgumentException("Cron expression " + cron + " never matches");
+        String to = channel == Channel.EMAIL ? recipient.trim() : recipient;
+        return dbGate.get(() -> repository.insert(channel.name(), to, message, urgent, first, cron));
+    }
+
+    /** Writes back the previous releases, then claims what falls due within the horizon. */
+    @Scheduled(fixedDelayString = "${notification.scheduler.load-interval-ms:1000}")
+    public void load() {
+        // While the db breaker is open, released outcomes stay queued for the next load.
+        if (!ready || dbGate.isCircuitOpen()) return;
+        writeBackReleased();
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusNanos(horizonMs * 1_000_000);
+        while (true) {
+            int room = Math.min(claimBatchSize, maxParked - wheel.size());
+            if (room <= 0) return;
+            List<ScheduledNotification> claimed = dbGate.get(() -> repository.claimDue(now, horizon, leaseMs, room));
+            for (ScheduledNotification row : claimed) {
+                if (!wheel.add(row, epochMillis(row.sendAt()))) release(row);
+            }
+            if (claimed.size() < room) return;
+        }
+    }
+
+    private void tick() {
+        try {
+            for (ScheduledNotification row : wheel.advance(System.currentTimeMillis())) {
+                release(row);
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic task and stop the wheel for good.
+            log.error("Scheduler tick failed", e);
+        }
+    }
+
+    private void release(ScheduledNotification row) {
+        lag.record(Math.max(0, System.currentTimeMillis() - epochMillis(row.sendAt())), TimeUnit.MILLISECONDS);
+        CompletableFuture<?> send;
+        try {
+            send = Channel.valueOf(row.channel()) == Channel.EMAIL
+                    ? emailProducer.sendNotification(row.recipient(), row.message(), row.urgent())
+                    : inAppProducer.sendNotification(row.recipient(), row.message(), row.urgent());
+        } catch (RuntimeException e) {
+            send = CompletableFuture.failedFuture(e);
+        }
+        send.whenComplete((result, error) -> {
+            if (error != null) releaseLog.warn("scheduler.release.failed", "id", row.id(), "error", error.getMessage());
+            released.add(new Released(row, error == null));
+        });
+    }
+
+    private void writeBackReleased() {
+        List<Long> done = new ArrayList<>();
+        List<Long> retry = new ArrayList<>();
+        List<Reschedule> next = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Released r; (r = released.poll()) != null; ) {
+            ScheduledNotification row = r.row();
+            if (!r.published()) {
+                releasedFailed.increment();
+                retry.add(row.id());
+                continue;
+            }
+            releasedOk.increment();
+            // Catch up to now rather than replaying every occurrence missed while no instance was running.
+            LocalDateTime following = row.cron() != null
+                    ? CronExpression.parse(row.cron()).next(row.sendAt().isAfter(now) ? row.sendAt() : now)
+                    : null;
+            if (following != null) {
+                next.add(new Reschedule(row.id(), following));
+            } else {
+                done.add(row.id());
+            }
+        }
+        if (done.isEmpty() && retry.isEmpty() && next.isEmpty()) return;
+        dbGate.run(() -> {
+            repository.deleteAll(done);
+            repository.reschedule(next);
+            repository.unlease(retry);
+        });
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /** Hands parked rows back so another instance can claim them without waiting out the lease. */
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+        if (!ready) return;
+        try {
+            writeBackReleased();
+            List<Long> parked = wheel.clear().stream().map(ScheduledNotification::id).toList();
+            dbGate.run(() -> repository.unlease(parked));
+            if (!parked.isEmpty()) log.info("Returned {} parked scheduled notifications on shutdown", parked.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not return parked scheduled notifications; they are released again when their lease expires", e);
+        }
+    }
+
+    private record Released(ScheduledNotification row, boolean published) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.ApacheKafka.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.repository.FailedMessageBatchRepository;
+import com.example.ApacheKafka.util.BloomFilter;
+import com.example.ApacheKafka.util.ResourceGate;
+
+/**
+ * In-memory pre-check in front of the "already delivered?" lookup. A Bloom filter
+ * holds the dedup keys of delivered emails; a key it has never seen skips the
+ * database entirely, and only possible hits are confirmed with a query.
+ * <p>
+ * The filter is loaded on startup and then follows rows delivered by any instance
+ * by polling {@code last_tried_at} (with some overlap for clock skew). Listeners call
+ * {@link #refresh()} on partition assignment, which is when another instance's
+ * records get redelivered here. It is rebuilt, larger, once it holds more keys than sized for.
+ */
+@Service
+public class SentMessageFilter implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SentMessageFilter.class);
+
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final FailedMessageBatchRepository batchRepo;
+    private final ResourceGate dbGate;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+    private final AtomicLong keyCount = new AtomicLong();
+    private volatile long capacity;
+    private volatile BloomFilter filter;
+    private volatile boolean loaded;
+    private LocalDateTime refreshedUpTo = LocalDateTime.now();
+
+    public SentMessageFilter(FailedMessageBatchRepository batchRepo, ResourceGate dbGate,
+                             @Value("${notification.dedup.bloom.expected-keys:1000000}") long expectedKeys,
+                             @Value("${notification.dedup.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.batchRepo = batchRepo;
+        this.dbGate = dbGate;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.capacity = expectedKeys;
+        this.filter = new BloomFilter(capacity, falsePositiveRate);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int backfilled = dbGate.get(batchRepo::prepareSchema);
+        if (backfilled > 0) {
+            log.info("Backfilled dedup keys for {} failed_message rows", backfilled);
+        }
+        rebuild();
+    }
+
+    /**
+     * {@code false} means the message was certainly not delivered before. Until the
+     * initial load has finished every key is reported as a possible hit.
+     */
+    public boolean mightBeSent(String dedupKey) {
+        return !loaded || filter.mightContain(dedupKey);
+    }
+
+    public void recordSent(String dedupKey) {
+        BloomFilter current = filter;
+        // Refresh overlap re-reads recent keys; only count ones that look new.
+        if (!current.mightContain(dedupKey)) {
+            current.add(dedupKey);
+            keyCount.incrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.dedup.bloom.refresh-ms:1000}")
+    public synchronized void refresh() {
+        if (!loaded) return;
+        if (keyCount.get() > capacity) {
+            rebuild();
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        dbGate.run(() -> batchRepo.forEachKeySentSince(refreshedUpTo.minus(REFRESH_OVERLAP), this::recordSent));
+        refreshedUpTo = now;
+    }
+
+    private synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        // Leave headroom when the table has outgrown the configured size.
+        long size = Math.max(expectedKeys, keyCount.get() * 2);
+        BloomFilter fresh = new BloomFilter(size, falsePositiveRate);
+        AtomicLong count = new AtomicLong();
+        dbGate.run(() -> batchRepo.forEachSentKey(key -> {
+            fresh.add(key);
+            count.incrementAndGet();
+        }));
+        // Keys recorded while loading are picked up by the overlap of the next refresh.
+        filter = fresh;
+        capacity = size;
+        keyCount.set(count.get());
+        refreshedUpTo = now;
+        loaded = true;
+        log.info("Loaded {} delivered dedup keys into the bloom filter", count.get());
+    }
+}
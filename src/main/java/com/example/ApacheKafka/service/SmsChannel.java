@@ -0,0 +1,48 @@
+package com.example.ApacheKafka.service;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.routing.ChannelWorkers;
+import com.example.ApacheKafka.routing.NotificationChannel;
+import com.example.ApacheKafka.util.SampledLogger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Stub sms channel: logs and counts deliveries. A real implementation would
+ * hand each notification to an SMS gateway from {@link #deliver}, on the channel's workers.
+ */
+@Service
+public class SmsChannel implements NotificationChannel {
+
+    private static final SampledLogger log = SampledLogger.of(SmsChannel.class);
+
+    private final Counter delivered;
+
+    public SmsChannel(MeterRegistry meterRegistry) {
+        this.delivered = Counter.builder("notification.channel.stub.delivered")
+                .tag("channel", "sms")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Channel channel() {
+        return Channel.SMS;
+    }
+
+    @Override
+    public void deliver(List<ConsumerRecord<String, NotificationEnvelope>> batch, ChannelWorkers workers) {
+        workers.forEach(batch.size(), i -> {
+            ConsumerRecord<String, NotificationEnvelope> record = batch.get(i);
+            log.info("sms.delivered", "recipient", NotificationEnvelope.recipientOf(record),
+                    "messageId", record.value().messageId());
+            delivered.increment();
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.ApacheKafka.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.routing.ChannelWorkers;
+import com.example.ApacheKafka.util.SampledLogger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Coalesces bursts of per-student notifications into one STOMP frame per
+ * subscription per flush interval. Each student's pending buffer is capped; when
+ * it overflows the oldest entries are dropped (they are already persisted and
+ * remain available from the inbox endpoint).
+ * <p>
+ * Each flush hands the frames to {@code applicationTaskExecutor} in up to
+ * {@code notification.websocket.fanout-parallelism} chunks, so with the virtual
+ * executor mode a slow broker relay does not hold up the other students.
+ */
+@Service
+public class WebSocketFanoutService implements DisposableBean {
+
+    private static final SampledLogger log = SampledLogger.of(WebSocketFanoutService.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int maxPendingPerStudent;
+    private final Map<String, ArrayDeque<Object>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final ChannelWorkers workers;
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Timer pushTimer;
+    private final Timer failedPushTimer;
+
+    public WebSocketFanoutService(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry,
+                                  @Qualifier("applicationTaskExecutor") Executor fanoutExecutor,
+                                  @Value("${notification.websocket.coalesce-ms:100}") long coalesceMs,
+                                  @Value("${notification.websocket.max-pending-per-student:100}") int maxPendingPerStudent,
+                                  @Value("${notification.websocket.fanout-parallelism:4}") int fanoutParallelism) {
+        this.messagingTemplate = messagingTemplate;
+        this.workers = new ChannelWorkers(fanoutExecutor, fanoutParallelism);
+        this.maxPendingPerStudent = maxPendingPerStudent;
+        this.pushTimer = Timer.builder("notification.websocket.push")
+                .description("Time to hand one coalesced frame to the STOMP broker")
+                .tag("destination", "student").tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedPushTimer = Timer.builder("notification.websocket.push")
+                .tag("destination", "student").tag("outcome", "failed")
+                .register(meterRegistry);
+        Gauge.builder("notification.websocket.pending.students", pending, Map::size).register(meterRegistry);
+        Gauge.builder("notification.websocket.dropped", dropped, AtomicLong::get)
+                .description("Notifications dropped from overflowing per-student buffers").register(meterRegistry);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "WebSocketFanout");
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, coalesceMs, coalesceMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Queues a notification for {@code /topic/notifications/{studentId}}. */
+    public void publish(String studentId, Object notification) {
+        pending.compute(studentId, (id, queue) -> {
+            if (queue == null) queue = new ArrayDeque<>();
+            if (queue.size() >= maxPendingPerStudent) {
+                queue.pollFirst();
+                dropped.incrementAndGet();
+            }
+            queue.addLast(notification);
+            return queue;
+        });
+    }
+
+    /**
+     * Sends a frame now with anything already pending for the student followed by
+     * {@code notification}, for urgent notifications that should not wait.
+     */
+    public void publishNow(String studentId, Object notification) {
+        List<Object> batch = new ArrayList<>();
+        pending.computeIfPresent(studentId, (id, queue) -> {
+            batch.addAll(queue);
+            return null;
+        });
+        batch.add(notification);
+        send(studentId, batch);
+    }
+
+    void flush() {
+        List<String> students = new ArrayList<>(pending.keySet());
+        workers.forEach(students.size(), i -> {
+            String studentId = students.get(i);
+            List<Object> batch = new ArrayList<>();
+            pending.computeIfPresent(studentId, (id, queue) -> {
+                batch.addAll(queue);
+                return null;
+            });
+            if (!batch.isEmpty()) send(studentId, batch);
+        });
+    }
+
+    private void send(String studentId, List<Object> batch) {
+        long start = System.nanoTime();
+        try {
+            messagingTemplate.convertAndSend("/topic/notifications/" + studentId, batch);
+            pushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            framesSent.incrementAndGet();
+        } catch (Exception e) {
+            failedPushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.warn("websocket.push.failed", "studentId", studentId, "error", e.getMessage());
+        }
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingStudents() {
+        return pending.size();
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        flush();
+    }
+}
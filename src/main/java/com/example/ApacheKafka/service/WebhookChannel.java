@@ -0,0 +1,48 @@
+package com.example.ApacheKafka.service;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.routing.ChannelWorkers;
+import com.example.ApacheKafka.routing.NotificationChannel;
+import com.example.ApacheKafka.util.SampledLogger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Stub webhook channel: logs and counts deliveries. A real implementation would
+ * POST each notification to the recipient URL from {@link #deliver}, on the channel's workers.
+ */
+@Service
+public class WebhookChannel implements NotificationChannel {
+
+    private static final SampledLogger log = SampledLogger.of(WebhookChannel.class);
+
+    private final Counter delivered;
+
+    public WebhookChannel(MeterRegistry meterRegistry) {
+        this.delivered = Counter.builder("notification.channel.stub.delivered")
+                .tag("channel", "webhook")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Channel channel() {
+        return Channel.WEBHOOK;
+    }
+
+    @Override
+    public void deliver(List<ConsumerRecord<String, NotificationEnvelope>> batch, ChannelWorkers workers) {
+        workers.forEach(batch.size(), i -> {
+            ConsumerRecord<String, NotificationEnvelope> record = batch.get(i);
+            log.info("webhook.delivered", "recipient", NotificationEnvelope.recipientOf(record),
+                    "messageId", record.value().messageId());
+            delivered.increment();
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.ApacheKafka.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A text template parsed once into literal and variable segments.
+ * <p>
+ * Syntax: {@code {{name}}} inserts a variable, {@code {{name|fallback}}} uses
+ * {@code fallback} when the variable is missing or blank, and missing variables
+ * without a fallback render as nothing. There is no escaping; output is plain text.
+ * Rendering walks the segment array once into a single pre-sized
+ * {@link StringBuilder}, so the only allocations per render are the builder and
+ * the resulting string.
+ */
+public final class CompiledTemplate {
+
+    private static final int VARIABLE_SIZE_HINT = 16;
+
+    // Parallel arrays: a null name means the segment is the literal text.
+    private final String[] literals;
+    private final String[] names;
+    private final int sizeHint;
+
+    private CompiledTemplate(String[] literals, String[] names, int sizeHint) {
+        this.literals = literals;
+        this.names = names;
+        this.sizeHint = sizeHint;
+    }
+
+    public static CompiledTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int literalChars = 0;
+        int pos = 0;
+        while (pos < source.length()) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (open < 0 || close < 0) {
+                literals.add(source.substring(pos));
+                names.add(null);
+                literalChars += source.length() - pos;
+                break;
+            }
+            if (open > pos) {
+                literals.add(source.substring(pos, open));
+                names.add(null);
+                literalChars += open - pos;
+            }
+            String expression = source.substring(open + 2, close);
+            int bar = expression.indexOf('|');
+            String name = (bar < 0 ? expression : expression.substring(0, bar)).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty variable name at offset " + open);
+            }
+            names.add(name);
+            literals.add(bar < 0 ? "" : expression.substring(bar + 1).trim());
+            pos = close + 2;
+        }
+        int variables = (int) names.stream().filter(Objects::nonNull).count();
+        return new CompiledTemplate(literals.toArray(String[]::new), names.toArray(String[]::new),
+                literalChars + variables * VARIABLE_SIZE_HINT);
+    }
+
+    public String render(Map<String, String> variables) {
+        StringBuilder out = new StringBuilder(sizeHint);
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            if (name == null) {
+                out.append(literals[i]);
+                continue;
+            }
+            String value = variables.get(name);
+            out.append(value == null || value.isBlank() ? literals[i] : value);
+        }
+        return out.toString();
+    }
+}
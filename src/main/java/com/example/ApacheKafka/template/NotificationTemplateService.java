@@ -0,0 +1,135 @@
+package com.example.ApacheKafka.template;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import com.example.ApacheKafka.entity.NotificationTemplate;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.repository.NotificationTemplateRepository;
+import com.example.ApacheKafka.util.ResourceGate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Resolves template ids to compiled templates and renders envelopes into email
+ * subject and body. Templates come from {@code notification_template} or, failing
+ * that, from {@code classpath:notification-templates/{id}.txt}, whose first line may
+ * be {@code Subject: ...}. Compiled templates are held in a bounded cache that
+ * expires entries so edits made on other instances are picked up. Unknown ids are
+ * not cached: a template created after a record that needs it was dead-lettered is
+ * found as soon as the record is replayed. Lookups on the render path go through
+ * the db gate like the rest of the delivery path's JDBC, so with the db breaker
+ * open they fail fast with {@code CircuitOpenException}.
+ */
+@Service
+public class NotificationTemplateService {
+
+    private static final String CLASSPATH_DIR = "notification-templates/";
+    private static final String SUBJECT_PREFIX = "Subject:";
+
+    private final NotificationTemplateRepository repo;
+    private final ResourceGate dbGate;
+    private final Cache<String, Compiled> cache;
+
+    public NotificationTemplateService(NotificationTemplateRepository repo, ResourceGate dbGate, MeterRegistry meterRegistry,
+                                       @Value("${notification.template.cache-size:500}") long cacheSize,
+                                       @Value("${notification.template.cache-ttl-seconds:300}") long cacheTtlSeconds) {
+        this.repo = repo;
+        this.dbGate = dbGate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "notification.templates");
+    }
+
+    /**
+     * Subject and body to send for {@code envelope}, or empty when it carries neither
+     * a template nor a body. A {@code null} subject means the mail default.
+     *
+     * @throws IllegalArgumentException if the template id is unknown
+     */
+    public Optional<Rendered> render(NotificationEnvelope envelope) {
+        if (envelope.templateId() == null) {
+            return envelope.body() == null ? Optional.empty() : Optional.of(new Rendered(null, envelope.body()));
+        }
+        Compiled template = cached(envelope.templateId())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown notification template " + envelope.templateId()));
+        String subject = template.subject() != null ? template.subject().render(envelope.variables()) : null;
+        return Optional.of(new Rendered(subject, template.body().render(envelope.variables())));
+    }
+
+    public boolean exists(String templateId) {
+        return cached(templateId).isPresent();
+    }
+
+    /** Stores a template in the database; syntax is checked before saving. */
+    public NotificationTemplate save(String id, String subject, String body) {
+        if (subject != null) CompiledTemplate.compile(subject);
+        CompiledTemplate.compile(body);
+        NotificationTemplate template = repo.findById(id).orElseGet(NotificationTemplate::new);
+        template.setId(id);
+        template.setSubject(subject);
+        template.setBody(body);
+        template.setUpdatedAt(LocalDateTime.now());
+        NotificationTemplate saved = repo.save(template);
+        cache.invalidate(id);
+        return saved;
+    }
+
+    public Optional<NotificationTemplate> find(String id) {
+        return repo.findById(id);
+    }
+
+    // Caffeine does not store a null result, so misses are looked up again next time.
+    private Optional<Compiled> cached(String id) {
+        return Optional.ofNullable(cache.get(id, key -> load(key).orElse(null)));
+    }
+
+    private Optional<Compiled> load(String id) {
+        Optional<NotificationTemplate> stored = dbGate.get(() -> repo.findById(id));
+        if (stored.isPresent()) {
+            NotificationTemplate t = stored.get();
+            return Optional.of(new Compiled(t.getSubject() != null ? CompiledTemplate.compile(t.getSubject()) : null,
+                    CompiledTemplate.compile(t.getBody())));
+        }
+        return loadFromClasspath(id);
+    }
+
+    private Optional<Compiled> loadFromClasspath(String id) {
+        if (!id.matches("[A-Za-z0-9_.-]+")) return Optional.empty();
+        ClassPathResource resource = new ClassPathResource(CLASSPATH_DIR + id + ".txt");
+        if (!resource.exists()) return Optional.empty();
+        try (InputStream in = resource.getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            CompiledTemplate subject = null;
+            if (source.startsWith(SUBJECT_PREFIX)) {
+                int lineEnd = source.indexOf('\n');
+                String subjectLine = lineEnd < 0 ? source : source.substring(0, lineEnd);
+                subject = CompiledTemplate.compile(subjectLine.substring(SUBJECT_PREFIX.length()).trim());
+                source = lineEnd < 0 ? "" : source.substring(lineEnd + 1);
+            }
+            return Optional.of(new Compiled(subject, CompiledTemplate.compile(source)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read template " + resource.getPath(), e);
+        }
+    }
+
+    public record Rendered(String subject, String body) {
+    }
+
+    private record Compiled(CompiledTemplate subject, CompiledTemplate body) {
+    }
+}
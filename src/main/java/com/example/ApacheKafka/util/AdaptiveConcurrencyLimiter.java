@@ -0,0 +1,128 @@
+package com.example.ApacheKafka.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit driven by observed latency and errors.
+ * <p>
+ * While calls succeed at a latency near the long-run baseline and the limit is
+ * actually being used, it grows by roughly one per limit's worth of completions.
+ * When recent latency exceeds {@code latencyTolerance} times the baseline, or a
+ * call fails with what looks like provider pushback, it is multiplied by
+ * {@code backoffRatio}. Decreases are spaced by at least one recent latency so a
+ * single slow burst is not counted many times.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double FAST_ALPHA = 0.2;
+    private static final double BASELINE_ALPHA = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition belowLimit = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private double recentLatencyNanos;
+    private double baselineLatencyNanos;
+    private long lastDecreaseAt;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.lastDecreaseAt = System.nanoTime() - TimeUnit.MINUTES.toNanos(1);
+    }
+
+    public void acquire() {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                belowLimit.await();
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a concurrency permit", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long latencyNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+            if (baselineLatencyNanos == 0) {
+                baselineLatencyNanos = latencyNanos;
+                recentLatencyNanos = latencyNanos;
+            } else {
+                recentLatencyNanos += FAST_ALPHA * (latencyNanos - recentLatencyNanos);
+                baselineLatencyNanos += BASELINE_ALPHA * (latencyNanos - baselineLatencyNanos);
+            }
+            if (recentLatencyNanos > baselineLatencyNanos * latencyTolerance) {
+                decrease();
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            belowLimit.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @param pushback whether the failure indicates overload or throttling rather than a bad request */
+    public void onFailure(boolean pushback) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (pushback) decrease();
+            belowLimit.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease() {
+        long now = System.nanoTime();
+        if (now - lastDecreaseAt < Math.max(recentLatencyNanos, TimeUnit.MILLISECONDS.toNanos(1))) return;
+        lastDecreaseAt = now;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getRecentLatencyMillis() {
+        lock.lock();
+        try {
+            return recentLatencyNanos / 1_000_000.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
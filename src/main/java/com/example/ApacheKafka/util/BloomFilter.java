@@ -0,0 +1,49 @@
+package com.example.ApacheKafka.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over keys that are already uniformly distributed
+ * (hex-encoded hashes). The two 64-bit halves of the key are combined by double
+ * hashing, so no further hashing is done per probe.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long m = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+    }
+
+    /** @param key at least 32 hex characters */
+    public void add(String key) {
+        long h1 = Long.parseUnsignedLong(key, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(key, 16, 32, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // lost a race with another writer on the same word; re-read and retry
+            }
+        }
+    }
+
+    /** {@code false} means the key was definitely never added. */
+    public boolean mightContain(String key) {
+        long h1 = Long.parseUnsignedLong(key, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(key, 16, 32, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+}
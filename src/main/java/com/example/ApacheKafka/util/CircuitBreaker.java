@@ -0,0 +1,176 @@
+package com.example.ApacheKafka.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. While closed it tracks the outcome of the last
+ * {@code windowSize} calls and opens once at least {@code minCalls} of them are
+ * recorded and the failure rate reaches {@code failureRateThreshold}. While open
+ * every call is rejected. After {@code openDuration} it lets {@code halfOpenProbes}
+ * trial calls through (half-open): all of them succeeding closes it, any failure
+ * opens it again.
+ * <p>
+ * Callers take a permit with {@link #tryAcquire()} and report the outcome with
+ * {@link #onSuccess()} or {@link #onFailure()}. Errors that say nothing about the
+ * dependency's health (a rejected recipient, a constraint violation) count as
+ * success. State listeners run on the thread that caused the transition.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /** Called after every state change. */
+    @FunctionalInterface
+    public interface Listener {
+        void onTransition(CircuitBreaker breaker, State from, State to);
+    }
+
+    private final String name;
+    private final boolean[] window;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(String name, int windowSize, int minCalls, double failureRateThreshold,
+                          long openDurationMs, int halfOpenProbes) {
+        this(name, windowSize, minCalls, failureRateThreshold, openDurationMs, halfOpenProbes, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int windowSize, int minCalls, double failureRateThreshold,
+                   long openDurationMs, int halfOpenProbes, LongSupplier nanoClock) {
+        this.name = name;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, Math.min(minCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.nanoClock = nanoClock;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** @return {@code false} when the call must not be made; it is counted as rejected */
+    public boolean tryAcquire() {
+        synchronized (this) {
+            if (state == State.CLOSED) return true;
+            boolean halfOpened = false;
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesInFlight = 0;
+                probeSuccesses = 0;
+                halfOpened = true;
+            }
+            if (probeSuccesses + probesInFlight >= halfOpenProbes) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            probesInFlight++;
+            if (!halfOpened) return true;
+        }
+        notifyListeners(State.OPEN, State.HALF_OPEN);
+        return true;
+    }
+
+    public void onSuccess() {
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                record(false);
+                return;
+            }
+            if (state == State.OPEN) return;
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (++probeSuccesses < halfOpenProbes) return;
+            close();
+        }
+        notifyListeners(State.HALF_OPEN, State.CLOSED);
+    }
+
+    public void onFailure() {
+        State from;
+        synchronized (this) {
+            from = state;
+            if (state == State.OPEN) return;
+            if (state == State.CLOSED) {
+                record(true);
+                if (recorded < minCalls || (double) failures / recorded < failureRateThreshold) return;
+            }
+            open();
+        }
+        notifyListeners(from, State.OPEN);
+    }
+
+    /** Whether a half-open probe may be made now: open for long enough, or half-open with probes left. */
+    public synchronized boolean isProbeDue() {
+        return switch (state) {
+            case OPEN -> nanoClock.getAsLong() - openedAt >= openNanos;
+            case HALF_OPEN -> probeSuccesses + probesInFlight < halfOpenProbes;
+            case CLOSED -> false;
+        };
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) failures--;
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    private void notifyListeners(State from, State to) {
+        for (Listener listener : listeners) listener.onTransition(this, from, to);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /** Failure rate over the current window while closed; 0 until {@code minCalls} are recorded. */
+    public synchronized double getFailureRate() {
+        return state == State.CLOSED && recorded >= minCalls ? (double) failures / recorded : 0;
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.ApacheKafka.util;
+
+/** Thrown instead of calling a dependency whose {@link CircuitBreaker} is open. */
+public class CircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String breaker) {
+        super("Circuit breaker " + breaker + " is open");
+    }
+}
@@ -6,6 +6,10 @@ import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Loads the whole workbook into memory. Kept for small sheets and as a baseline;
+ * large recipient files should go through {@link RecipientFileReader}.
+ */
 public class ExcelReader {
     public static List<String> readEmails(String filePath) {
         List<String> emails = new ArrayList<>();
@@ -0,0 +1,123 @@
+package com.example.ApacheKafka.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timer wheel with overflow levels. Level {@code L} has {@code wheelSize}
+ * slots of {@code wheelSize^L} ticks each; an entry goes to the lowest level whose
+ * span covers its delay and is cascaded one level down each time its slot comes
+ * round. Adding is O(1) and each tick touches one slot per level, however many
+ * entries are parked. Entries fire on the first tick at or after their deadline.
+ * Not thread-safe beyond its own monitor; callers share one instance.
+ */
+public class HierarchicalTimerWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<ArrayDeque<Entry<T>>[]> levels = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimerWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) throw new IllegalArgumentException("tickMs > 0 and wheelSize >= 2 required");
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMs / tickMs;
+    }
+
+    /**
+     * Parks {@code item} until {@code deadlineMs}.
+     *
+     * @return {@code false} when the deadline has already passed; the item is not added
+     */
+    public synchronized boolean add(T item, long deadlineMs) {
+        long dueTick = -Math.floorDiv(-deadlineMs, tickMs);
+        if (dueTick <= currentTick) return false;
+        place(new Entry<>(item, dueTick));
+        size++;
+        return true;
+    }
+
+    /** Moves the wheel to {@code nowMs} and returns the entries that came due, in tick order. */
+    public synchronized List<T> advance(long nowMs) {
+        long target = nowMs / tickMs;
+        List<T> due = new ArrayList<>();
+        while (currentTick < target) {
+            if (size == 0) {
+                currentTick = target;
+                break;
+            }
+            currentTick++;
+            // Highest level first, so cascaded entries land in slots that are drained later.
+            for (int level = levels.size() - 1; level >= 0; level--) {
+                long ticksPerSlot = ticksPerSlot(level);
+                if (currentTick % ticksPerSlot != 0) continue;
+                ArrayDeque<Entry<T>> slot = levels.get(level)[(int) ((currentTick / ticksPerSlot) % wheelSize)];
+                for (int n = slot.size(); n > 0; n--) {
+                    Entry<T> entry = slot.poll();
+                    if (entry.dueTick <= currentTick) {
+                        due.add(entry.item);
+                        size--;
+                    } else {
+                        place(entry);
+                    }
+                }
+            }
+        }
+        return due;
+    }
+
+    /** Empties the wheel and returns everything that was parked. */
+    public synchronized List<T> clear() {
+        List<T> parked = new ArrayList<>(size);
+        for (ArrayDeque<Entry<T>>[] slots : levels) {
+            for (ArrayDeque<Entry<T>> slot : slots) {
+                for (Entry<T> entry : slot) parked.add(entry.item);
+                slot.clear();
+            }
+        }
+        size = 0;
+        return parked;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.dueTick - currentTick;
+        int level = 0;
+        long span = wheelSize;
+        while (delta >= span && span <= Long.MAX_VALUE / wheelSize) {
+            level++;
+            span *= wheelSize;
+        }
+        long ticksPerSlot = ticksPerSlot(level);
+        slots(level)[(int) ((entry.dueTick / ticksPerSlot) % wheelSize)].add(entry);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ArrayDeque<Entry<T>>[] slots(int level) {
+        while (levels.size() <= level) {
+            ArrayDeque<Entry<T>>[] slots = new ArrayDeque[wheelSize];
+            for (int i = 0; i < wheelSize; i++) slots[i] = new ArrayDeque<>();
+            levels.add(slots);
+        }
+        return levels.get(level);
+    }
+
+    private long ticksPerSlot(int level) {
+        long ticks = 1;
+        for (int i = 0; i < level; i++) ticks *= wheelSize;
+        return ticks;
+    }
+
+    private record Entry<T>(T item, long dueTick) {
+    }
+}
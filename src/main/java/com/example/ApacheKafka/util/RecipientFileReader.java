@@ -0,0 +1,146 @@
+package com.example.ApacheKafka.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Streams recipient rows out of {@code .xlsx} or {@code .csv} files one row at a
+ * time, so callers can start producing before the file has been fully read.
+ * <p>
+ * XLSX sheets are parsed with SAX instead of building an {@link org.apache.poi.xssf.usermodel.XSSFWorkbook};
+ * only the workbook's shared-strings table is held in memory. CSV files are read
+ * line by line in constant memory.
+ */
+public class RecipientFileReader {
+
+    private RecipientFileReader() {
+    }
+
+    /**
+     * Reads the first sheet (or the whole CSV) and passes each non-empty row to
+     * {@code rowHandler}. Returns the number of rows handed over.
+     */
+    public static long stream(String filePath, Consumer<List<String>> rowHandler) throws IOException {
+        if (filePath.toLowerCase().endsWith(".csv")) {
+            return streamCsv(Path.of(filePath), rowHandler);
+        }
+        return streamXlsx(new File(filePath), rowHandler);
+    }
+
+    private static long streamXlsx(File file, Consumer<List<String>> rowHandler) throws IOException {
+        RowCollector collector = new RowCollector(rowHandler);
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) return 0;
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, collector, new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Could not read " + file, e);
+        }
+        return collector.rows;
+    }
+
+    private static long streamCsv(Path path, Consumer<List<String>> rowHandler) throws IOException {
+        long rows = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> cells = parseCsvLine(line);
+                if (cells.isEmpty() || cells.get(0).isBlank()) continue;
+                rowHandler.accept(cells);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString().trim());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString().trim());
+        return cells;
+    }
+
+    private static final class RowCollector implements SheetContentsHandler {
+        private final Consumer<List<String>> rowHandler;
+        private final List<String> cells = new ArrayList<>();
+        private long rows;
+
+        private RowCollector(Consumer<List<String>> rowHandler) {
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = new CellReference(cellReference).getCol();
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue == null ? "" : formattedValue.trim());
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (cells.isEmpty() || cells.get(0).isBlank()) return;
+            rowHandler.accept(List.copyOf(cells));
+            rows++;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ApacheKafka.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Semaphore-backed limit on concurrent use of a shared resource such as the
+ * JDBC pool. Callers queue fairly on the gate instead of timing out inside the
+ * resource's own pool, which matters once the caller count is no longer bounded
+ * by a thread pool (e.g. with virtual threads).
+ * <p>
+ * With a {@link CircuitBreaker}, calls fail fast with {@link CircuitOpenException}
+ * while it is open; exceptions matching {@code isOutage} count as failures and
+ * anything else as a sign the resource is up.
+ */
+public class ResourceGate {
+
+    private final String name;
+    private final int permits;
+    private final Semaphore semaphore;
+    private final CircuitBreaker breaker;
+    private final Predicate<Throwable> isOutage;
+
+    public ResourceGate(String name, int permits) {
+        this(name, permits, null, e -> false);
+    }
+
+    public ResourceGate(String name, int permits, CircuitBreaker breaker, Predicate<Throwable> isOutage) {
+        this.name = name;
+        this.permits = permits;
+        this.semaphore = new Semaphore(permits, true);
+        this.breaker = breaker;
+        this.isOutage = isOutage;
+    }
+
+    public <T> T get(Supplier<T> action) {
+        if (breaker != null && !breaker.tryAcquire()) throw new CircuitOpenException(breaker.getName());
+        boolean outage = false;
+        try {
+            acquire();
+            try {
+                return action.get();
+            } finally {
+                semaphore.release();
+            }
+        } catch (RuntimeException | Error e) {
+            outage = isOutage.test(e);
+            throw e;
+        } finally {
+            if (breaker != null) {
+                if (outage) breaker.onFailure();
+                else breaker.onSuccess();
+            }
+        }
+    }
+
+    public void run(Runnable action) {
+        get(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void acquire() {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " gate", e);
+        }
+    }
+
+    /** Whether calls are currently being refused; pollers use it to skip a round rather than fail it. */
+    public boolean isCircuitOpen() {
+        return breaker != null && breaker.getState() == CircuitBreaker.State.OPEN;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    public int getInUse() {
+        return permits - semaphore.availablePermits();
+    }
+
+    public int getWaiting() {
+        return semaphore.getQueueLength();
+    }
+}
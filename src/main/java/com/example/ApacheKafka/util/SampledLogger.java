@@ -0,0 +1,71 @@
+package com.example.ApacheKafka.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-message logging for hot paths. Writes at most {@code perSecond} lines a
+ * second as {@code event key=value ...}. Lines dropped in the meantime are
+ * counted and reported as {@code suppressed=N} on the next line that gets through.
+ * Counts belong in metrics; these lines are examples to look at.
+ */
+public class SampledLogger {
+
+    public static final int DEFAULT_PER_SECOND = 10;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger log;
+    private final int perSecond;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong inWindow = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public SampledLogger(Logger log, int perSecond) {
+        this.log = log;
+        this.perSecond = perSecond;
+    }
+
+    public static SampledLogger of(Class<?> type) {
+        return new SampledLogger(LoggerFactory.getLogger(type), DEFAULT_PER_SECOND);
+    }
+
+    /** @param fields alternating keys and values */
+    public void info(String event, Object... fields) {
+        if (log.isInfoEnabled() && admit()) log.info(format(event, fields));
+    }
+
+    public void warn(String event, Object... fields) {
+        if (log.isWarnEnabled() && admit()) log.warn(format(event, fields));
+    }
+
+    private boolean admit() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            inWindow.set(0);
+        }
+        if (inWindow.incrementAndGet() <= perSecond) return true;
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    private String format(String event, Object[] fields) {
+        StringBuilder line = new StringBuilder(event);
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=');
+            String value = String.valueOf(fields[i + 1]);
+            if (value.indexOf(' ') >= 0 || value.indexOf('"') >= 0) {
+                line.append('"').append(value.replace("\"", "\\\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        long dropped = suppressed.getAndSet(0);
+        if (dropped > 0) line.append(" suppressed=").append(dropped);
+        return line.toString();
+    }
+}
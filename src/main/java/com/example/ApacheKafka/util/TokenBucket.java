@@ -0,0 +1,53 @@
+package com.example.ApacheKafka.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter. Up to {@code burst} permits can be taken at once,
+ * refilling at {@code permitsPerSecond}. Callers reserve a permit even when the
+ * bucket is empty and then sleep until it is theirs, so waiters are served in
+ * reservation order without a queue.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    public TokenBucket(double permitsPerSecond, double burst) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+    }
+
+    /** Takes one permit, sleeping until it is available. */
+    public void acquire() {
+        long waitNanos = reserve();
+        if (waitNanos <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a rate limit permit", e);
+        }
+    }
+
+    /** Takes one permit and returns how long the caller must wait before using it. */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / permitsPerNano);
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerNano * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /** Permits available right now; negative while callers are waiting. */
+    public synchronized double getAvailable() {
+        return Math.min(burst, tokens + (System.nanoTime() - refilledAt) * permitsPerNano);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.ApacheKafka.ack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.messaging.NotificationEnvelopeSerializer;
+import com.example.ApacheKafka.service.InAppNotificationProducer;
+
+class AckAggregationTopologyTest {
+
+    private final List<AckSummary> summaries = new ArrayList<>();
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, NotificationEnvelope> deliveries;
+    private TestInputTopic<String, NotificationEnvelope> acks;
+    private TestInputTopic<String, NotificationEnvelope> routed;
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder builder = new StreamsBuilder();
+        AckAggregationTopology.build(builder, summaries::add, Duration.ofDays(1));
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "ack-aggregation-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        driver = new TopologyTestDriver(builder.build(), props);
+        deliveries = driver.createInputTopic("inapp_notifications", new StringSerializer(), new NotificationEnvelopeSerializer());
+        acks = driver.createInputTopic("ack_notifications", new StringSerializer(), new NotificationEnvelopeSerializer());
+        routed = driver.createInputTopic("notifications", new StringSerializer(), new NotificationEnvelopeSerializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    private static NotificationEnvelope announcement(UUID id) {
+        return new NotificationEnvelope(id, Channel.IN_APP, 0, null, null, "Exams moved", null);
+    }
+
+    private static NotificationEnvelope ack(UUID id) {
+        return new NotificationEnvelope(UUID.randomUUID(), Channel.ACK, 0, null,
+                Map.of(InAppNotificationProducer.ACK_NOTIFICATION_ID, id.toString()), "Received", null);
+    }
+
+    private AckSummary last() {
+        return summaries.get(summaries.size() - 1);
+    }
+
+    @Test
+    void countsRecipientsAndAcksPerNotification() {
+        UUID id = UUID.randomUUID();
+        deliveries.pipeInput("STU001", announcement(id));
+        deliveries.pipeInput("STU002", announcement(id));
+        deliveries.pipeInput("STU003", announcement(id));
+        acks.pipeInput("STU002", ack(id));
+
+        assertEquals(new AckSummary(id.toString(), "Exams moved", 3, 1, 2), last());
+    }
+
+    @Test
+    void repeatedEventsDoNotChangeTotals() {
+        UUID id = UUID.randomUUID();
+        deliveries.pipeInput("STU001", announcement(id));
+        acks.pipeInput("STU001", ack(id));
+        int pushed = summaries.size();
+
+        deliveries.pipeInput("STU001", announcement(id));
+        acks.pipeInput("STU001", ack(id));
+
+        assertEquals(pushed, summaries.size());
+        assertEquals(new AckSummary(id.toString(), "Exams moved", 1, 1, 0), last());
+    }
+
+    @Test
+    void ackBeforeDeliveryCountsOnce() {
+        UUID id = UUID.randomUUID();
+        acks.pipeInput("STU001", ack(id));
+        deliveries.pipeInput("STU001", announcement(id));
+
+        assertEquals(new AckSummary(id.toString(), "Exams moved", 1, 1, 0), last());
+    }
+
+    @Test
+    void pendingRecipientsAreOneRangePerNotification() {
+        UUID id = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        deliveries.pipeInput("STU001", announcement(id));
+        deliveries.pipeInput("STU002", announcement(id));
+        deliveries.pipeInput("STU009", announcement(other));
+        acks.pipeInput("STU001", ack(id));
+
+        KeyValueStore<String, Long> store = driver.getKeyValueStore(AckAggregationTopology.RECIPIENTS_STORE);
+        List<String> pending = new ArrayList<>();
+        try (var range = store.range(AckAggregationTopology.firstRecipientKey(id.toString()),
+                AckAggregationTopology.lastRecipientKey(id.toString()))) {
+            range.forEachRemaining(entry -> {
+                if (entry.value == AckAggregationTopology.PENDING) pending.add(AckAggregationTopology.studentIdOf(entry.key));
+            });
+        }
+        assertEquals(List.of("STU002"), pending);
+    }
+
+    @Test
+    void countsRoutedInAppNotificationsOnly() {
+        UUID id = UUID.randomUUID();
+        routed.pipeInput("STU001", announcement(id));
+        routed.pipeInput("a@example.com", new NotificationEnvelope(UUID.randomUUID(), Channel.EMAIL, 0, null, null, "Hi", null));
+
+        assertEquals(List.of(new AckSummary(id.toString(), "Exams moved", 1, 0, 1)), summaries);
+    }
+
+    @Test
+    void freeTextAcksAreIgnored() {
+        acks.pipeInput("STU001", NotificationEnvelope.of(Channel.ACK, "Thanks"));
+
+        assertEquals(0, summaries.size());
+    }
+
+    @Test
+    void expiresNotificationsPastRetention() {
+        UUID id = UUID.randomUUID();
+        deliveries.pipeInput("STU001", announcement(id), 0L);
+
+        driver.advanceWallClockTime(Duration.ofDays(2));
+
+        KeyValueStore<String, AckCounts> counts = driver.getKeyValueStore(AckAggregationTopology.COUNTS_STORE);
+        assertNull(counts.get(id.toString()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.ApacheKafka.ack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+
+class AckQueryServiceTest {
+
+    private static final HostInfo SELF = new HostInfo("node-a", 8081);
+    private static final HostInfo OTHER = new HostInfo("node-b", 8081);
+
+    private final StreamsBuilderFactoryBean factory = mock(StreamsBuilderFactoryBean.class);
+    private final KafkaStreams kafkaStreams = mock(KafkaStreams.class);
+    @SuppressWarnings("unchecked")
+    private final ReadOnlyKeyValueStore<String, AckCounts> counts = mock(ReadOnlyKeyValueStore.class);
+    private final Properties config = new Properties();
+    private final AckQueryService service = new AckQueryService(factory);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(factory.getKafkaStreams()).thenReturn(kafkaStreams);
+        when(factory.getStreamsConfiguration()).thenReturn(config);
+        when(kafkaStreams.state()).thenReturn(KafkaStreams.State.RUNNING);
+        when(kafkaStreams.store(any(StoreQueryParameters.class))).thenReturn(counts);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void activeHost(HostInfo host) {
+        config.setProperty(StreamsConfig.APPLICATION_SERVER_CONFIG, "node-a:8081");
+        when(kafkaStreams.queryMetadataForKey(eq(AckAggregationTopology.COUNTS_STORE), anyString(), any(Serializer.class)))
+                .thenReturn(new KeyQueryMetadata(host, Set.of(), 0));
+    }
+
+    @Test
+    void keyHostedHereIsReadLocally() {
+        activeHost(SELF);
+
+        assertEquals(Optional.empty(), service.summary("n1"));
+        verify(counts).get("n1");
+    }
+
+    @Test
+    void keyHostedElsewhereNamesTheHost() {
+        activeHost(OTHER);
+
+        AckHostedElsewhereException e = assertThrows(AckHostedElsewhereException.class, () -> service.summary("n1"));
+
+        assertEquals(OTHER, e.host());
+        verify(counts, never()).get(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unknownOwnerDuringRebalanceIsUnavailable() {
+        config.setProperty(StreamsConfig.APPLICATION_SERVER_CONFIG, "node-a:8081");
+        when(kafkaStreams.queryMetadataForKey(anyString(), anyString(), any(Serializer.class)))
+                .thenReturn(KeyQueryMetadata.NOT_AVAILABLE);
+
+        assertThrows(IllegalStateException.class, () -> service.summary("n1"));
+    }
+
+    @Test
+    void withoutApplicationServerEveryKeyIsLocal() {
+        service.summary("n1");
+
+        verify(counts).get("n1");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ApacheKafka.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.ApacheKafka.service.DeadLetterReplayService;
+
+class DeadLetterControllerTest {
+
+    private final DeadLetterReplayService replayService = mock(DeadLetterReplayService.class);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new DeadLetterController(replayService)).build();
+
+    @Test
+    void replayPassesBoundsAndReturnsJobId() throws Exception {
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        when(replayService.start("email_notifications.DLT", from, null, 2, 50.0, 3)).thenReturn("job-1");
+
+        mvc.perform(post("/notify/dlt/email_notifications.DLT/replay")
+                        .param("from", "2026-01-01T00:00:00Z").param("partition", "2")
+                        .param("ratePerSecond", "50").param("workers", "3"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("job-1"));
+    }
+
+    @Test
+    void replayUsesDefaultRateAndWorkers() throws Exception {
+        when(replayService.start(any(), any(), any(), any(), anyDouble(), anyInt())).thenReturn("job-2");
+
+        mvc.perform(post("/notify/dlt/email_notifications.DLT/replay")).andExpect(status().isAccepted());
+
+        verify(replayService).start(eq("email_notifications.DLT"), eq(null), eq(null), eq(null), eq(200.0), eq(4));
+    }
+
+    @Test
+    void badTopicIsRejected() throws Exception {
+        when(replayService.start(eq("email_notifications"), any(), any(), any(), anyDouble(), anyInt()))
+                .thenThrow(new IllegalArgumentException("email_notifications is not a dead-letter topic"));
+        when(replayService.depth("missing.DLT")).thenThrow(new IllegalArgumentException("No topic missing.DLT"));
+
+        mvc.perform(post("/notify/dlt/email_notifications/replay"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("email_notifications is not a dead-letter topic"));
+        mvc.perform(get("/notify/dlt/missing.DLT"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void depthListsRecordsPerPartition() throws Exception {
+        when(replayService.depth("email_notifications.DLT")).thenReturn(Map.of(0, 5L, 1, 0L));
+
+        mvc.perform(get("/notify/dlt/email_notifications.DLT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['0']").value(5));
+    }
+
+    @Test
+    void unknownJobIsNotFound() throws Exception {
+        when(replayService.status("nope")).thenReturn(Optional.empty());
+
+        mvc.perform(get("/notify/dlt/replay/nope")).andExpect(status().isNotFound());
+        mvc.perform(delete("/notify/dlt/replay/nope")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cancelAcceptsKnownJob() throws Exception {
+        when(replayService.cancel("job-1")).thenReturn(true);
+
+        mvc.perform(delete("/notify/dlt/replay/job-1")).andExpect(status().isAccepted());
+    }
+}
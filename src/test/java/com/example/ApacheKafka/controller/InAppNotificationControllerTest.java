@@ -0,0 +1,42 @@
+package com.example.ApacheKafka.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.apache.kafka.streams.state.HostInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.ApacheKafka.ack.AckHostedElsewhereException;
+import com.example.ApacheKafka.ack.AckQueryService;
+import com.example.ApacheKafka.service.InAppNotificationProducer;
+import com.example.ApacheKafka.service.InboxService;
+
+class InAppNotificationControllerTest {
+
+    private final AckQueryService acks = mock(AckQueryService.class);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new InAppNotificationController(
+            mock(InAppNotificationProducer.class), mock(InboxService.class), acks)).build();
+
+    @Test
+    void ackQueryForAnotherInstanceRedirectsThere() throws Exception {
+        when(acks.summary("n1")).thenThrow(new AckHostedElsewhereException("n1", new HostInfo("node-b", 8082)));
+
+        mvc.perform(get("/api/inapp/acks/n1"))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string("Location", "http://node-b:8082/api/inapp/acks/n1"))
+                .andExpect(jsonPath("$.host").value("node-b:8082"));
+    }
+
+    @Test
+    void ackQueryDuringRebalanceIsUnavailable() throws Exception {
+        when(acks.summary("n1")).thenThrow(new IllegalStateException("Ack aggregation is not running yet"));
+
+        mvc.perform(get("/api/inapp/acks/n1/pending")).andExpect(status().isServiceUnavailable());
+    }
+}
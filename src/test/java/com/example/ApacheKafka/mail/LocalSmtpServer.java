@@ -0,0 +1,114 @@
+package com.example.ApacheKafka.mail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Minimal in-process SMTP stand-in: accepts any sender and recipient, counts
+ * connections and delivered messages, and discards message data unless a
+ * {@link #onMessage listener} wants it.
+ */
+public class LocalSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers = Executors.newCachedThreadPool();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger messages = new AtomicInteger();
+    private final long perMessageDelayMs;
+    private volatile Consumer<String> messageListener;
+
+    public LocalSmtpServer() throws IOException {
+        this(0);
+    }
+
+    public LocalSmtpServer(long perMessageDelayMs) throws IOException {
+        this.perMessageDelayMs = perMessageDelayMs;
+        this.serverSocket = new ServerSocket(0);
+        workers.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /** Receives the raw DATA section of each accepted message, on the connection's thread. */
+    public void onMessage(Consumer<String> listener) {
+        this.messageListener = listener;
+    }
+
+    public int getMessageCount() {
+        return messages.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.incrementAndGet();
+                workers.execute(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost ESMTP stub");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        Consumer<String> listener = messageListener;
+                        StringBuilder data = listener != null ? new StringBuilder() : null;
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            if (data != null) data.append(line).append('\n');
+                        }
+                        if (perMessageDelayMs > 0) Thread.sleep(perMessageDelayMs);
+                        messages.incrementAndGet();
+                        if (listener != null) listener.accept(data.toString());
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // client went away
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ApacheKafka.mail;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+
+class PooledJavaMailSenderTest {
+
+    private static PooledJavaMailSender sender(int port, int poolSize, int maxMessagesPerConnection) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(poolSize, maxMessagesPerConnection, 30000, 5000);
+        sender.setHost("localhost");
+        sender.setPort(port);
+        return sender;
+    }
+
+    private static SimpleMailMessage mail(int i) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom("noreply@example.com");
+        mail.setTo("user" + i + "@example.com");
+        mail.setSubject("Pool test");
+        mail.setText("Message " + i);
+        return mail;
+    }
+
+    @Test
+    void reusesPooledConnectionsAcrossConcurrentSends() throws Exception {
+        int messages = 400;
+        int threads = 8;
+        int poolSize = 4;
+
+        try (LocalSmtpServer smtp = new LocalSmtpServer()) {
+            PooledJavaMailSender sender = sender(smtp.getPort(), poolSize, 1000);
+            ExecutorService callers = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < messages; i++) {
+                int n = i;
+                futures.add(callers.submit(() -> sender.send(mail(n))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            callers.shutdown();
+            sender.destroy();
+
+            SmtpTransportPool pool = sender.getPool();
+            System.out.printf("Pooled SMTP: %d sends in %.2fs (%.0f sends/sec), %d connections, reuse ratio %.3f%n",
+                    messages, seconds, messages / seconds, pool.getConnectionsOpened(), pool.getReuseRatio());
+
+            assertEquals(messages, smtp.getMessageCount());
+            assertEquals(messages, pool.getSendCount());
+            assertTrue(smtp.getConnectionCount() <= poolSize);
+            assertTrue(pool.getReuseRatio() >= 0.99);
+        }
+    }
+
+    @Test
+    void recyclesConnectionAfterMessageLimit() throws Exception {
+        try (LocalSmtpServer smtp = new LocalSmtpServer()) {
+            PooledJavaMailSender sender = sender(smtp.getPort(), 1, 10);
+            for (int i = 0; i < 30; i++) {
+                sender.send(mail(i));
+            }
+            sender.destroy();
+
+            assertEquals(30, smtp.getMessageCount());
+            assertEquals(3, sender.getPool().getConnectionsOpened());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ApacheKafka.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+
+class DedupKeyTest {
+
+    private static ConsumerRecord<String, NotificationEnvelope> record(NotificationEnvelope envelope) {
+        return new ConsumerRecord<>("email_notifications", 0, 0, "a@example.com", envelope);
+    }
+
+    @Test
+    void repeatedTextIsANewMessageButARedeliveryIsNot() {
+        NotificationEnvelope first = NotificationEnvelope.of(Channel.EMAIL, "Exam moved");
+        NotificationEnvelope repeat = NotificationEnvelope.of(Channel.EMAIL, "Exam moved");
+
+        String key = DedupKey.of(record(first), "a@example.com", "Exam moved");
+
+        assertEquals(key, DedupKey.of(record(first), "a@example.com", "Exam moved"));
+        assertNotEquals(key, DedupKey.of(record(repeat), "a@example.com", "Exam moved"));
+        assertEquals(DedupKey.of(first.messageId()), key);
+        assertTrue(DedupKey.isValid(key));
+    }
+
+    @Test
+    void legacyRecordsKeepTheContentHash() {
+        NotificationEnvelope legacy = NotificationEnvelopeCodec.decode("a@example.com|hi".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(DedupKey.of("a@example.com", "hi"), DedupKey.of(record(legacy), "a@example.com", "hi"));
+    }
+
+    @Test
+    void validHeaderWinsAndMalformedOnesAreIgnored() {
+        NotificationEnvelope envelope = NotificationEnvelope.of(Channel.EMAIL, "hi");
+        String headerKey = DedupKey.of(UUID.randomUUID());
+        ConsumerRecord<String, NotificationEnvelope> withHeader = record(envelope);
+        DedupKey.set(withHeader.headers(), headerKey);
+        assertEquals(headerKey, DedupKey.of(withHeader, "a@example.com", "hi"));
+
+        for (String bad : new String[] {"", "abc", "zz" + headerKey.substring(2), headerKey + "00"}) {
+            ConsumerRecord<String, NotificationEnvelope> malformed = record(envelope);
+            DedupKey.set(malformed.headers(), bad);
+            assertEquals(DedupKey.of(envelope.messageId()), DedupKey.of(malformed, "a@example.com", "hi"), bad);
+            assertFalse(DedupKey.isValid(bad));
+        }
+    }
+}
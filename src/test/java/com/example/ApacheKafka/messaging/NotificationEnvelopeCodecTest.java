@@ -0,0 +1,61 @@
+package com.example.ApacheKafka.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+
+class NotificationEnvelopeCodecTest {
+
+    @Test
+    void roundTripsAllFields() {
+        Map<String, String> variables = new LinkedHashMap<>();
+        variables.put("name", "Ann");
+        variables.put("course", "Kafka | Streams ✓");
+        NotificationEnvelope envelope = new NotificationEnvelope(java.util.UUID.randomUUID(), Channel.IN_APP, 3,
+                "welcome", variables, "Body with | pipes", null);
+
+        NotificationEnvelope decoded = NotificationEnvelopeCodec.decode(NotificationEnvelopeCodec.encode(envelope));
+
+        assertEquals(envelope, decoded);
+        assertEquals(variables, decoded.variables());
+    }
+
+    @Test
+    void keepsNullOptionalFields() {
+        NotificationEnvelope envelope = NotificationEnvelope.of(Channel.EMAIL, null);
+
+        NotificationEnvelope decoded = NotificationEnvelopeCodec.decode(NotificationEnvelopeCodec.encode(envelope));
+
+        assertNull(decoded.templateId());
+        assertNull(decoded.body());
+        assertTrue(decoded.variables().isEmpty());
+        assertEquals(envelope.messageId(), decoded.messageId());
+    }
+
+    @Test
+    void decodesLegacyPipeRecords() {
+        NotificationEnvelope decoded = NotificationEnvelopeCodec.decode(
+                " a@example.com |Hello | world".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("a@example.com", decoded.recipient());
+        assertEquals("Hello | world", decoded.body());
+    }
+
+    @Test
+    void rejectsTruncatedPayloads() {
+        byte[] encoded = NotificationEnvelopeCodec.encode(NotificationEnvelope.of(Channel.EMAIL, "Hello"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> NotificationEnvelopeCodec.decode(Arrays.copyOf(encoded, encoded.length - 2)));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.ApacheKafka.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+class RecipientPartitionerTest {
+
+    private static final String TOPIC = "email_notifications";
+    private static final int PARTITIONS = 6;
+
+    private final RecipientPartitioner partitioner = new RecipientPartitioner();
+    private final Cluster cluster = cluster(PARTITIONS);
+
+    private static Cluster cluster(int partitions) {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> infos = IntStream.range(0, partitions)
+                .mapToObj(p -> new PartitionInfo(TOPIC, p, node, new Node[]{node}, new Node[]{node}))
+                .toList();
+        return new Cluster("test", List.of(node), infos, Set.of(), Set.of());
+    }
+
+    private int partition(Object key) {
+        return partitioner.partition(TOPIC, key, null, null, null, cluster);
+    }
+
+    @Test
+    void addressesDifferingInCaseOrSpacingShareAPartition() {
+        int expected = partition("student@school.edu");
+
+        assertEquals(expected, partition("Student@School.EDU"));
+        assertEquals(expected, partition("  student@school.edu "));
+    }
+
+    @Test
+    void lowerCaseKeysLandWhereTheDefaultPartitionerPutsThem() {
+        for (String key : List.of("a@x.io", "s-1042", "student@school.edu")) {
+            int byDefault = Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % PARTITIONS;
+            assertEquals(byDefault, partition(key), key);
+        }
+    }
+
+    @Test
+    void recipientsSpreadOverAllPartitions() {
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            used.add(partition("student-" + i + "@school.edu"));
+        }
+        assertEquals(PARTITIONS, used.size());
+    }
+
+    @Test
+    void keylessRecordsGetAValidPartition() {
+        for (int i = 0; i < 100; i++) {
+            int partition = partition(null);
+            assertTrue(partition >= 0 && partition < PARTITIONS);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ApacheKafka.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.routing.NotificationRouter;
+import com.example.ApacheKafka.util.CircuitBreaker;
+
+class CircuitBreakerCoordinatorTest {
+
+    private static final long WAIT_MS = 5_000;
+    private static final long LONG_OPEN_MS = 60_000;
+    private static final long SHORT_OPEN_MS = 200;
+
+    private final MessageListenerContainer emailListener = container("email-listener", "email_notifications");
+    private final MessageListenerContainer inAppListener = container("inapp-listener", "inapp_notifications");
+    private final MessageListenerContainer ackListener = container("ack-listener", "ack_notifications");
+    private final NotificationRouter router = mock(NotificationRouter.class);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+    private CircuitBreaker smtp;
+    private CircuitBreaker db;
+    private CircuitBreakerCoordinator coordinator;
+
+    /** Probes run every 20 ms once a breaker has been open for {@code openMs}. */
+    private void start(long openMs) {
+        smtp = new CircuitBreaker("smtp", 4, 2, 0.5, openMs, 1);
+        db = new CircuitBreaker("db", 4, 2, 0.5, openMs, 1);
+        when(registry.getListenerContainers()).thenReturn(List.of(emailListener, inAppListener, ackListener));
+        when(router.channels()).thenReturn(EnumSet.of(Channel.EMAIL, Channel.IN_APP));
+        coordinator = new CircuitBreakerCoordinator(registry, router, smtp, db, mock(JavaMailSender.class), jdbc, 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coordinator.destroy();
+    }
+
+    private static MessageListenerContainer container(String id, String topic) {
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(container.getListenerId()).thenReturn(id);
+        when(container.getContainerProperties()).thenReturn(new ContainerProperties(topic));
+        return container;
+    }
+
+    private static void trip(CircuitBreaker breaker) {
+        while (breaker.getState() == CircuitBreaker.State.CLOSED) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+    }
+
+    @Test
+    void openSmtpBreakerPausesOnlyEmailConsumers() {
+        start(LONG_OPEN_MS);
+        trip(smtp);
+
+        verify(emailListener, timeout(WAIT_MS)).pause();
+        verify(router, timeout(WAIT_MS)).pause(Channel.EMAIL);
+        verify(inAppListener, never()).pause();
+        verify(router, never()).pause(Channel.IN_APP);
+        assertEquals(List.of("router-email", "email-listener"), coordinator.status().get("smtp").pausing());
+    }
+
+    @Test
+    void openDbBreakerPausesEveryConsumerThatWritesToTheDatabase() {
+        start(LONG_OPEN_MS);
+        trip(db);
+
+        verify(emailListener, timeout(WAIT_MS)).pause();
+        verify(inAppListener, timeout(WAIT_MS)).pause();
+        verify(router, timeout(WAIT_MS)).pause(Channel.EMAIL);
+        verify(router, timeout(WAIT_MS)).pause(Channel.IN_APP);
+        verify(ackListener, after(100).never()).pause();
+    }
+
+    @Test
+    void successfulProbeClosesTheBreakerAndResumes() {
+        start(SHORT_OPEN_MS);
+
+        trip(db);
+
+        verify(inAppListener, timeout(WAIT_MS)).pause();
+        verify(inAppListener, timeout(WAIT_MS)).resume();
+        verify(router, timeout(WAIT_MS)).resume(Channel.IN_APP);
+        verify(jdbc).queryForObject("SELECT 1", Integer.class);
+        assertEquals(CircuitBreaker.State.CLOSED, db.getState());
+    }
+
+    @Test
+    void failedProbeKeepsConsumersPaused() {
+        when(jdbc.queryForObject("SELECT 1", Integer.class)).thenThrow(new IllegalStateException("connection refused"));
+        start(SHORT_OPEN_MS);
+
+        trip(db);
+
+        verify(inAppListener, timeout(WAIT_MS)).pause();
+        verify(jdbc, timeout(WAIT_MS)).queryForObject("SELECT 1", Integer.class);
+        verify(inAppListener, after(SHORT_OPEN_MS).never()).resume();
+        assertEquals(CircuitBreaker.State.OPEN, db.getState());
+    }
+
+    @Test
+    void sharedConsumerResumesOnlyOnceNoBreakerHoldsIt() {
+        when(jdbc.queryForObject("SELECT 1", Integer.class)).thenThrow(new IllegalStateException("connection refused"));
+        start(SHORT_OPEN_MS);
+
+        trip(smtp);
+        trip(db);
+
+        verify(emailListener, timeout(WAIT_MS)).pause();
+        // smtp's probe is a no-op for a sender that is not a JavaMailSenderImpl, so it closes; db stays open.
+        verify(emailListener, after(3 * SHORT_OPEN_MS).never()).resume();
+        assertEquals(CircuitBreaker.State.CLOSED, smtp.getState());
+    }
+}
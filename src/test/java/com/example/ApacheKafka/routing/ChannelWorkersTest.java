@@ -0,0 +1,63 @@
+package com.example.ApacheKafka.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+
+class ChannelWorkersTest {
+
+    @Test
+    void runsEveryIndexOnceAcrossBoundedChunks() {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            AtomicIntegerArray seen = new AtomicIntegerArray(100);
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            new ChannelWorkers(pool, 3).forEach(100, i -> {
+                seen.incrementAndGet(i);
+                threads.add(Thread.currentThread().getName());
+            });
+            for (int i = 0; i < 100; i++) assertEquals(1, seen.get(i));
+            assertTrue(threads.size() <= 3);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void refusedChunksRunOnTheCaller() {
+        AtomicIntegerArray seen = new AtomicIntegerArray(10);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        new ChannelWorkers(task -> {
+            throw new RejectedExecutionException("saturated");
+        }, 4).forEach(10, i -> {
+            seen.incrementAndGet(i);
+            threads.add(Thread.currentThread().getName());
+        });
+
+        for (int i = 0; i < 10; i++) assertEquals(1, seen.get(i));
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    void policyPropertiesOverrideChannelDefaults() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("notification.router.channels.in-app.workers", "6")
+                .withProperty("notification.router.channels.in-app.linger-ms", "50");
+
+        ChannelPolicy policy = ChannelPolicy.resolve(env, Channel.IN_APP, new ChannelPolicy(1, 1, 500, 0));
+
+        assertEquals(new ChannelPolicy(1, 6, 500, 50), policy);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.ApacheKafka.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.util.CircuitOpenException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class NotificationRouterTest {
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentKafkaListenerContainerFactory<String, NotificationEnvelope> factory =
+            mock(ConcurrentKafkaListenerContainerFactory.class);
+    /** Lane containers, in the order the channels are registered. */
+    private final List<ConcurrentMessageListenerContainer<String, NotificationEnvelope>> containers = new ArrayList<>();
+    private final MockEnvironment env = new MockEnvironment();
+
+    NotificationRouterTest() {
+        when(factory.createContainer(NotificationRouter.TOPIC)).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            ConcurrentMessageListenerContainer<String, NotificationEnvelope> container = mock(ConcurrentMessageListenerContainer.class);
+            when(container.getContainerProperties()).thenReturn(new ContainerProperties(NotificationRouter.TOPIC));
+            containers.add(container);
+            return container;
+        });
+    }
+
+    private static class RecordingChannel implements NotificationChannel {
+
+        private final Channel channel;
+        private final List<List<ConsumerRecord<String, NotificationEnvelope>>> batches = new ArrayList<>();
+        private RuntimeException failure;
+
+        RecordingChannel(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public Channel channel() {
+            return channel;
+        }
+
+        @Override
+        public void deliver(List<ConsumerRecord<String, NotificationEnvelope>> batch, ChannelWorkers workers) {
+            if (failure != null) throw failure;
+            batches.add(batch);
+        }
+    }
+
+    private NotificationRouter router(NotificationChannel... channels) {
+        return new NotificationRouter(List.of(channels), factory, mock(DeadLetterPublishingRecoverer.class), env,
+                new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchAcknowledgingMessageListener<String, NotificationEnvelope> listener(int lane) {
+        ArgumentCaptor<Object> listener = ArgumentCaptor.forClass(Object.class);
+        verify(containers.get(lane)).setupMessageListener(listener.capture());
+        return (BatchAcknowledgingMessageListener<String, NotificationEnvelope>) listener.getValue();
+    }
+
+    private static ConsumerRecord<String, NotificationEnvelope> record(long offset, Channel channel) {
+        return new ConsumerRecord<>(NotificationRouter.TOPIC, 0, offset, "r", NotificationEnvelope.of(channel, "m" + offset));
+    }
+
+    @Test
+    void eachLaneDeliversOnlyItsOwnChannel() {
+        RecordingChannel email = new RecordingChannel(Channel.EMAIL);
+        RecordingChannel inApp = new RecordingChannel(Channel.IN_APP);
+        router(email, inApp);
+        List<ConsumerRecord<String, NotificationEnvelope>> polled = List.of(
+                record(0, Channel.EMAIL), record(1, Channel.IN_APP), record(2, Channel.EMAIL),
+                new ConsumerRecord<>(NotificationRouter.TOPIC, 0, 3, "r", null));
+        Acknowledgment emailAck = mock(Acknowledgment.class);
+        Acknowledgment inAppAck = mock(Acknowledgment.class);
+
+        listener(0).onMessage(polled, emailAck);
+        listener(1).onMessage(polled, inAppAck);
+
+        assertEquals(List.of(List.of(polled.get(0), polled.get(2))), email.batches);
+        assertEquals(List.of(List.of(polled.get(1))), inApp.batches);
+        verify(emailAck).acknowledge();
+        verify(inAppAck).acknowledge();
+    }
+
+    @Test
+    void batchWithoutOwnRecordsIsAcknowledgedWithoutDelivery() {
+        RecordingChannel email = new RecordingChannel(Channel.EMAIL);
+        router(email);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        listener(0).onMessage(List.of(record(0, Channel.IN_APP)), ack);
+
+        assertTrue(email.batches.isEmpty());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void batchRefusedByAnOpenBreakerIsNackedFromTheStart() {
+        RecordingChannel email = new RecordingChannel(Channel.EMAIL);
+        email.failure = new CircuitOpenException("smtp");
+        router(email);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        listener(0).onMessage(List.of(record(0, Channel.EMAIL)), ack);
+
+        verify(ack).nack(0, NotificationChannel.REFUSED_BATCH_BACKOFF);
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void otherFailuresGoToTheLaneErrorHandler() {
+        RecordingChannel email = new RecordingChannel(Channel.EMAIL);
+        email.failure = new IllegalStateException("db down");
+        router(email);
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        assertThrows(IllegalStateException.class, () -> listener(0).onMessage(List.of(record(0, Channel.EMAIL)), ack));
+
+        verify(ack, never()).acknowledge();
+        verify(ack, never()).nack(anyInt(), any());
+    }
+
+    @Test
+    void laneUsesItsOwnGroupAndBatchPolicy() {
+        env.setProperty("notification.router.channels.email.max-batch-size", "40");
+        env.setProperty("notification.router.channels.email.linger-ms", "25");
+        env.setProperty("notification.router.channels.email.consumers", "3");
+        router(new RecordingChannel(Channel.EMAIL));
+
+        ConcurrentMessageListenerContainer<String, NotificationEnvelope> container = containers.get(0);
+        ContainerProperties props = container.getContainerProperties();
+        assertEquals("router-email", props.getGroupId());
+        assertEquals("40", props.getKafkaConsumerProperties().getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG));
+        assertEquals("25", props.getKafkaConsumerProperties().getProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG));
+        verify(container).setConcurrency(3);
+    }
+
+    @Test
+    void pauseAndResumeOnlyTouchTheChannelsLane() {
+        NotificationRouter router = router(new RecordingChannel(Channel.EMAIL), new RecordingChannel(Channel.IN_APP));
+
+        router.pause(Channel.IN_APP);
+        router.resume(Channel.IN_APP);
+
+        verify(containers.get(1)).pause();
+        verify(containers.get(1)).resume();
+        verify(containers.get(0), never()).pause();
+    }
+
+    @Test
+    void secondChannelForTheSameEnvelopeChannelIsRejected() {
+        assertThrows(IllegalStateException.class,
+                () -> router(new RecordingChannel(Channel.EMAIL), new RecordingChannel(Channel.EMAIL)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.ApacheKafka.service.BulkPublishService.BulkPublishStatus;
+import com.example.ApacheKafka.service.BulkPublishService.BulkPublishStatus.State;
+
+class BulkPublishServiceTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @TempDir
+    Path dir;
+
+    private NotificationProducer producer;
+
+    @BeforeEach
+    void setUp() {
+        producer = mock(NotificationProducer.class);
+        when(producer.sendNotification(anyString(), eq("hi"))).thenReturn(CompletableFuture.completedFuture(null));
+        when(producer.sendNotification(eq("bad@example.com"), eq("hi")))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+    }
+
+    private Path recipients(String... lines) throws Exception {
+        Path file = dir.resolve("recipients.csv");
+        Files.write(file, List.of(lines));
+        return file;
+    }
+
+    @Test
+    void completedJobCountsAckedAndFailedSendsAndDeletesUpload() throws Exception {
+        Path file = recipients("a@example.com", "bad@example.com", "c@example.com");
+        BulkPublishService service = new BulkPublishService(producer, DIRECT, 2);
+
+        String jobId = service.start(file, "hi", true);
+
+        BulkPublishStatus status = service.status(jobId).orElseThrow();
+        assertEquals(State.COMPLETED, status.state());
+        assertEquals(3, status.accepted());
+        assertEquals(2, status.acked());
+        assertEquals(1, status.failed());
+        assertNotNull(status.finishedAt());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void unreadableFileFailsTheJobAndKeepsConfiguredFile() throws Exception {
+        Path missing = dir.resolve("missing.xlsx");
+        BulkPublishService service = new BulkPublishService(producer, DIRECT, 2);
+
+        String jobId = service.start(missing, "hi", false);
+
+        BulkPublishStatus status = service.status(jobId).orElseThrow();
+        assertEquals(State.FAILED, status.state());
+        assertNotNull(status.error());
+        verifyNoInteractions(producer);
+    }
+
+    @Test
+    void rejectedSubmitDeletesUploadAndRegistersNothing() throws Exception {
+        Path file = recipients("a@example.com");
+        Executor full = task -> {
+            throw new RejectedExecutionException("queue full");
+        };
+        BulkPublishService service = new BulkPublishService(producer, full, 2);
+
+        assertThrows(RejectedExecutionException.class, () -> service.start(file, "hi", true));
+
+        assertFalse(Files.exists(file));
+        verifyNoInteractions(producer);
+    }
+
+    @Test
+    void runningJobReportsRunningUntilItsExecutorRunsIt() throws Exception {
+        Path file = recipients("a@example.com");
+        Runnable[] queued = new Runnable[1];
+        BulkPublishService service = new BulkPublishService(producer, task -> queued[0] = task, 2);
+
+        String jobId = service.start(file, "hi", false);
+        assertEquals(State.RUNNING, service.status(jobId).orElseThrow().state());
+
+        queued[0].run();
+        assertEquals(State.COMPLETED, service.status(jobId).orElseThrow().state());
+        assertTrue(Files.exists(file));
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+
+import com.example.ApacheKafka.service.DeadLetterReplayService.ReplayStatus;
+import com.example.ApacheKafka.service.DeadLetterReplayService.Slice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DeadLetterReplayServiceTest {
+
+    private static final String DLT = "email_notifications.DLT";
+    private static final TopicPartition P0 = new TopicPartition(DLT, 0);
+    private static final TopicPartition P1 = new TopicPartition(DLT, 1);
+
+    private final Queue<MockConsumer<String, byte[]>> consumers = new ArrayDeque<>();
+    private final Queue<ProducerRecord<String, byte[]>> sent = new ConcurrentLinkedQueue<>();
+    private DeadLetterReplayService service;
+
+    @AfterEach
+    void shutDown() {
+        if (service != null) service.destroy();
+    }
+
+    @Test
+    void planCutsEachPartitionIntoSlicesForTheWorkers() {
+        TimedConsumer consumer = dlt(Map.of(P0, 10L, P1, 0L), Map.of(P0, 20L, P1, 3L));
+
+        List<Slice> slices = DeadLetterReplayService.plan(consumer, DLT, null, null, null, 4);
+
+        assertEquals(List.of(new Slice(P0, 10, 15), new Slice(P0, 15, 20), new Slice(P1, 0, 2), new Slice(P1, 2, 3)),
+                slices);
+    }
+
+    @Test
+    void planBoundsTheRangeByTimestamps() {
+        TimedConsumer consumer = dlt(Map.of(P0, 0L, P1, 0L), Map.of(P0, 100L, P1, 50L));
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        Instant to = Instant.parse("2026-01-02T00:00:00Z");
+        consumer.offsetAt(P0, from, 40);
+        consumer.offsetAt(P0, to, 60);
+        // P1 has nothing at or after 'from', so it is empty.
+
+        List<Slice> slices = DeadLetterReplayService.plan(consumer, DLT, from, to, null, 1);
+
+        assertEquals(List.of(new Slice(P0, 40, 60)), slices);
+    }
+
+    @Test
+    void planLimitsToOnePartition() {
+        TimedConsumer consumer = dlt(Map.of(P0, 0L, P1, 0L), Map.of(P0, 5L, P1, 5L));
+
+        assertEquals(List.of(new Slice(P1, 0, 5)), DeadLetterReplayService.plan(consumer, DLT, null, null, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> DeadLetterReplayService.plan(consumer, DLT, null, null, 7, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> DeadLetterReplayService.plan(consumer, "missing.DLT", null, null, null, 1));
+    }
+
+    @Test
+    void rejectsTopicsThatAreNotDeadLetterTopics() {
+        service = service();
+
+        assertThrows(IllegalArgumentException.class, () -> service.start("email_notifications", null, null, null, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> service.start(DLT, null, null, null, 0, 1));
+    }
+
+    @Test
+    void replaysRecordsOntoSourceTopicWithoutDltHeaders() throws Exception {
+        service = service();
+        consumers.add(dlt(Map.of(P0, 0L, P1, 0L), Map.of(P0, 3L, P1, 0L)));
+        consumers.add(worker(P0, 3));
+
+        String jobId = service.start(DLT, null, null, null, 1000, 1);
+        ReplayStatus status = awaitFinished(jobId);
+
+        assertEquals(ReplayStatus.State.COMPLETED, status.state());
+        assertEquals(3, status.total());
+        assertEquals(3, status.replayed());
+        assertEquals(3, sent.size());
+        ProducerRecord<String, byte[]> first = sent.peek();
+        assertEquals("email_notifications", first.topic());
+        assertEquals("key-0", first.key());
+        assertNull(first.headers().lastHeader("kafka_dlt-exception-message"));
+        assertNotNull(first.headers().lastHeader("dedup-key"));
+        assertEquals(DLT + "-0@0", new String(first.headers()
+                .lastHeader(DeadLetterReplayService.REPLAYED_FROM_HEADER).value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void cancelStopsTheJobBeforeTheRangeIsReplayed() throws Exception {
+        service = service();
+        consumers.add(dlt(Map.of(P0, 0L, P1, 0L), Map.of(P0, 200L, P1, 0L)));
+        consumers.add(worker(P0, 200));
+
+        String jobId = service.start(DLT, null, null, null, 20, 1);
+        while (sent.isEmpty()) Thread.sleep(5);
+        assertTrue(service.cancel(jobId));
+        ReplayStatus status = awaitFinished(jobId);
+
+        assertEquals(ReplayStatus.State.CANCELLED, status.state());
+        assertTrue(status.replayed() < 200, "replayed " + status.replayed());
+        assertEquals(false, service.cancel("unknown"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private DeadLetterReplayService service() {
+        ConsumerFactory<String, byte[]> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(anyString(), anyString(), anyString(), any(Properties.class)))
+                .thenAnswer(invocation -> consumers.remove());
+        KafkaOperations<String, byte[]> template = mock(KafkaOperations.class);
+        when(template.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+        return new DeadLetterReplayService(consumerFactory, template, new SimpleMeterRegistry(), 4, 100);
+    }
+
+    private ReplayStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        ReplayStatus status = service.status(jobId).orElseThrow();
+        while (status.state() == ReplayStatus.State.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = service.status(jobId).orElseThrow();
+        }
+        return status;
+    }
+
+    private static TimedConsumer dlt(Map<TopicPartition, Long> begin, Map<TopicPartition, Long> end) {
+        TimedConsumer consumer = new TimedConsumer();
+        Node node = new Node(0, "localhost", 9092);
+        consumer.updatePartitions(DLT, List.of(new PartitionInfo(DLT, 0, node, null, null),
+                new PartitionInfo(DLT, 1, node, null, null)));
+        consumer.updateBeginningOffsets(new HashMap<>(begin));
+        consumer.updateEndOffsets(new HashMap<>(end));
+        return consumer;
+    }
+
+    /** Serves {@code count} records of {@code partition} once the worker has assigned it. */
+    private static MockConsumer<String, byte[]> worker(TopicPartition partition, int count) {
+        MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.schedulePollTask(() -> {
+            for (int offset = 0; offset < count; offset++) {
+                ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(partition.topic(), partition.partition(),
+                        offset, "key-" + offset, ("body-" + offset).getBytes(StandardCharsets.UTF_8));
+                record.headers().add("dedup-key", "abc".getBytes(StandardCharsets.UTF_8));
+                record.headers().add("kafka_dlt-exception-message", "boom".getBytes(StandardCharsets.UTF_8));
+                consumer.addRecord(record);
+            }
+        });
+        return consumer;
+    }
+
+    /** MockConsumer cannot look offsets up by time; this one answers from a table. */
+    private static final class TimedConsumer extends MockConsumer<String, byte[]> {
+
+        private final Map<TopicPartition, Map<Long, Long>> offsetsByTime = new HashMap<>();
+
+        TimedConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        void offsetAt(TopicPartition partition, Instant time, long offset) {
+            offsetsByTime.computeIfAbsent(partition, tp -> new HashMap<>()).put(time.toEpochMilli(), offset);
+        }
+
+        @Override
+        public synchronized Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> query) {
+            Map<TopicPartition, OffsetAndTimestamp> found = new HashMap<>();
+            query.forEach((tp, time) -> {
+                Long offset = offsetsByTime.getOrDefault(tp, Map.of()).get(time);
+                found.put(tp, offset != null ? new OffsetAndTimestamp(offset, time) : null);
+            });
+            return found;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DelayedRetrySchedulerTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private final DelayedRetryScheduler scheduler = new DelayedRetryScheduler(new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void runsTasksInDeadlineOrderNotSubmissionOrder() throws InterruptedException {
+        List<Integer> ran = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (int delay : new int[] {300, 100, 200}) {
+            scheduler.schedule(() -> {
+                ran.add(delay);
+                done.countDown();
+            }, delay, DIRECT);
+        }
+        assertEquals(3, scheduler.getPendingCount());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(100, 200, 300), ran);
+        awaitNothingPending();
+    }
+
+    @Test
+    void reparksHandOffWhenTargetIsSaturated() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        Executor saturatedOnce = task -> {
+            if (attempts.incrementAndGet() == 1) throw new RejectedExecutionException("full");
+            task.run();
+        };
+        CountDownLatch ran = new CountDownLatch(1);
+
+        scheduler.schedule(ran::countDown, 0, saturatedOnce);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        awaitNothingPending();
+    }
+
+    // The count drops once the hand-off returns, which with a direct executor is after the task ran.
+    private void awaitNothingPending() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getPendingCount() > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    void shutdownDropsParkedTasksAndRefusesNewOnes() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        scheduler.schedule(ran::countDown, 200, DIRECT);
+
+        scheduler.destroy();
+
+        assertFalse(ran.await(500, TimeUnit.MILLISECONDS), "parked task ran after shutdown");
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule(() -> { }, 0, DIRECT));
+    }
+}
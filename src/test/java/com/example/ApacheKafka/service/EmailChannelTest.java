@@ -0,0 +1,84 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.repository.FailedMessageBatchRepository;
+import com.example.ApacheKafka.repository.FailedMessageBatchRepository.DeliveryOutcome;
+import com.example.ApacheKafka.routing.ChannelWorkers;
+import com.example.ApacheKafka.template.NotificationTemplateService;
+import com.example.ApacheKafka.template.NotificationTemplateService.Rendered;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EmailChannelTest {
+
+    private final EmailService emailService = mock(EmailService.class);
+    private final FailedMessageBatchRepository batchRepo = mock(FailedMessageBatchRepository.class);
+    private final RetryService retryQueue = mock(RetryService.class);
+    private final NotificationTemplateService templates = mock(NotificationTemplateService.class);
+    private final DeadLetterPublishingRecoverer deadLetters = mock(DeadLetterPublishingRecoverer.class);
+    private final ChannelWorkers workers = new ChannelWorkers(Runnable::run, 2);
+    private final EmailChannel channel = new EmailChannel(emailService, batchRepo, new ResourceGate("db", 2), retryQueue,
+            mock(SentMessageFilter.class), templates, deadLetters, new SimpleMeterRegistry(), true, false, 20, "digest");
+
+    @BeforeEach
+    void setUp() {
+        when(templates.render(any())).thenAnswer(invocation ->
+                Optional.of(new Rendered("Hi", invocation.<NotificationEnvelope>getArgument(0).body())));
+        when(retryQueue.firstAttemptAfter(any())).thenReturn(LocalDateTime.now());
+    }
+
+    private static ConsumerRecord<String, NotificationEnvelope> email(long offset, String to) {
+        return new ConsumerRecord<>("email_notifications", 0, offset, to, NotificationEnvelope.of(Channel.EMAIL, "m" + offset));
+    }
+
+    @Test
+    void openBreakerFailsTheBatchWithoutDeadLetteringIt() {
+        doThrow(new CircuitOpenException("smtp")).when(emailService).sendEmail(eq("b@x.io"), anyString(), anyString());
+
+        assertThrows(CircuitOpenException.class,
+                () -> channel.deliver(List.of(email(0, "a@x.io"), email(1, "b@x.io")), workers));
+
+        verify(deadLetters, never()).accept(any(), any());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DeliveryOutcome>> written = ArgumentCaptor.forClass(List.class);
+        verify(batchRepo).upsertOutcomes(written.capture());
+        // Only the send that went out is recorded, so the redelivered batch skips it.
+        assertEquals(List.of("a@x.io"), written.getValue().stream().map(DeliveryOutcome::recipient).toList());
+        assertTrue(written.getValue().get(0).sent());
+    }
+
+    @Test
+    void otherFailuresAreDeadLettered() {
+        doThrow(new IllegalStateException("rejected")).when(emailService).sendEmail(eq("b@x.io"), anyString(), anyString());
+
+        channel.deliver(List.of(email(0, "a@x.io"), email(1, "b@x.io")), workers);
+
+        verify(deadLetters).accept(any(), any());
+        verify(batchRepo).upsertOutcomes(any());
+    }
+}
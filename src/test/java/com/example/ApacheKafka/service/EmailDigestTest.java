@@ -0,0 +1,56 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ApacheKafka.service.EmailChannel.Email;
+
+class EmailDigestTest {
+
+    private static Email email(String to, String body, boolean urgent) {
+        return new Email(to + body, to, "Subject " + body, body, urgent);
+    }
+
+    @Test
+    void mergesPerRecipientButSendsUrgentAlone() {
+        Email a1 = email("a@example.com", "1", false);
+        Email b1 = email("b@example.com", "1", false);
+        Email a2 = email("A@example.com", "2", false);
+        Email urgent = email("a@example.com", "3", true);
+
+        List<List<Email>> sends = new EmailDigest(true, 20, "{count} updates").group(List.of(a1, b1, a2, urgent));
+
+        assertEquals(List.of(List.of(a1, a2), List.of(b1), List.of(urgent)), sends);
+    }
+
+    @Test
+    void splitsDigestsAtMaxItems() {
+        List<Email> emails = List.of(email("a@example.com", "1", false), email("a@example.com", "2", false),
+                email("a@example.com", "3", false));
+
+        List<List<Email>> sends = new EmailDigest(true, 2, "{count} updates").group(emails);
+
+        assertEquals(List.of(emails.subList(0, 2), emails.subList(2, 3)), sends);
+    }
+
+    @Test
+    void disabledSendsEachEmailAlone() {
+        List<Email> emails = List.of(email("a@example.com", "1", false), email("a@example.com", "2", false));
+
+        assertEquals(2, new EmailDigest(false, 20, "{count} updates").group(emails).size());
+    }
+
+    @Test
+    void digestListsEachMessageUnderItsSubject() {
+        EmailDigest digest = new EmailDigest(true, 20, "You have {count} new notifications");
+        List<Email> emails = List.of(email("a@example.com", "first", false), email("a@example.com", "second", false));
+
+        assertEquals("You have 2 new notifications", digest.subject(2));
+        String body = digest.body(emails);
+        assertEquals(0, body.indexOf("Subject first\n\nfirst"));
+        assertEquals(body.length() - "Subject second\n\nsecond".length(), body.indexOf("Subject second\n\nsecond"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ApacheKafka.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ApacheKafka.entity.NotificationMessage;
+import com.example.ApacheKafka.repository.InboxCounterRepository;
+import com.example.ApacheKafka.repository.NotificationRepository;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InAppWriteBehindBufferTest {
+
+    private static final long WAIT_MS = 5_000;
+
+    private final NotificationRepository repo = mock(NotificationRepository.class);
+    private final InboxCounterRepository counters = mock(InboxCounterRepository.class);
+    private final DeadLetterPublishingRecoverer deadLetters = mock(DeadLetterPublishingRecoverer.class);
+    private final InAppWriteBehindBuffer buffer = new InAppWriteBehindBuffer(repo, counters,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(JdbcTemplate.class),
+            new ResourceGate("db", 2), mock(RecentInboxCache.class), deadLetters, new SimpleMeterRegistry(), 50, 20, 100);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.destroy();
+    }
+
+    private static ConsumerRecord<String, String> record(long offset) {
+        return new ConsumerRecord<>("in_app_notifications", 0, offset, "s1", "m" + offset);
+    }
+
+    private static NotificationMessage row(String message) {
+        NotificationMessage row = new NotificationMessage();
+        row.setStudentId("s1");
+        row.setMessage(message);
+        return row;
+    }
+
+    @Test
+    void batchIsAcknowledgedOnlyAfterItIsWritten() {
+        Acknowledgment first = mock(Acknowledgment.class);
+        Acknowledgment last = mock(Acknowledgment.class);
+        buffer.enqueue(record(0), first, row("a"));
+        buffer.enqueue(record(1), last, row("b"));
+
+        buffer.run(null);
+
+        InOrder order = inOrder(repo, counters, last);
+        order.verify(repo, timeout(WAIT_MS)).saveAll(anyList());
+        order.verify(counters).increment("s1", 2);
+        order.verify(last).acknowledge();
+        // The last ack of the partition commits the records before it.
+        verify(first, never()).acknowledge();
+    }
+
+    @Test
+    void poisonRowIsDeadLetteredAndTheRestIsWritten() {
+        when(repo.saveAll(anyList())).thenAnswer(invocation -> {
+            List<NotificationMessage> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> row.getMessage().length() > 255)) {
+                throw new DataIntegrityViolationException("value too long for type character varying(255)");
+            }
+            return rows;
+        });
+        Acknowledgment goodAck = mock(Acknowledgment.class);
+        Acknowledgment poisonAck = mock(Acknowledgment.class);
+        Acknowledgment laterAck = mock(Acknowledgment.class);
+        ConsumerRecord<String, String> poison = record(1);
+        buffer.enqueue(record(0), goodAck, row("a"));
+        buffer.enqueue(poison, poisonAck, row("x".repeat(300)));
+        buffer.enqueue(record(2), laterAck, row("b"));
+
+        buffer.run(null);
+
+        verify(laterAck, timeout(WAIT_MS)).acknowledge();
+        verify(deadLetters).accept(eq(poison), any(DataIntegrityViolationException.class));
+        verify(poisonAck).acknowledge();
+        verify(goodAck).acknowledge();
+        verify(counters, never()).increment("s1", 3);
+    }
+
+    @Test
+    void outageKeepsTheBatchUntilTheDatabaseIsBack() {
+        when(repo.saveAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        Acknowledgment ack = mock(Acknowledgment.class);
+        buffer.enqueue(record(0), ack, row("a"));
+
+        buffer.run(null);
+
+        verify(ack, after(500).never()).acknowledge();
+        verify(ack, timeout(WAIT_MS)).acknowledge();
+        verify(deadLetters, never()).accept(any(), any());
+        verify(counters).increment("s1", 1);
+    }
+}
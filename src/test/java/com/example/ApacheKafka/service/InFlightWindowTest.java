@@ -0,0 +1,115 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+class InFlightWindowTest {
+
+    private static final TopicPartition TP = new TopicPartition("email_notifications", 0);
+
+    private MessageListenerContainer container;
+    private InFlightWindow window;
+
+    @BeforeEach
+    void setUp() {
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        container = mock(MessageListenerContainer.class);
+        when(registry.getListenerContainer("email-listener")).thenReturn(container);
+        window = new InFlightWindow(registry, "email-listener", 4, 1);
+    }
+
+    private static ConsumerRecord<String, String> record(long offset) {
+        return new ConsumerRecord<>(TP.topic(), TP.partition(), offset, null, "a@example.com|hi");
+    }
+
+    @Test
+    void acknowledgesOnlyHighestContiguousCompletedOffset() {
+        Acknowledgment[] acks = new Acknowledgment[3];
+        for (int i = 0; i < acks.length; i++) {
+            acks[i] = mock(Acknowledgment.class);
+            window.begin(record(i), acks[i]);
+        }
+
+        window.complete(record(2));
+        window.complete(record(1));
+        verify(acks[1], never()).acknowledge();
+        verify(acks[2], never()).acknowledge();
+
+        window.complete(record(0));
+        verify(acks[0], never()).acknowledge();
+        verify(acks[1], never()).acknowledge();
+        verify(acks[2], times(1)).acknowledge();
+        assertEquals(0, window.inFlight(TP));
+    }
+
+    @Test
+    void pausesAtHighWatermarkAndResumesAtLowWatermark() {
+        for (int i = 0; i < 4; i++) {
+            window.begin(record(i), mock(Acknowledgment.class));
+        }
+        verify(container, times(1)).pausePartition(TP);
+
+        window.complete(record(0));
+        window.complete(record(1));
+        verify(container, never()).resumePartition(TP);
+
+        window.complete(record(2));
+        verify(container, times(1)).resumePartition(TP);
+    }
+
+    @Test
+    void forgetsRevokedPartitions() {
+        Acknowledgment ack = mock(Acknowledgment.class);
+        window.begin(record(0), ack);
+        window.forget(List.of(TP));
+
+        window.complete(record(0));
+        verify(ack, never()).acknowledge();
+        assertEquals(0, window.inFlight(TP));
+    }
+
+    @Test
+    void discardedRecordDoesNotHoldBackLaterAcks() {
+        Acknowledgment first = mock(Acknowledgment.class);
+        Acknowledgment retried = mock(Acknowledgment.class);
+        window.begin(record(0), first);
+        window.begin(record(1), mock(Acknowledgment.class));
+
+        window.discard(record(1));
+        window.complete(record(0));
+        verify(first, times(1)).acknowledge();
+        assertEquals(0, window.inFlight(TP));
+
+        // The error handler redelivers it.
+        window.begin(record(1), retried);
+        window.complete(record(1));
+        verify(retried, times(1)).acknowledge();
+    }
+
+    @Test
+    void discardingCompletedRecordIsANoOp() {
+        Acknowledgment ack = mock(Acknowledgment.class);
+        window.begin(record(0), mock(Acknowledgment.class));
+        window.begin(record(1), ack);
+        window.complete(record(1));
+
+        window.discard(record(1));
+        window.complete(record(0));
+
+        verify(ack, times(1)).acknowledge();
+    }
+}
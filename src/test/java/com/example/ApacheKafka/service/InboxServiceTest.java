@@ -0,0 +1,109 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+
+import com.example.ApacheKafka.dto.InboxPage;
+import com.example.ApacheKafka.dto.NotificationView;
+import com.example.ApacheKafka.repository.InboxCounterRepository;
+import com.example.ApacheKafka.repository.NotificationRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InboxServiceTest {
+
+    private static final int RECENT_SIZE = 3;
+
+    private final NotificationRepository repo = mock(NotificationRepository.class);
+    @SuppressWarnings("unchecked")
+    private final RecentInboxCache cache = new RecentInboxCache(mock(KafkaOperations.class), mock(ConsumerFactory.class),
+            new SimpleMeterRegistry(), RECENT_SIZE, 100, 30);
+    private final InboxService inbox = new InboxService(repo, mock(InboxCounterRepository.class), cache, 100);
+
+    /** {@code count} rows newest first, capped at what the page request asks for. */
+    private void history(String studentId, int count) {
+        when(repo.findInboxFirstPage(eq(studentId), any(Pageable.class))).thenAnswer(invocation -> {
+            int limit = invocation.<Pageable>getArgument(1).getPageSize();
+            List<NotificationView> rows = new ArrayList<>();
+            for (int i = count; i > 0 && rows.size() < limit; i--) {
+                rows.add(new NotificationView((long) i, "m" + i, LocalDateTime.of(2026, 1, 1, 0, 0).plusMinutes(i)));
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void shortHistoryIsOnePageWithoutCursor() {
+        history("s1", 2);
+
+        InboxPage page = inbox.page("s1", null, 3);
+
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void exactlyFullPageWithNothingOlderHasNoCursor() {
+        history("s1", 3);
+
+        assertNull(inbox.page("s1", null, 3).nextCursor());
+    }
+
+    @Test
+    void fullCacheWithOlderRowsHandsOutCursor() {
+        history("s1", 10);
+
+        InboxPage page = inbox.page("s1", null, 3);
+
+        assertEquals(List.of(10L, 9L, 8L), page.items().stream().map(NotificationView::id).toList());
+        InboxService.Cursor cursor = InboxService.Cursor.decode(page.nextCursor());
+        assertEquals(8L, cursor.id());
+    }
+
+    @Test
+    void smallerPageIsCutFromCachedRows() {
+        history("s1", 3);
+
+        InboxPage page = inbox.page("s1", null, 2);
+
+        assertEquals(List.of(3L, 2L), page.items().stream().map(NotificationView::id).toList());
+        assertNotNull(page.nextCursor());
+    }
+
+    @Test
+    void repeatedFirstPageReadsLoadOnce() {
+        history("s1", 10);
+
+        inbox.page("s1", null, 3);
+        inbox.page("s1", null, 2);
+
+        verify(repo, times(1)).findInboxFirstPage("s1", PageRequest.of(0, RECENT_SIZE + 1));
+    }
+
+    @Test
+    void pagesLargerThanCacheGoToDatabase() {
+        history("s1", 10);
+
+        InboxPage page = inbox.page("s1", null, 5);
+
+        assertEquals(5, page.items().size());
+        verify(repo).findInboxFirstPage("s1", PageRequest.of(0, 6));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.routing.NotificationChannel;
+import com.example.ApacheKafka.util.CircuitOpenException;
+
+class NotificationBatchConsumerTest {
+
+    private final EmailChannel emailChannel = mock(EmailChannel.class);
+    private final NotificationBatchConsumer consumer = new NotificationBatchConsumer(emailChannel, Runnable::run, 2);
+    private final List<ConsumerRecord<String, NotificationEnvelope>> batch = List.of(
+            new ConsumerRecord<>("email_notifications", 0, 0, "a@x.io", NotificationEnvelope.of(Channel.EMAIL, "m0")));
+
+    @Test
+    void deliveredBatchIsAcknowledged() {
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumer.listen(batch, ack);
+
+        verify(emailChannel).deliver(anyList(), any());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void batchRefusedByAnOpenBreakerIsNackedFromTheStart() {
+        doThrow(new CircuitOpenException("smtp")).when(emailChannel).deliver(anyList(), any());
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumer.listen(batch, ack);
+
+        verify(ack).nack(0, NotificationChannel.REFUSED_BATCH_BACKOFF);
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void otherFailuresGoToTheErrorHandler() {
+        doThrow(new IllegalStateException("db down")).when(emailChannel).deliver(anyList(), any());
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        assertThrows(IllegalStateException.class, () -> consumer.listen(batch, ack));
+
+        verify(ack, never()).acknowledge();
+        verify(ack, never()).nack(anyInt(), any());
+    }
+}
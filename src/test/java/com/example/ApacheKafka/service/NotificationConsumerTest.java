@@ -0,0 +1,188 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import com.example.ApacheKafka.entity.FailedMessage;
+import com.example.ApacheKafka.messaging.DedupKey;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.repository.FailedMessageRepository;
+import com.example.ApacheKafka.routing.NotificationChannel;
+import com.example.ApacheKafka.template.NotificationTemplateService;
+import com.example.ApacheKafka.template.NotificationTemplateService.Rendered;
+import com.example.ApacheKafka.util.CircuitBreaker;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class NotificationConsumerTest {
+
+    private static final String TO = "a@example.com";
+
+    private final EmailService emailService = mock(EmailService.class);
+    private final FailedMessageRepository repo = mock(FailedMessageRepository.class);
+    private final DelayedRetryScheduler retryScheduler = mock(DelayedRetryScheduler.class);
+    private final SentMessageFilter sentFilter = mock(SentMessageFilter.class);
+    private final NotificationTemplateService templates = mock(NotificationTemplateService.class);
+    private final DeadLetterPublishingRecoverer deadLetters = mock(DeadLetterPublishingRecoverer.class);
+    private final CircuitBreaker dbBreaker = mock(CircuitBreaker.class);
+    private final Set<String> sentKeys = ConcurrentHashMap.newKeySet();
+    private final NotificationConsumer consumer = new NotificationConsumer(emailService, Runnable::run, repo, retryScheduler,
+            new ResourceGate("db", 2, dbBreaker, e -> false), mock(RetryService.class), sentFilter, templates, deadLetters,
+            mock(KafkaListenerEndpointRegistry.class), new SimpleMeterRegistry(), 20, 5, false);
+    private long nextOffset;
+
+    @BeforeEach
+    void setUp() {
+        when(dbBreaker.tryAcquire()).thenReturn(true);
+        when(sentFilter.mightBeSent(anyString())).thenReturn(true);
+        when(templates.render(any())).thenAnswer(invocation ->
+                Optional.of(new Rendered(null, invocation.<NotificationEnvelope>getArgument(0).body())));
+        when(repo.findByDedupKey(anyString())).thenReturn(Optional.empty());
+        when(repo.existsByDedupKeyAndSentTrue(anyString())).thenAnswer(invocation -> sentKeys.contains(invocation.<String>getArgument(0)));
+        when(repo.save(any())).thenAnswer(invocation -> {
+            FailedMessage row = invocation.getArgument(0);
+            if (row.isSent()) sentKeys.add(row.getDedupKey());
+            return row;
+        });
+        // Backoffs are skipped: each retry runs right away.
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(retryScheduler).schedule(any(), anyLong(), any());
+    }
+
+    private ConsumerRecord<String, NotificationEnvelope> record(NotificationEnvelope envelope) {
+        return new ConsumerRecord<>("email_notifications", 0, nextOffset++, TO, envelope);
+    }
+
+    private static NotificationEnvelope email(String body) {
+        return NotificationEnvelope.of(Channel.EMAIL, body);
+    }
+
+    @Test
+    void deliberateRepeatIsSentButRedeliveryIsNot() {
+        NotificationEnvelope reminder = email("Exam tomorrow");
+
+        consumer.listen(record(reminder), mock(Acknowledgment.class));
+        consumer.listen(record(email("Exam tomorrow")), mock(Acknowledgment.class));
+        consumer.listen(record(reminder), mock(Acknowledgment.class));
+
+        verify(emailService, times(2)).sendEmail(TO, null, "Exam tomorrow");
+    }
+
+    @Test
+    void dbFailureBeforeHandOffDoesNotStallThePartition() {
+        NotificationEnvelope broken = email("first");
+        when(repo.existsByDedupKeyAndSentTrue(DedupKey.of(broken.messageId())))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        Acknowledgment brokenAck = mock(Acknowledgment.class);
+        Acknowledgment nextAck = mock(Acknowledgment.class);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> consumer.listen(record(broken), brokenAck));
+        consumer.listen(record(email("second")), nextAck);
+
+        verify(brokenAck, never()).acknowledge();
+        verify(nextAck).acknowledge();
+    }
+
+    @Test
+    void renderFailureOtherThanBadTemplateIsRethrownAndLeavesTheWindow() {
+        NotificationEnvelope templated = NotificationEnvelope.ofTemplate(Channel.EMAIL, "welcome", Map.of());
+        when(templates.render(templated)).thenThrow(new DataAccessResourceFailureException("connection refused"));
+        Acknowledgment nextAck = mock(Acknowledgment.class);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> consumer.listen(record(templated), mock(Acknowledgment.class)));
+        consumer.listen(record(email("second")), nextAck);
+
+        verify(deadLetters, never()).accept(any(), any());
+        verify(nextAck).acknowledge();
+    }
+
+    @Test
+    void malformedDedupHeaderFallsBackToMessageId() {
+        NotificationEnvelope envelope = email("hi");
+        ConsumerRecord<String, NotificationEnvelope> record = record(envelope);
+        record.headers().add(DedupKey.HEADER, "not-a-key".getBytes(StandardCharsets.UTF_8));
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumer.listen(record, ack);
+
+        verify(emailService).sendEmail(TO, null, "hi");
+        verify(ack).acknowledge();
+        assertEquals(Set.of(DedupKey.of(envelope.messageId())), sentKeys);
+    }
+
+    @Test
+    void failedDuplicateDoesNotUndoADelivery() {
+        FailedMessage delivered = new FailedMessage();
+        delivered.setSent(true);
+        when(repo.findByDedupKey(anyString())).thenReturn(Optional.of(delivered));
+        when(repo.existsByDedupKeyAndSentTrue(anyString())).thenReturn(false);
+        doThrow(new IllegalStateException("smtp down")).when(emailService).sendEmail(eq(TO), isNull(), anyString());
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumer.listen(record(email("hi")), ack);
+
+        verify(emailService, times(3)).sendEmail(eq(TO), isNull(), anyString());
+        verify(repo, never()).save(any());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void openDbBreakerNacksTheRecordInsteadOfDeadLettering() {
+        when(dbBreaker.tryAcquire()).thenReturn(false);
+        Acknowledgment refusedAck = mock(Acknowledgment.class);
+
+        consumer.listen(record(email("first")), refusedAck);
+
+        verify(refusedAck).nack(NotificationChannel.REFUSED_BATCH_BACKOFF);
+        verify(refusedAck, never()).acknowledge();
+        verify(emailService, never()).sendEmail(anyString(), any(), anyString());
+
+        when(dbBreaker.tryAcquire()).thenReturn(true);
+        Acknowledgment nextAck = mock(Acknowledgment.class);
+        consumer.listen(record(email("second")), nextAck);
+        verify(nextAck).acknowledge();
+    }
+
+    @Test
+    void templateLookupRefusedByTheBreakerIsNacked() {
+        NotificationEnvelope templated = NotificationEnvelope.ofTemplate(Channel.EMAIL, "welcome", Map.of());
+        when(templates.render(templated)).thenThrow(new CircuitOpenException("db"));
+        Acknowledgment ack = mock(Acknowledgment.class);
+
+        consumer.listen(record(templated), ack);
+
+        verify(ack).nack(NotificationChannel.REFUSED_BATCH_BACKOFF);
+        verify(deadLetters, never()).accept(any(), any());
+    }
+}
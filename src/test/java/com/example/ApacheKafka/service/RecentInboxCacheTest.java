@@ -0,0 +1,117 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+
+import com.example.ApacheKafka.dto.NotificationView;
+import com.example.ApacheKafka.entity.NotificationMessage;
+import com.example.ApacheKafka.service.RecentInboxCache.Recent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RecentInboxCacheTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @SuppressWarnings("unchecked")
+    private final KafkaOperations<String, byte[]> template = mock(KafkaOperations.class);
+    private final RecentInboxCache cache = new RecentInboxCache(template, mock(ConsumerFactory.class),
+            new SimpleMeterRegistry(), 3, 100, 30);
+
+    private static NotificationView view(long id) {
+        return new NotificationView(id, "m" + id, T0.plusSeconds(id));
+    }
+
+    @Test
+    void prependPutsNewRowsFirstNewestFirst() {
+        Recent recent = new Recent(List.of(view(2), view(1)), false);
+
+        Recent merged = recent.prepend(List.of(view(3), view(4)), 5);
+
+        assertEquals(List.of(view(4), view(3), view(2), view(1)), merged.rows());
+        assertFalse(merged.hasOlder());
+    }
+
+    @Test
+    void prependTrimsToLimitAndRemembersOlderRows() {
+        Recent recent = new Recent(List.of(view(2), view(1)), false);
+
+        Recent merged = recent.prepend(List.of(view(3), view(4)), 3);
+
+        assertEquals(List.of(view(4), view(3), view(2)), merged.rows());
+        assertTrue(merged.hasOlder());
+        assertTrue(new Recent(List.of(view(1)), true).prepend(List.of(view(2)), 3).hasOlder());
+    }
+
+    @Test
+    void prependSkipsRowsAConcurrentLoadAlreadyHas() {
+        Recent recent = new Recent(List.of(view(3), view(2)), false);
+
+        Recent merged = recent.prepend(List.of(view(3), view(4)), 5);
+
+        assertEquals(List.of(view(4), view(3), view(2)), merged.rows());
+    }
+
+    @Test
+    void recordFlushedUpdatesCachedStudentsAndSendsOneInvalidation() {
+        when(template.send(anyString(), anyString(), any(byte[].class))).thenReturn(new CompletableFuture<>());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("s1", rows -> {
+            loads.incrementAndGet();
+            return List.of(view(1));
+        });
+
+        cache.recordFlushed(List.of(row(5, "s1"), row(6, "s2"), row(7, "s1")));
+
+        Recent s1 = cache.get("s1", rows -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        assertEquals(List.of(7L, 5L, 1L), s1.rows().stream().map(NotificationView::id).toList());
+        assertEquals(1, loads.get());
+
+        ArgumentCaptor<byte[]> studentIds = ArgumentCaptor.forClass(byte[].class);
+        verify(template).send(eq(RecentInboxCache.INVALIDATION_TOPIC), anyString(), studentIds.capture());
+        assertEquals("s1\ns2", new String(studentIds.getValue(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void invalidationFromAnotherInstanceDropsEntries() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("s1", rows -> List.of(view(loads.incrementAndGet())));
+        cache.get("s2", rows -> List.of(view(loads.incrementAndGet())));
+
+        cache.onInvalidation("other-instance", "s1\ns3");
+
+        cache.get("s1", rows -> List.of(view(loads.incrementAndGet())));
+        cache.get("s2", rows -> List.of(view(loads.incrementAndGet())));
+        assertEquals(3, loads.get());
+    }
+
+    private static NotificationMessage row(long id, String studentId) {
+        NotificationMessage row = new NotificationMessage();
+        row.setId(id);
+        row.setStudentId(studentId);
+        row.setMessage("m" + id);
+        row.setCreatedAt(T0.plusSeconds(id));
+        return row;
+    }
+}
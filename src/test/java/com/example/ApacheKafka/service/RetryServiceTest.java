@@ -0,0 +1,167 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.example.ApacheKafka.repository.RetryQueueRepository;
+import com.example.ApacheKafka.repository.RetryQueueRepository.Backlog;
+import com.example.ApacheKafka.repository.RetryQueueRepository.ClaimedRetry;
+import com.example.ApacheKafka.repository.RetryQueueRepository.RetryResult;
+import com.example.ApacheKafka.util.CircuitBreaker;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RetryServiceTest {
+
+    private static final long BASE_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    private final EmailService emailService = mock(EmailService.class);
+    private final RetryQueueRepository queue = mock(RetryQueueRepository.class);
+    private final CircuitBreaker smtpBreaker = mock(CircuitBreaker.class);
+    private final RetryService service = new RetryService(emailService, queue, new ResourceGate("db", 2), new SimpleMeterRegistry(),
+            smtpBreaker, Runnable::run, 2, 1, 3, 60_000, BASE_BACKOFF_MS, MAX_BACKOFF_MS, 7);
+
+    @BeforeEach
+    void setUp() {
+        when(smtpBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+        when(queue.backlog(any())).thenReturn(new Backlog(0, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    private static ClaimedRetry claimed(long id, int retryCount) {
+        return new ClaimedRetry(id, "r" + id + "@x.io", "Hi", "body " + id, retryCount);
+    }
+
+    private Map<Long, RetryResult> completedResults(int drains) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RetryResult>> written = ArgumentCaptor.forClass(List.class);
+        verify(queue, times(drains)).complete(written.capture());
+        return written.getAllValues().stream().flatMap(List::stream)
+                .collect(Collectors.toMap(RetryResult::id, Function.identity()));
+    }
+
+    @Test
+    void claimedRowsAreSentAndWrittenBackInOneBatch() {
+        when(queue.claimDue(any(), any(), eq(3))).thenReturn(List.of(claimed(1, 0), claimed(2, 1)));
+
+        service.retryFailedMessages();
+
+        verify(emailService).sendEmail("r1@x.io", "Hi", "body 1");
+        verify(emailService).sendEmail("r2@x.io", "Hi", "body 2");
+        Map<Long, RetryResult> results = completedResults(1);
+        assertTrue(results.get(1L).sent());
+        assertNull(results.get(2L).nextAttemptAt());
+        assertEquals(1, results.get(2L).retryCount());
+    }
+
+    @Test
+    void claimLeasesRowsPastNow() {
+        when(queue.claimDue(any(), any(), anyInt())).thenReturn(List.of());
+
+        service.retryFailedMessages();
+
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> leaseUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(queue).claimDue(now.capture(), leaseUntil.capture(), eq(3));
+        assertEquals(now.getValue().plusMinutes(1), leaseUntil.getValue());
+        verify(queue, never()).complete(any());
+    }
+
+    @Test
+    void fullChunkIsFollowedByAnotherClaim() {
+        when(queue.claimDue(any(), any(), eq(3)))
+                .thenReturn(List.of(claimed(1, 0), claimed(2, 0), claimed(3, 0)))
+                .thenReturn(List.of(claimed(4, 0)));
+
+        service.retryFailedMessages();
+
+        assertEquals(4, completedResults(2).size());
+    }
+
+    @Test
+    void failedSendIsRescheduledWithBackoff() {
+        when(queue.claimDue(any(), any(), eq(3))).thenReturn(List.of(claimed(1, 0)));
+        doThrow(new IllegalStateException("550 mailbox unavailable")).when(emailService).sendEmail(any(), any(), any());
+
+        service.retryFailedMessages();
+
+        RetryResult result = completedResults(1).get(1L);
+        assertEquals(1, result.retryCount());
+        assertEquals("550 mailbox unavailable", result.error());
+        long delayMs = Duration.between(result.triedAt(), result.nextAttemptAt()).toMillis();
+        assertTrue(delayMs >= 2 * BASE_BACKOFF_MS && delayMs <= 2 * BASE_BACKOFF_MS * 6 / 5, "delay " + delayMs);
+    }
+
+    @Test
+    void lastRetryGivesUp() {
+        when(queue.claimDue(any(), any(), eq(3))).thenReturn(List.of(claimed(1, RetryService.MAX_RETRIES - 1)));
+        doThrow(new IllegalStateException("550")).when(emailService).sendEmail(any(), any(), any());
+
+        service.retryFailedMessages();
+
+        RetryResult result = completedResults(1).get(1L);
+        assertEquals(RetryService.MAX_RETRIES, result.retryCount());
+        assertNull(result.nextAttemptAt());
+    }
+
+    @Test
+    void sendRefusedByTheBreakerDoesNotUseUpARetry() {
+        when(queue.claimDue(any(), any(), eq(3))).thenReturn(List.of(claimed(1, 1)));
+        doThrow(new CircuitOpenException("smtp")).when(emailService).sendEmail(any(), any(), any());
+
+        service.retryFailedMessages();
+
+        RetryResult result = completedResults(1).get(1L);
+        assertEquals(1, result.retryCount());
+        assertNotNull(result.nextAttemptAt());
+    }
+
+    @Test
+    void nothingIsClaimedUnlessTheSmtpBreakerIsClosed() {
+        when(smtpBreaker.getState()).thenReturn(CircuitBreaker.State.HALF_OPEN);
+
+        service.retryFailedMessages();
+
+        verifyNoInteractions(queue, emailService);
+    }
+
+    @Test
+    void backoffIsCappedWithJitter() {
+        for (int retry = 0; retry < 30; retry++) {
+            long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(retry, 20));
+            long backoff = service.backoffMs(retry);
+            assertTrue(backoff >= delay && backoff <= delay + delay / 5, "retry " + retry + ": " + backoff);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.repository.ScheduledNotificationRepository;
+import com.example.ApacheKafka.repository.ScheduledNotificationRepository.Reschedule;
+import com.example.ApacheKafka.repository.ScheduledNotificationRepository.ScheduledNotification;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ScheduledNotificationServiceTest {
+
+    private static final String DAILY_AT_NINE = "0 0 9 * * *";
+
+    private final ScheduledNotificationRepository repository = mock(ScheduledNotificationRepository.class);
+    private final NotificationProducer emailProducer = mock(NotificationProducer.class);
+    private final InAppNotificationProducer inAppProducer = mock(InAppNotificationProducer.class);
+    private final ScheduledNotificationService service = new ScheduledNotificationService(repository, new ResourceGate("db", 2),
+            emailProducer, inAppProducer, new SimpleMeterRegistry(), 10, 64, 30_000, 60_000, 100, 1_000);
+
+    @BeforeEach
+    void setUp() {
+        when(emailProducer.sendNotification(anyString(), anyString(), anyBoolean())).thenReturn(CompletableFuture.completedFuture(null));
+        when(inAppProducer.sendNotification(anyString(), anyString(), anyBoolean())).thenReturn(CompletableFuture.completedFuture(null));
+        when(repository.claimDue(any(), any(), anyLong(), anyInt())).thenReturn(List.of());
+        service.run(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    private void claims(ScheduledNotification... rows) {
+        when(repository.claimDue(any(), any(), anyLong(), anyInt())).thenReturn(List.of(rows)).thenReturn(List.of());
+    }
+
+    private static ScheduledNotification email(long id, LocalDateTime sendAt, String cron) {
+        return new ScheduledNotification(id, "EMAIL", "a@x.io", "m" + id, false, sendAt, cron);
+    }
+
+    @Test
+    void overdueOneOffIsPublishedAndDeletedOnTheNextLoad() {
+        claims(email(1, LocalDateTime.now().minusSeconds(5), null));
+
+        service.load();
+
+        verify(emailProducer).sendNotification("a@x.io", "m1", false);
+        verify(repository, never()).deleteAll(any());
+        service.load();
+        verify(repository).deleteAll(List.of(1L));
+    }
+
+    @Test
+    void parkedRowIsPublishedByTheWheelWhenDue() {
+        claims(new ScheduledNotification(2, "IN_APP", "s1", "m2", true, LocalDateTime.now().plusNanos(200_000_000), null));
+
+        service.load();
+
+        verify(inAppProducer, never()).sendNotification(anyString(), anyString(), anyBoolean());
+        verify(inAppProducer, timeout(5_000)).sendNotification("s1", "m2", true);
+    }
+
+    @Test
+    void recurringRowMovesToItsNextOccurrenceAfterNow() {
+        claims(email(3, LocalDateTime.now().minusDays(3), DAILY_AT_NINE));
+
+        service.load();
+        service.load();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Reschedule>> next = ArgumentCaptor.forClass(List.class);
+        verify(repository).reschedule(next.capture());
+        Reschedule reschedule = next.getValue().get(0);
+        assertEquals(3, reschedule.id());
+        assertTrue(reschedule.sendAt().isAfter(LocalDateTime.now()));
+        assertEquals(9, reschedule.sendAt().getHour());
+        verify(repository).deleteAll(List.of());
+    }
+
+    @Test
+    void failedPublishIsUnleasedForTheNextLoad() {
+        when(emailProducer.sendNotification(anyString(), anyString(), anyBoolean()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        claims(email(4, LocalDateTime.now().minusSeconds(1), DAILY_AT_NINE));
+
+        service.load();
+        service.load();
+
+        verify(repository).unlease(List.of(4L));
+        verify(repository).reschedule(List.of());
+    }
+
+    @Test
+    void shutdownHandsParkedRowsBack() {
+        claims(email(5, LocalDateTime.now().plusSeconds(20), null));
+        service.load();
+
+        service.destroy();
+
+        verify(repository).unlease(List.of(5L));
+        verify(emailProducer, never()).sendNotification(anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    void cronOnlyScheduleStartsAtTheNextMatch() {
+        service.schedule(Channel.EMAIL, " a@x.io ", "hi", false, null, DAILY_AT_NINE);
+
+        ArgumentCaptor<LocalDateTime> first = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).insert(eq("EMAIL"), eq("a@x.io"), eq("hi"), eq(false), first.capture(), eq(DAILY_AT_NINE));
+        assertEquals(9, first.getValue().getHour());
+        assertTrue(first.getValue().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void invalidSchedulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.schedule(Channel.EMAIL, "a@x.io", "hi", false, null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.schedule(Channel.EMAIL, "a@x.io", "hi", false, null, "nope"));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.schedule(Channel.SMS, "a@x.io", "hi", false, null, DAILY_AT_NINE));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ApacheKafka.messaging.DedupKey;
+import com.example.ApacheKafka.repository.FailedMessageBatchRepository;
+import com.example.ApacheKafka.util.ResourceGate;
+
+class SentMessageFilterTest {
+
+    private final FailedMessageBatchRepository batchRepo = mock(FailedMessageBatchRepository.class);
+    private final SentMessageFilter filter = new SentMessageFilter(batchRepo, new ResourceGate("db", 2), 100, 0.01);
+
+    private static final String K1 = DedupKey.of(UUID.randomUUID());
+    private static final String K2 = DedupKey.of(UUID.randomUUID());
+    private static final String K3 = DedupKey.of(UUID.randomUUID());
+
+    private void sentKeysInDb(String... keys) {
+        doAnswer(invocation -> {
+            List.of(keys).forEach(invocation.<Consumer<String>>getArgument(0));
+            return null;
+        }).when(batchRepo).forEachSentKey(any());
+    }
+
+    @Test
+    void everyKeyIsAPossibleHitUntilLoaded() {
+        assertTrue(filter.mightBeSent(K1));
+
+        filter.refresh();
+
+        verify(batchRepo, never()).forEachKeySentSince(any(), any());
+    }
+
+    @Test
+    void loadedFilterAnswersUnseenKeysWithoutTheDatabase() {
+        sentKeysInDb(K1, K2);
+
+        filter.run(null);
+
+        assertTrue(filter.mightBeSent(K1));
+        assertTrue(filter.mightBeSent(K2));
+        assertFalse(filter.mightBeSent(K3));
+    }
+
+    @Test
+    void refreshPicksUpKeysSentByOtherInstances() {
+        filter.run(null);
+        doAnswer(invocation -> {
+            invocation.<Consumer<String>>getArgument(1).accept(K3);
+            return null;
+        }).when(batchRepo).forEachKeySentSince(any(), any());
+
+        filter.refresh();
+
+        assertTrue(filter.mightBeSent(K3));
+    }
+
+    @Test
+    void outgrownFilterIsRebuiltFromTheDatabase() {
+        filter.run(null);
+        for (int i = 0; i < 150; i++) {
+            filter.recordSent(DedupKey.of(UUID.randomUUID()));
+        }
+
+        filter.refresh();
+
+        verify(batchRepo, times(2)).forEachSentKey(any());
+        verify(batchRepo, never()).forEachKeySentSince(any(), any());
+    }
+}
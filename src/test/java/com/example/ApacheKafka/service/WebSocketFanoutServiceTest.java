@@ -0,0 +1,82 @@
+package com.example.ApacheKafka.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WebSocketFanoutServiceTest {
+
+    private final SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+    // Long enough that only the explicit flush() calls below ever send.
+    private final WebSocketFanoutService fanout = new WebSocketFanoutService(template, new SimpleMeterRegistry(), Runnable::run,
+            600_000, 3, 2);
+
+    @AfterEach
+    void shutDown() {
+        fanout.destroy();
+    }
+
+    @Test
+    void coalescesPendingNotificationsIntoOneFramePerStudent() {
+        fanout.publish("s1", "a1");
+        fanout.publish("s2", "b1");
+        fanout.publish("s1", "a2");
+        verify(template, never()).convertAndSend(anyString(), any(Object.class));
+        assertEquals(2, fanout.getPendingStudents());
+
+        fanout.flush();
+
+        verify(template).convertAndSend("/topic/notifications/s1", (Object) List.of("a1", "a2"));
+        verify(template).convertAndSend("/topic/notifications/s2", (Object) List.of("b1"));
+        assertEquals(2, fanout.getFramesSent());
+        assertEquals(0, fanout.getPendingStudents());
+
+        fanout.flush();
+        verifyNoMoreInteractions(template);
+    }
+
+    @Test
+    void overflowingBufferDropsOldestNotifications() {
+        for (int i = 1; i <= 5; i++) fanout.publish("s1", "n" + i);
+
+        fanout.flush();
+
+        verify(template).convertAndSend("/topic/notifications/s1", (Object) List.of("n3", "n4", "n5"));
+        assertEquals(2, fanout.getDroppedCount());
+    }
+
+    @Test
+    void publishNowSendsPendingFirstWithoutWaitingForFlush() {
+        fanout.publish("s1", "queued");
+        fanout.publish("s2", "other");
+
+        fanout.publishNow("s1", "urgent");
+
+        verify(template).convertAndSend("/topic/notifications/s1", (Object) List.of("queued", "urgent"));
+        assertEquals(1, fanout.getPendingStudents());
+
+        fanout.flush();
+        verify(template).convertAndSend("/topic/notifications/s2", (Object) List.of("other"));
+        verifyNoMoreInteractions(template);
+    }
+
+    @Test
+    void publishNowWithNothingPendingSendsSingleFrame() {
+        fanout.publishNow("s1", "urgent");
+
+        verify(template).convertAndSend("/topic/notifications/s1", (Object) List.of("urgent"));
+        assertEquals(0, fanout.getPendingStudents());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ApacheKafka.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class CompiledTemplateTest {
+
+    @Test
+    void substitutesVariablesAndFallbacks() {
+        CompiledTemplate template = CompiledTemplate.compile("Hello {{ name | there }}, your code is {{code}}.{{missing}}");
+
+        assertEquals("Hello Ada, your code is 42.", template.render(Map.of("name", "Ada", "code", "42")));
+        assertEquals("Hello there, your code is .", template.render(Map.of("name", " ")));
+    }
+
+    @Test
+    void keepsUnterminatedPlaceholdersAsText() {
+        assertEquals("a {{b", CompiledTemplate.compile("a {{b").render(Map.of("b", "x")));
+        assertEquals("plain", CompiledTemplate.compile("plain").render(Map.of()));
+    }
+
+    @Test
+    void rejectsEmptyVariableNames() {
+        assertThrows(IllegalArgumentException.class, () -> CompiledTemplate.compile("Hi {{ }}"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ApacheKafka.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ApacheKafka.entity.NotificationTemplate;
+import com.example.ApacheKafka.messaging.NotificationEnvelope;
+import com.example.ApacheKafka.messaging.NotificationEnvelope.Channel;
+import com.example.ApacheKafka.repository.NotificationTemplateRepository;
+import com.example.ApacheKafka.util.CircuitBreaker;
+import com.example.ApacheKafka.util.CircuitOpenException;
+import com.example.ApacheKafka.util.ResourceGate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class NotificationTemplateServiceTest {
+
+    private final NotificationTemplateRepository repo = mock(NotificationTemplateRepository.class);
+    private final NotificationTemplateService templates = new NotificationTemplateService(repo, new ResourceGate("db", 2),
+            new SimpleMeterRegistry(), 10, 300);
+
+    private static NotificationTemplate stored(String id, String body) {
+        NotificationTemplate template = new NotificationTemplate();
+        template.setId(id);
+        template.setBody(body);
+        return template;
+    }
+
+    @Test
+    void unknownTemplateIsLookedUpAgainOnNextUse() {
+        when(repo.findById("exam-reminder")).thenReturn(Optional.empty());
+        NotificationEnvelope envelope = NotificationEnvelope.ofTemplate(Channel.EMAIL, "exam-reminder", Map.of("name", "Ada"));
+
+        assertThrows(IllegalArgumentException.class, () -> templates.render(envelope));
+        assertFalse(templates.exists("exam-reminder"));
+
+        // Created on another instance, so this one's cache is never invalidated.
+        when(repo.findById("exam-reminder")).thenReturn(Optional.of(stored("exam-reminder", "Hi {{name}}")));
+
+        assertTrue(templates.exists("exam-reminder"));
+        assertEquals("Hi Ada", templates.render(envelope).orElseThrow().body());
+    }
+
+    @Test
+    void knownTemplateIsCompiledOnce() {
+        when(repo.findById("welcome")).thenReturn(Optional.of(stored("welcome", "Hi {{name}}")));
+        NotificationEnvelope envelope = NotificationEnvelope.ofTemplate(Channel.EMAIL, "welcome", Map.of("name", "Ada"));
+
+        templates.render(envelope);
+        templates.render(envelope);
+
+        verify(repo, times(1)).findById("welcome");
+    }
+
+    @Test
+    void lookupFailsFastWhileTheDbBreakerIsOpen() {
+        CircuitBreaker breaker = mock(CircuitBreaker.class);
+        when(breaker.getName()).thenReturn("db");
+        NotificationTemplateService gated = new NotificationTemplateService(repo,
+                new ResourceGate("db", 2, breaker, e -> true), new SimpleMeterRegistry(), 10, 300);
+        NotificationEnvelope envelope = NotificationEnvelope.ofTemplate(Channel.EMAIL, "exam-reminder", Map.of());
+
+        assertThrows(CircuitOpenException.class, () -> gated.render(envelope));
+        verify(repo, never()).findById("exam-reminder");
+    }
+}
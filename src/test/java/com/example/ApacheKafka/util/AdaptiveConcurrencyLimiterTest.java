@@ -0,0 +1,105 @@
+package com.example.ApacheKafka.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void growsWhileSaturatedAndLatencyIsSteady() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 8, 0.5, 2.0);
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.acquire();
+            limiter.onSuccess(FAST);
+            limiter.onSuccess(FAST);
+        }
+        assertTrue(limiter.getLimit() > 2, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOnPushbackButNotOnBadRequests() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 8, 0.5, 2.0);
+        limiter.acquire();
+        limiter.onFailure(false);
+        assertEquals(8, limiter.getLimit());
+
+        limiter.acquire();
+        limiter.onFailure(true);
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotGrowWhileTheLimitIsUnused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 0.5, 2.0);
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.onSuccess(FAST);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void latencySpikeShrinksTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 8, 0.5, 2.0);
+        limiter.acquire();
+        limiter.onSuccess(FAST);
+
+        for (int i = 0; i < 10 && limiter.getLimit() == 8; i++) {
+            limiter.acquire();
+            limiter.onSuccess(100 * FAST);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void decreasesAreSpacedByTheRecentLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 8, 0.5, 2.0);
+        limiter.acquire();
+        limiter.onSuccess(TimeUnit.SECONDS.toNanos(10));
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+            limiter.onFailure(true);
+        }
+
+        assertEquals(4, limiter.getLimit(), "one slow burst counts once");
+    }
+
+    @Test
+    void staysWithinItsBounds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 2, 3, 0.1, 2.0);
+        assertEquals(3, limiter.getLimit());
+        limiter.acquire();
+        limiter.onFailure(true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void acquireWaitsForAFreeSlot() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.5, 2.0);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            limiter.acquire();
+            acquired.countDown();
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.onSuccess(FAST);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+        waiter.join();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.ApacheKafka.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ApacheKafka.messaging.DedupKey;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAddedKeysAndKeepsFalsePositivesNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(DedupKey.of("user" + i + "@example.com", "body"));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(DedupKey.of("user" + i + "@example.com", "body")));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(DedupKey.of("other" + i + "@example.com", "body"))) falsePositives++;
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void dedupKeyIs128BitHexOfRecipientAndBody() {
+        String key = DedupKey.of("a@example.com", "hello");
+        assertEquals(32, key.length());
+        assertEquals(key, DedupKey.of("a@example.com", "hello"));
+        assertNotEquals(key, DedupKey.of("a@example.com", "hello "));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.ApacheKafka.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.ApacheKafka.util.CircuitBreaker.State;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("smtp", 10, 4, 0.5, 1000, 2, clock::get);
+
+    @Test
+    void opensAtTheFailureRateAndRejectsUntilTheOpenDurationPasses() {
+        List<State> transitions = new ArrayList<>();
+        breaker.addListener((b, from, to) -> transitions.add(to));
+
+        call(true);
+        call(false);
+        call(false);
+        assertEquals(State.CLOSED, breaker.getState(), "below minCalls");
+        call(false);
+        assertEquals(State.OPEN, breaker.getState());
+
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isProbeDue());
+        assertEquals(1, breaker.getRejectedCount());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(breaker.isProbeDue());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only two probes at a time");
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.CLOSED), transitions);
+    }
+
+    @Test
+    void failedProbeReopens() {
+        for (int i = 0; i < 4; i++) call(false);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        for (int i = 0; i < 4; i++) call(false);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        call(true);
+        call(true);
+        // Closed again with an empty window: 4 failures among the last 10 stay under 50%.
+        for (int i = 0; i < 6; i++) call(true);
+        for (int i = 0; i < 4; i++) call(false);
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0.4, breaker.getFailureRate(), 1e-9);
+        call(false);
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void failureRateIsZeroUntilMinCallsAreRecorded() {
+        call(false);
+        call(false);
+        call(false);
+
+        assertEquals(0, breaker.getFailureRate());
+        call(true);
+        assertEquals(0.75, breaker.getFailureRate(), 1e-9);
+    }
+
+    @Test
+    void halfOpenNeedsEveryProbeToSucceed() {
+        for (int i = 0; i < 4; i++) call(false);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.isProbeDue(), "one probe left");
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "probes already used up");
+        breaker.onSuccess();
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertFalse(breaker.isProbeDue());
+    }
+
+    @Test
+    void lateOutcomesOfCallsMadeBeforeOpeningAreIgnored() {
+        List<State> transitions = new ArrayList<>();
+        breaker.addListener((b, from, to) -> transitions.add(to));
+        for (int i = 0; i < 4; i++) call(false);
+
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(List.of(State.OPEN), transitions);
+    }
+
+    @Test
+    void closingStartsAFreshWindow() {
+        for (int i = 0; i < 4; i++) call(false);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        call(true);
+        call(true);
+
+        // Three failures alone stay under minCalls in the fresh window.
+        call(false);
+        call(false);
+        call(false);
+        assertEquals(State.CLOSED, breaker.getState());
+        call(false);
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    private void call(boolean succeeds) {
+        assertTrue(breaker.tryAcquire());
+        if (succeeds) breaker.onSuccess();
+        else breaker.onFailure();
+    }
+}
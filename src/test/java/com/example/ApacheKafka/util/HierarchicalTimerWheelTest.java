@@ -0,0 +1,58 @@
+package com.example.ApacheKafka.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimerWheelTest {
+
+    @Test
+    void entriesFireOnTheFirstTickAtOrAfterTheirDeadline() {
+        HierarchicalTimerWheel<Long> wheel = new HierarchicalTimerWheel<>(10, 8, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Up to ~3 levels deep: 8 * 8 * 8 ticks of 10 ms is 5.12 s
+            long deadline = 1 + random.nextInt(20_000);
+            deadlines.add(deadline);
+            assertTrue(wheel.add(deadline, deadline));
+        }
+
+        int fired = 0;
+        for (long now = 0; now <= 20_010; now += 7) {
+            for (long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "fired early: " + deadline + " at " + now);
+                assertTrue(now - deadline < 10 + 7, "fired late: " + deadline + " at " + now);
+                fired++;
+            }
+        }
+        assertEquals(deadlines.size(), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void longPauseReleasesEverythingOverdueInOrder() {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(100, 4, 1_000);
+        wheel.add("c", 90_000);
+        wheel.add("a", 1_250);
+        wheel.add("b", 7_000);
+
+        assertEquals(List.of(), wheel.advance(1_200));
+        assertEquals(List.of("a", "b", "c"), wheel.advance(120_000));
+    }
+
+    @Test
+    void pastDeadlinesAreRejected() {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(100, 4, 1_000);
+        assertFalse(wheel.add("late", 1_000));
+        assertFalse(wheel.add("later", 500));
+        assertTrue(wheel.add("next", 1_001));
+        assertEquals(1, wheel.size());
+    }
+}
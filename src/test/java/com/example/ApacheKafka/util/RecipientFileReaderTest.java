@@ -0,0 +1,55 @@
+package com.example.ApacheKafka.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RecipientFileReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void streamsXlsxRowsInOrderAndSkipsBlankRecipients() throws Exception {
+        Path file = dir.resolve("users.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("a@example.com");
+            Row second = sheet.createRow(1);
+            second.createCell(0).setCellValue("b@example.com");
+            second.createCell(2).setCellValue("Bob");
+            sheet.createRow(3).createCell(1).setCellValue("no recipient");
+            workbook.write(out);
+        }
+
+        List<List<String>> rows = new ArrayList<>();
+        long count = RecipientFileReader.stream(file.toString(), rows::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of("a@example.com"), rows.get(0));
+        assertEquals(List.of("b@example.com", "", "Bob"), rows.get(1));
+    }
+
+    @Test
+    void streamsCsvWithQuotedCells() throws Exception {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "a@example.com,\"Smith, Ann\"\n\n b@example.com ,\"say \"\"hi\"\"\"\n");
+
+        List<List<String>> rows = new ArrayList<>();
+        long count = RecipientFileReader.stream(file.toString(), rows::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of("a@example.com", "Smith, Ann"), rows.get(0));
+        assertEquals(List.of("b@example.com", "say \"hi\""), rows.get(1));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ApacheKafka.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    @Test
+    void callersWaitOnceBurstIsSpent() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        long wait = bucket.reserve();
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(50) && wait <= TimeUnit.MILLISECONDS.toNanos(100), "wait was " + wait);
+    }
+
+    @Test
+    void waitersAreServedInReservationOrder() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        assertEquals(0, bucket.reserve());
+
+        long second = bucket.reserve();
+        long third = bucket.reserve();
+
+        assertTrue(third - second > TimeUnit.MILLISECONDS.toNanos(90), "gap was " + (third - second));
+        assertTrue(bucket.getAvailable() < -1);
+    }
+
+    @Test
+    void idleTimeRefillsOnlyUpToTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 3);
+        for (int i = 0; i < 3; i++) bucket.reserve();
+
+        Thread.sleep(50);
+
+        assertEquals(3, bucket.getAvailable(), 0.01);
+        for (int i = 0; i < 3; i++) assertEquals(0, bucket.reserve());
+        assertTrue(bucket.reserve() > 0);
+    }
+
+    @Test
+    void burstIsAtLeastOnePermit() {
+        TokenBucket bucket = new TokenBucket(1, 0);
+
+        assertEquals(0, bucket.reserve());
+        assertTrue(bucket.reserve() > TimeUnit.MILLISECONDS.toNanos(900));
+    }
+}